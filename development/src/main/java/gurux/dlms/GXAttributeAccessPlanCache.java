@@ -0,0 +1,255 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms;
+
+import java.util.HashMap;
+
+import gurux.dlms.enums.AccessMode;
+import gurux.dlms.enums.Authentication;
+import gurux.dlms.enums.DataType;
+import gurux.dlms.objects.GXDLMSObject;
+import gurux.dlms.objects.GXDLMSObjectCollection;
+
+/**
+ * Server uses this class to cache resolved attribute descriptors of get
+ * requests. Plans are keyed by class ID, logical name and attribute index.
+ * Cache is cleared when object collection is modified or association
+ * changes. Single plan is dropped when change count of the target object
+ * changes. Access mode is used from the plan only if server caches attribute
+ * access. This class is reserved for internal use.
+ * 
+ * @author Gurux Ltd.
+ */
+final class GXAttributeAccessPlanCache {
+
+    /**
+     * Resolved attribute access.
+     */
+    static final class Plan {
+        /**
+         * Target object.
+         */
+        private final GXDLMSObject target;
+
+        /**
+         * Attribute access mode.
+         */
+        private final AccessMode access;
+
+        /**
+         * Data type used to encode the attribute.
+         */
+        private final DataType type;
+
+        /**
+         * Change count of the target when plan was made.
+         */
+        private final int changeCount;
+
+        /**
+         * Constructor.
+         * 
+         * @param forTarget
+         *            Target object.
+         * @param forAccess
+         *            Attribute access mode.
+         * @param forType
+         *            Data type used to encode the attribute.
+         */
+        Plan(final GXDLMSObject forTarget, final AccessMode forAccess,
+                final DataType forType) {
+            target = forTarget;
+            access = forAccess;
+            type = forType;
+            changeCount = forTarget.getChangeCount();
+        }
+
+        /**
+         * @return Target object.
+         */
+        public GXDLMSObject getTarget() {
+            return target;
+        }
+
+        /**
+         * @return Attribute access mode.
+         */
+        public AccessMode getAccess() {
+            return access;
+        }
+
+        /**
+         * @return Data type used to encode the attribute.
+         */
+        public DataType getType() {
+            return type;
+        }
+
+        /**
+         * Check is plan still valid for the target object.
+         * 
+         * @return True, if logical name, version, data types or access
+         *         rights of the target are not changed.
+         */
+        boolean isValid() {
+            return target.getChangeCount() == changeCount;
+        }
+    }
+
+    /**
+     * Plans by class ID and logical name. Array is indexed by attribute index.
+     */
+    private final HashMap<Long, Plan[]> plans = new HashMap<Long, Plan[]>();
+
+    /**
+     * Objects that plans are resolved from.
+     */
+    private GXDLMSObjectCollection objects;
+
+    /**
+     * Modification count of the object collection when plans were made.
+     */
+    private int modificationCount;
+
+    /**
+     * Authentication level when plans were made.
+     */
+    private Authentication authentication;
+
+    /**
+     * Is connection established when plans were made.
+     */
+    private boolean connected;
+
+    /**
+     * Get plan key.
+     * 
+     * @param ci
+     *            Class ID.
+     * @param ln
+     *            Logical name as byte array.
+     * @return Plan key.
+     */
+    private static long getKey(final int ci, final byte[] ln) {
+        long key = ci & 0xFFFF;
+        for (byte it : ln) {
+            key = (key << 8) | (it & 0xFF);
+        }
+        return key;
+    }
+
+    /**
+     * Clear cached plans if they are not valid for current settings.
+     * 
+     * @param settings
+     *            DLMS settings.
+     */
+    private void validate(final GXDLMSSettings settings) {
+        GXDLMSObjectCollection items = settings.getObjects();
+        if (objects != items
+                || modificationCount != items.getModificationCount()
+                || authentication != settings.getAuthentication()
+                || connected != settings.isConnected()) {
+            plans.clear();
+            objects = items;
+            modificationCount = items.getModificationCount();
+            authentication = settings.getAuthentication();
+            connected = settings.isConnected();
+        }
+    }
+
+    /**
+     * Find cached plan.
+     * 
+     * @param settings
+     *            DLMS settings.
+     * @param ci
+     *            Class ID.
+     * @param ln
+     *            Logical name as byte array.
+     * @param attributeIndex
+     *            Attribute index.
+     * @return Cached plan or null if plan is not cached.
+     */
+    Plan find(final GXDLMSSettings settings, final int ci, final byte[] ln,
+            final int attributeIndex) {
+        validate(settings);
+        Plan[] list = plans.get(getKey(ci, ln));
+        if (list == null || attributeIndex >= list.length) {
+            return null;
+        }
+        Plan plan = list[attributeIndex];
+        if (plan != null && !plan.isValid()) {
+            list[attributeIndex] = null;
+            return null;
+        }
+        return plan;
+    }
+
+    /**
+     * Add new plan.
+     * 
+     * @param ci
+     *            Class ID.
+     * @param ln
+     *            Logical name as byte array.
+     * @param attributeIndex
+     *            Attribute index.
+     * @param plan
+     *            Resolved plan.
+     */
+    void add(final int ci, final byte[] ln, final int attributeIndex,
+            final Plan plan) {
+        Long key = getKey(ci, ln);
+        Plan[] list = plans.get(key);
+        if (list == null || attributeIndex >= list.length) {
+            Plan[] tmp = new Plan[attributeIndex + 1];
+            if (list != null) {
+                System.arraycopy(list, 0, tmp, 0, list.length);
+            }
+            list = tmp;
+            plans.put(key, list);
+        }
+        list[attributeIndex] = plan;
+    }
+
+    /**
+     * Remove all cached plans.
+     */
+    void clear() {
+        plans.clear();
+        objects = null;
+    }
+}
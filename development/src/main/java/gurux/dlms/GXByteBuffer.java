@@ -38,6 +38,7 @@ package gurux.dlms;
 
 import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 
 import gurux.dlms.internal.GXCommon;
 
@@ -100,6 +101,47 @@ public class GXByteBuffer {
         set(value);
     }
 
+    /**
+     * Create byte buffer from NIO buffer. Byte buffer is always backed by a
+     * heap array that starts from offset zero, so this is a copying adapter
+     * for all other buffers. Only writable heap buffers with array offset
+     * zero are shared without copying. Position and size of the byte buffer
+     * are then taken from the position and limit of the NIO buffer and the
+     * shared array is released if byte buffer needs to grow. Remaining bytes
+     * of direct, memory-mapped, read-only and sliced buffers are copied and
+     * changes made to the returned byte buffer are not visible in the NIO
+     * buffer. Position of the NIO buffer is not changed.
+     * 
+     * @param value
+     *            NIO buffer.
+     * @return Byte buffer.
+     */
+    public static GXByteBuffer wrap(final ByteBuffer value) {
+        GXByteBuffer bb = new GXByteBuffer();
+        if (value.hasArray() && value.arrayOffset() == 0) {
+            bb.data = value.array();
+            bb.size = value.limit();
+            bb.position = value.position();
+        } else if (value.hasRemaining()) {
+            bb.set(value.duplicate());
+        }
+        return bb;
+    }
+
+    /**
+     * Get NIO view of unread bytes. Returned buffer shares the content of this
+     * buffer. Position of the view is the position of this buffer and limit is
+     * the size of this buffer.
+     * 
+     * @return NIO buffer.
+     */
+    public final ByteBuffer asByteBuffer() {
+        if (data == null) {
+            return ByteBuffer.allocate(0);
+        }
+        return ByteBuffer.wrap(data, position, size - position);
+    }
+
     /**
      * Clear buffer but do not release memory.
      */
@@ -135,6 +177,24 @@ public class GXByteBuffer {
         }
     }
 
+    /**
+     * Make sure that buffer can hold given amount of bytes. Capacity grows
+     * geometrically so appending byte by byte is amortised to constant time.
+     * 
+     * @param required
+     *            Required capacity.
+     */
+    private void ensureCapacity(final int required) {
+        int capacity = capacity();
+        if (required > capacity) {
+            capacity += capacity >> 1;
+            if (capacity < required) {
+                capacity = required + ARRAY_CAPACITY;
+            }
+            capacity(capacity);
+        }
+    }
+
     /**
      * Buffer capacity.
      * 
@@ -233,6 +293,7 @@ public class GXByteBuffer {
             throw new IllegalArgumentException("count");
         }
         if (count != 0) {
+            ensureCapacity(destPos + count);
             System.arraycopy(data, srcPos, data, destPos, count);
             size((destPos + count));
             if (position > size) {
@@ -269,9 +330,7 @@ public class GXByteBuffer {
 
     public final void setUInt8(final int index, final int item) {
 
-        if (index >= capacity()) {
-            capacity(index + ARRAY_CAPACITY);
-        }
+        ensureCapacity(index + 1);
         data[index] = (byte) item;
     }
 
@@ -282,9 +341,7 @@ public class GXByteBuffer {
 
     public final void setUInt16(final int index, final int item) {
 
-        if (index + 2 >= capacity()) {
-            capacity(index + ARRAY_CAPACITY);
-        }
+        ensureCapacity(index + 2);
         data[index] = (byte) ((item >> 8) & 0xFF);
         data[index + 1] = (byte) (item & 0xFF);
     }
@@ -297,9 +354,7 @@ public class GXByteBuffer {
 
     public final void setUInt32(final int index, final long item) {
 
-        if (index + 4 >= capacity()) {
-            capacity(index + ARRAY_CAPACITY);
-        }
+        ensureCapacity(index + 4);
         data[index] = (byte) ((item >> 24) & 0xFF);
         data[index + 1] = (byte) ((item >> 16) & 0xFF);
         data[index + 2] = (byte) ((item >> 8) & 0xFF);
@@ -314,9 +369,7 @@ public class GXByteBuffer {
 
     public final void setUInt64(final int index, final long item) {
 
-        if (index + 8 >= capacity()) {
-            capacity(index + ARRAY_CAPACITY);
-        }
+        ensureCapacity(index + 8);
         data[size] = (byte) ((item >> 56) & 0xFF);
         data[size + 1] = (byte) ((item >> 48) & 0xFF);
         data[size + 2] = (byte) ((item >> 40) & 0xFF);
@@ -521,9 +574,7 @@ public class GXByteBuffer {
     public final void set(final byte[] value, final int index,
             final int count) {
         if (value != null && count != 0) {
-            if (size + count > capacity()) {
-                capacity(size + count + ARRAY_CAPACITY);
-            }
+            ensureCapacity(size + count);
             System.arraycopy(value, index, data, size, count);
             size += count;
         }
@@ -544,10 +595,8 @@ public class GXByteBuffer {
      *            Byte count.
      */
     public final void set(final GXByteBuffer value, final int count) {
-        if (size + count > capacity()) {
-            capacity(size + count + ARRAY_CAPACITY);
-        }
         if (count != 0) {
+            ensureCapacity(size + count);
             System.arraycopy(value.data, value.position, data, size, count);
             size += count;
             value.position += count;
@@ -592,6 +641,39 @@ public class GXByteBuffer {
         }
     }
 
+    /**
+     * Append remaining bytes of NIO buffer into this buffer. Position of the
+     * source buffer is moved to the limit.
+     * 
+     * @param value
+     *            Source buffer.
+     */
+    public final void set(final ByteBuffer value) {
+        if (value != null) {
+            int count = value.remaining();
+            if (count != 0) {
+                ensureCapacity(size + count);
+                value.get(data, size, count);
+                size += count;
+            }
+        }
+    }
+
+    /**
+     * Copy unread bytes into NIO buffer. As many bytes are copied as target
+     * has room for and positions of both buffers are moved.
+     * 
+     * @param target
+     *            Target buffer.
+     */
+    public final void get(final ByteBuffer target) {
+        int count = Math.min(size - position, target.remaining());
+        if (count != 0) {
+            target.put(data, position, count);
+            position += count;
+        }
+    }
+
     public final void get(final byte[] target) {
         if (size - position < target.length) {
             throw new IllegalArgumentException("get");
@@ -0,0 +1,141 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms;
+
+/**
+ * Size-classed pool of byte buffers. Each connection owns its own pool in
+ * DLMS settings, so buffers used to build PDUs and frames can be reused
+ * between requests. This class is not thread safe and it is reserved for
+ * internal use.
+ * 
+ * @author Gurux Ltd.
+ */
+final class GXByteBufferPool {
+    /**
+     * Capacity of the smallest size class as power of two.
+     */
+    private static final int MIN_SHIFT = 6;
+
+    /**
+     * Amount of size classes. Largest pooled buffer is 64 KB.
+     */
+    private static final int CLASS_COUNT = 11;
+
+    /**
+     * Maximum amount of free buffers in one size class.
+     */
+    private static final int MAX_FREE = 4;
+
+    /**
+     * Free buffers by size class.
+     */
+    private final GXByteBuffer[][] free =
+            new GXByteBuffer[CLASS_COUNT][MAX_FREE];
+
+    /**
+     * Amount of free buffers by size class.
+     */
+    private final int[] count = new int[CLASS_COUNT];
+
+    /**
+     * Get size class where buffer of given capacity fits.
+     * 
+     * @param capacity
+     *            Wanted capacity.
+     * @return Size class.
+     */
+    private static int getClass(final int capacity) {
+        if (capacity <= 1 << MIN_SHIFT) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1) - MIN_SHIFT;
+    }
+
+    /**
+     * Get empty buffer.
+     * 
+     * @param capacity
+     *            Minimum capacity of the buffer.
+     * @return Empty buffer.
+     */
+    GXByteBuffer acquire(final int capacity) {
+        int index = getClass(capacity);
+        if (index >= CLASS_COUNT) {
+            return new GXByteBuffer(capacity);
+        }
+        for (int pos = index; pos != CLASS_COUNT; ++pos) {
+            if (count[pos] != 0) {
+                --count[pos];
+                GXByteBuffer bb = free[pos][count[pos]];
+                free[pos][count[pos]] = null;
+                return bb;
+            }
+        }
+        return new GXByteBuffer(1 << (index + MIN_SHIFT));
+    }
+
+    /**
+     * Return buffer to the pool. Buffer can't be used after this.
+     * 
+     * @param value
+     *            Released buffer.
+     */
+    void release(final GXByteBuffer value) {
+        int capacity = value.capacity();
+        if (capacity < 1 << MIN_SHIFT) {
+            return;
+        }
+        // Buffer is stored to the largest class that it fills. Very large
+        // buffers are left for the garbage collector.
+        int index = 31 - Integer.numberOfLeadingZeros(capacity) - MIN_SHIFT;
+        if (index < CLASS_COUNT && count[index] != MAX_FREE) {
+            value.clear();
+            free[index][count[index]] = value;
+            ++count[index];
+        }
+    }
+
+    /**
+     * Release all pooled buffers.
+     */
+    void clear() {
+        for (int pos = 0; pos != CLASS_COUNT; ++pos) {
+            for (int i = 0; i != count[pos]; ++i) {
+                free[pos][i] = null;
+            }
+            count[pos] = 0;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms;
+
+/**
+ * Frame that is read from the capture file.
+ */
+public class GXCaptureFrame {
+    /**
+     * Index of the frame in capture file.
+     */
+    private long index;
+
+    /**
+     * Capture time in milliseconds since epoch.
+     */
+    private long time;
+
+    /**
+     * Is frame received or sent.
+     */
+    private boolean received;
+
+    /**
+     * Frame data. Buffer is reused when next frame is read.
+     */
+    private final GXByteBuffer data = new GXByteBuffer();
+
+    /**
+     * @return Index of the frame in capture file.
+     */
+    public final long getIndex() {
+        return index;
+    }
+
+    /**
+     * @param value
+     *            Index of the frame in capture file.
+     */
+    final void setIndex(final long value) {
+        index = value;
+    }
+
+    /**
+     * @return Capture time in milliseconds since epoch.
+     */
+    public final long getTime() {
+        return time;
+    }
+
+    /**
+     * @param value
+     *            Capture time in milliseconds since epoch.
+     */
+    final void setTime(final long value) {
+        time = value;
+    }
+
+    /**
+     * @return Is frame received or sent.
+     */
+    public final boolean isReceived() {
+        return received;
+    }
+
+    /**
+     * @param value
+     *            Is frame received or sent.
+     */
+    final void setReceived(final boolean value) {
+        received = value;
+    }
+
+    /**
+     * @return Frame data. Buffer is reused when next frame is read.
+     */
+    public final GXByteBuffer getData() {
+        return data;
+    }
+
+    @Override
+    public final String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(index);
+        if (received) {
+            sb.append(" RX ");
+        } else {
+            sb.append(" TX ");
+        }
+        sb.append(data.toString());
+        return sb.toString();
+    }
+}
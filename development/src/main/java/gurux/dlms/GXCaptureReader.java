@@ -0,0 +1,323 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Capture reader reads frames from the capture file that is saved with
+ * {@link GXCaptureWriter}. File is memory-mapped in windows so large captures
+ * are not loaded to the heap. If the writer was not closed, frame index is
+ * missing and it's built when file is opened.
+ */
+public class GXCaptureReader implements AutoCloseable {
+    /**
+     * Size of the mapped window.
+     */
+    private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * Capture file.
+     */
+    private RandomAccessFile file;
+
+    /**
+     * File channel.
+     */
+    private final FileChannel channel;
+
+    /**
+     * End of the frame data.
+     */
+    private final long end;
+
+    /**
+     * Offset of the frame index. Zero if index is not saved.
+     */
+    private final long indexOffset;
+
+    /**
+     * Frame offsets if index is not saved.
+     */
+    private long[] offsets;
+
+    /**
+     * Amount of frames.
+     */
+    private final long count;
+
+    /**
+     * Mapped window.
+     */
+    private MappedByteBuffer window;
+
+    /**
+     * File offset of the mapped window.
+     */
+    private long windowOffset;
+
+    /**
+     * Read offset.
+     */
+    private long offset;
+
+    /**
+     * Index of the next frame.
+     */
+    private long index;
+
+    /**
+     * Constructor.
+     * 
+     * @param path
+     *            Capture file path.
+     * @throws IOException
+     *             Failed to open the file or file is not a capture file.
+     */
+    public GXCaptureReader(final String path) throws IOException {
+        file = new RandomAccessFile(path, "r");
+        channel = file.getChannel();
+        try {
+            long size = channel.size();
+            if (size < GXCaptureWriter.HEADER_SIZE
+                    || getInt(0) != GXCaptureWriter.MAGIC) {
+                throw new IOException("Invalid capture file.");
+            }
+            if (getBuffer(4, 1).get() != GXCaptureWriter.VERSION) {
+                throw new IOException("Invalid capture file version.");
+            }
+            long pos = size - GXCaptureWriter.TRAILER_SIZE;
+            if (pos >= GXCaptureWriter.HEADER_SIZE
+                    && getInt(pos + 16) == GXCaptureWriter.INDEX_MAGIC) {
+                indexOffset = getLong(pos);
+                count = getLong(pos + 8);
+                end = indexOffset;
+            } else {
+                // Writer was not closed. Find frames from the data.
+                indexOffset = 0;
+                end = size;
+                count = buildIndex();
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        offset = GXCaptureWriter.HEADER_SIZE;
+    }
+
+    /**
+     * Find frame offsets when index is not saved. Incomplete frame at the end
+     * of the file is ignored.
+     * 
+     * @return Amount of frames.
+     */
+    private long buildIndex() throws IOException {
+        long[] list = new long[64];
+        int cnt = 0;
+        long pos = GXCaptureWriter.HEADER_SIZE;
+        while (pos + GXCaptureWriter.FRAME_HEADER_SIZE <= end) {
+            long next = pos + GXCaptureWriter.FRAME_HEADER_SIZE
+                    + (getInt(pos + 9) & 0xFFFFFFFFL);
+            if (next > end) {
+                break;
+            }
+            if (cnt == list.length) {
+                long[] tmp = new long[list.length + list.length / 2];
+                System.arraycopy(list, 0, tmp, 0, cnt);
+                list = tmp;
+            }
+            list[cnt] = pos;
+            ++cnt;
+            pos = next;
+        }
+        offsets = list;
+        return cnt;
+    }
+
+    /**
+     * Get mapped buffer that contains the given file region.
+     * 
+     * @param pos
+     *            File offset.
+     * @param len
+     *            Length of the region.
+     * @return Buffer where position is set to the file offset.
+     */
+    private ByteBuffer getBuffer(final long pos, final int len)
+            throws IOException {
+        if (window == null || pos < windowOffset
+                || pos + len > windowOffset + window.limit()) {
+            long size = Math.min(Math.max(WINDOW_SIZE, len),
+                    channel.size() - pos);
+            if (size < len) {
+                throw new IOException("Invalid capture file.");
+            }
+            window = channel.map(FileChannel.MapMode.READ_ONLY, pos, size);
+            windowOffset = pos;
+        }
+        window.position((int) (pos - windowOffset));
+        return window;
+    }
+
+    private int getInt(final long pos) throws IOException {
+        return getBuffer(pos, 4).getInt();
+    }
+
+    private long getLong(final long pos) throws IOException {
+        return getBuffer(pos, 8).getLong();
+    }
+
+    /**
+     * @return Amount of frames.
+     */
+    public final long getCount() {
+        return count;
+    }
+
+    /**
+     * @return Index of the next frame.
+     */
+    public final long getIndex() {
+        return index;
+    }
+
+    /**
+     * Get file offset of the frame.
+     * 
+     * @param value
+     *            Frame index.
+     * @return File offset.
+     */
+    private long getOffset(final long value) throws IOException {
+        if (offsets != null) {
+            return offsets[(int) value];
+        }
+        return getLong(indexOffset + 8 * value);
+    }
+
+    /**
+     * Move to the given frame.
+     * 
+     * @param value
+     *            Index of the next frame to read.
+     * @throws IOException
+     *             Read failed.
+     */
+    public final void seek(final long value) throws IOException {
+        if (value < 0 || value > count) {
+            throw new IllegalArgumentException("value");
+        }
+        if (value == count) {
+            offset = end;
+        } else {
+            offset = getOffset(value);
+        }
+        index = value;
+    }
+
+    /**
+     * Read next frame.
+     * 
+     * @param frame
+     *            Frame where data is read.
+     * @return False, if there are no more frames.
+     * @throws IOException
+     *             Read failed.
+     */
+    public final boolean read(final GXCaptureFrame frame) throws IOException {
+        if (index == count) {
+            return false;
+        }
+        ByteBuffer bb = getBuffer(offset, GXCaptureWriter.FRAME_HEADER_SIZE);
+        frame.setIndex(index);
+        frame.setTime(bb.getLong());
+        frame.setReceived((bb.get() & GXCaptureWriter.RECEIVED) != 0);
+        int len = bb.getInt();
+        bb = getBuffer(offset + GXCaptureWriter.FRAME_HEADER_SIZE, len);
+        int limit = bb.limit();
+        GXByteBuffer data = frame.getData();
+        data.clear();
+        if (data.capacity() < len) {
+            data.capacity(len);
+        }
+        try {
+            bb.limit(bb.position() + len);
+            data.set(bb);
+        } finally {
+            bb.limit(limit);
+        }
+        offset += GXCaptureWriter.FRAME_HEADER_SIZE + len;
+        ++index;
+        return true;
+    }
+
+    /**
+     * Read frame.
+     * 
+     * @param value
+     *            Frame index.
+     * @param frame
+     *            Frame where data is read.
+     * @throws IOException
+     *             Read failed.
+     */
+    public final void read(final long value, final GXCaptureFrame frame)
+            throws IOException {
+        if (value < 0 || value >= count) {
+            throw new IllegalArgumentException("value");
+        }
+        seek(value);
+        read(frame);
+    }
+
+    /**
+     * Close the capture file.
+     * 
+     * @throws IOException
+     *             Close failed.
+     */
+    @Override
+    public final void close() throws IOException {
+        window = null;
+        if (file != null) {
+            file.close();
+            file = null;
+        }
+    }
+}
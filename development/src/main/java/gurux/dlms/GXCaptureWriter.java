@@ -0,0 +1,258 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Capture writer saves sent and received frames to compact binary capture
+ * file. Captured frames can be read with {@link GXCaptureReader}.
+ * <p>
+ * File starts with the header (magic and version). Each frame is saved as
+ * capture time (int64, milliseconds), flags (uint8), data length (uint32)
+ * and data. When writer is closed frame offsets (int64) are appended to the
+ * end of the file followed by the trailer: index offset (int64), frame count
+ * (int64) and index magic. All values are big endian.
+ * </p>
+ */
+public class GXCaptureWriter implements AutoCloseable {
+    /**
+     * File magic.
+     */
+    static final int MAGIC = 0x47584346;
+
+    /**
+     * Index magic.
+     */
+    static final int INDEX_MAGIC = 0x47584349;
+
+    /**
+     * File format version.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Size of the file header.
+     */
+    static final int HEADER_SIZE = 8;
+
+    /**
+     * Size of the frame header.
+     */
+    static final int FRAME_HEADER_SIZE = 13;
+
+    /**
+     * Size of the trailer.
+     */
+    static final int TRAILER_SIZE = 20;
+
+    /**
+     * Frame is received.
+     */
+    static final int RECEIVED = 1;
+
+    /**
+     * Output stream.
+     */
+    private DataOutputStream stream;
+
+    /**
+     * Write offset.
+     */
+    private long offset;
+
+    /**
+     * Frame offsets.
+     */
+    private long[] offsets = new long[64];
+
+    /**
+     * Amount of written frames.
+     */
+    private int count;
+
+    /**
+     * Constructor.
+     * 
+     * @param path
+     *            File path.
+     * @throws IOException
+     *             Failed to create the file.
+     */
+    public GXCaptureWriter(final String path) throws IOException {
+        this(new FileOutputStream(path));
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param forStream
+     *            Output stream. Stream is closed when writer is closed.
+     * @throws IOException
+     *             Failed to write the header.
+     */
+    public GXCaptureWriter(final OutputStream forStream) throws IOException {
+        if (forStream == null) {
+            throw new IllegalArgumentException("forStream");
+        }
+        stream = new DataOutputStream(new BufferedOutputStream(forStream));
+        stream.writeInt(MAGIC);
+        stream.writeByte(VERSION);
+        // Reserved.
+        stream.writeByte(0);
+        stream.writeShort(0);
+        offset = HEADER_SIZE;
+    }
+
+    /**
+     * @return Amount of written frames.
+     */
+    public final int getCount() {
+        return count;
+    }
+
+    /**
+     * Write frame using current time as capture time.
+     * 
+     * @param received
+     *            Is frame received or sent.
+     * @param data
+     *            Frame data.
+     * @throws IOException
+     *             Write failed.
+     */
+    public final void write(final boolean received, final byte[] data)
+            throws IOException {
+        write(System.currentTimeMillis(), received, data, 0, data.length);
+    }
+
+    /**
+     * Write frame. Data is written from the buffer position to the end of
+     * the buffer.
+     * 
+     * @param time
+     *            Capture time in milliseconds since epoch.
+     * @param received
+     *            Is frame received or sent.
+     * @param data
+     *            Frame data.
+     * @throws IOException
+     *             Write failed.
+     */
+    public final void write(final long time, final boolean received,
+            final GXByteBuffer data) throws IOException {
+        write(time, received, data.getData(), data.position(),
+                data.size() - data.position());
+    }
+
+    /**
+     * Write frame.
+     * 
+     * @param time
+     *            Capture time in milliseconds since epoch.
+     * @param received
+     *            Is frame received or sent.
+     * @param data
+     *            Frame data.
+     * @param index
+     *            Start index.
+     * @param len
+     *            Data length.
+     * @throws IOException
+     *             Write failed.
+     */
+    public final void write(final long time, final boolean received,
+            final byte[] data, final int index, final int len)
+            throws IOException {
+        if (stream == null) {
+            throw new IllegalStateException("Capture writer is closed.");
+        }
+        if (count == offsets.length) {
+            long[] tmp = new long[offsets.length + offsets.length / 2];
+            System.arraycopy(offsets, 0, tmp, 0, count);
+            offsets = tmp;
+        }
+        offsets[count] = offset;
+        ++count;
+        stream.writeLong(time);
+        if (received) {
+            stream.writeByte(RECEIVED);
+        } else {
+            stream.writeByte(0);
+        }
+        stream.writeInt(len);
+        stream.write(data, index, len);
+        offset += FRAME_HEADER_SIZE + len;
+    }
+
+    /**
+     * Write buffered frames to the stream.
+     * 
+     * @throws IOException
+     *             Write failed.
+     */
+    public final void flush() throws IOException {
+        if (stream != null) {
+            stream.flush();
+        }
+    }
+
+    /**
+     * Write frame index and close the writer.
+     * 
+     * @throws IOException
+     *             Write failed.
+     */
+    @Override
+    public final void close() throws IOException {
+        if (stream != null) {
+            try {
+                for (int pos = 0; pos != count; ++pos) {
+                    stream.writeLong(offsets[pos]);
+                }
+                stream.writeLong(offset);
+                stream.writeLong(count);
+                stream.writeInt(INDEX_MAGIC);
+            } finally {
+                stream.close();
+                stream = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,557 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TimeZone;
+
+import gurux.dlms.enums.ClockStatus;
+import gurux.dlms.enums.DateTimeSkips;
+
+/**
+ * Compact immutable DLMS date-time. Value is decoded from the 12 byte
+ * date-time without Calendar or collections. Skipped fields are kept as a
+ * DateTimeSkips bitmask and clock status as a byte. Use toGXDateTime when
+ * calendar based presentation is needed. Parsers return this type instead of
+ * GXDateTime when compact date-time is enabled with
+ * GXDLMSClient.changeType or GXDLMSProfileGeneric.setCompactDateTime.
+ * 
+ * @author Gurux Ltd.
+ */
+public final class GXCompactDateTime {
+    /**
+     * Deviation value when deviation is not used.
+     */
+    private static final int NO_DEVIATION = 0x8000;
+
+    /**
+     * Seconds in a day.
+     */
+    private static final int SECONDS_PER_DAY = 86400;
+
+    /**
+     * Seconds since 1970-01-01 00:00:00 UTC.
+     */
+    private final long epochSeconds;
+
+    /**
+     * Year, month as it was received and day.
+     */
+    private final int date;
+
+    /**
+     * Hour, minute, second and millisecond.
+     */
+    private final int time;
+
+    /**
+     * Deviation from local time to UTC in minutes.
+     */
+    private final short deviation;
+
+    /**
+     * Clock status.
+     */
+    private final byte status;
+
+    /**
+     * Skipped fields as DateTimeSkips bitmask.
+     */
+    private final int skip;
+
+    /**
+     * Constructor.
+     * 
+     * @param forEpochSeconds
+     *            Seconds since 1970-01-01 00:00:00 UTC.
+     * @param forDate
+     *            Packed date.
+     * @param forTime
+     *            Packed time.
+     * @param forDeviation
+     *            Deviation.
+     * @param forStatus
+     *            Clock status.
+     * @param forSkip
+     *            Skipped fields.
+     */
+    private GXCompactDateTime(final long forEpochSeconds, final int forDate,
+            final int forTime, final int forDeviation, final int forStatus,
+            final int forSkip) {
+        epochSeconds = forEpochSeconds;
+        date = forDate;
+        time = forTime;
+        deviation = (short) forDeviation;
+        status = (byte) forStatus;
+        skip = forSkip;
+    }
+
+    /**
+     * Decode date-time from byte array.
+     * 
+     * @param value
+     *            12 bytes long date-time.
+     * @return Date-time.
+     */
+    public static GXCompactDateTime valueOf(final byte[] value) {
+        if (value == null || value.length != 12) {
+            throw new IllegalArgumentException("Invalid date time.");
+        }
+        return parse(new GXByteBuffer(value));
+    }
+
+    /**
+     * Decode date-time from the byte buffer. Caller must check that 12 bytes
+     * are available.
+     * 
+     * @param buff
+     *            Byte buffer.
+     * @return Date-time.
+     */
+    public static GXCompactDateTime parse(final GXByteBuffer buff) {
+        int mask = 0;
+        int year = buff.getUInt16();
+        int rawMonth = buff.getUInt8();
+        int day = buff.getUInt8();
+        if (buff.getUInt8() == 0xFF) {
+            mask |= DateTimeSkips.DAY_OF_WEEK.getValue();
+        }
+        int hour = buff.getUInt8();
+        int minute = buff.getUInt8();
+        int second = buff.getUInt8();
+        int ms = buff.getUInt8();
+        int dev = buff.getInt16();
+        int clockStatus = buff.getUInt8();
+        if (ms != 0xFF) {
+            ms *= 10;
+        } else {
+            ms = -1;
+        }
+        if (dev == -32768) {
+            dev = NO_DEVIATION;
+            mask |= DateTimeSkips.DEVITATION.getValue();
+        }
+        if (year < 1 || year == 0xFFFF) {
+            mask |= DateTimeSkips.YEAR.getValue();
+            year = getCurrentYear();
+        }
+        int month = rawMonth;
+        if (month < 1 || month > 12) {
+            mask |= DateTimeSkips.MONTH.getValue();
+            month = 1;
+        }
+        if (day == 0 || day > 31) {
+            mask |= DateTimeSkips.DAY.getValue();
+            day = 1;
+        }
+        if (hour > 24) {
+            mask |= DateTimeSkips.HOUR.getValue();
+            hour = 0;
+        }
+        if (minute > 60) {
+            mask |= DateTimeSkips.MINUTE.getValue();
+            minute = 0;
+        }
+        if (second > 60) {
+            mask |= DateTimeSkips.SECOND.getValue();
+            second = 0;
+        }
+        if (ms < 0 || ms > 1000) {
+            mask |= DateTimeSkips.MILLISECOND.getValue();
+            ms = 0;
+        }
+        long local = getDays(year, month, day) * SECONDS_PER_DAY
+                + hour * 3600 + minute * 60 + second;
+        long epoch;
+        if (dev == NO_DEVIATION) {
+            // Local time of this computer is used.
+            TimeZone tz = TimeZone.getDefault();
+            long millis = local * 1000 - tz.getRawOffset();
+            epoch = local - tz.getOffset(millis) / 1000;
+        } else {
+            epoch = local + dev * 60;
+        }
+        return new GXCompactDateTime(epoch,
+                year << 16 | rawMonth << 8 | day,
+                hour << 24 | minute << 16 | second << 10 | ms, dev,
+                clockStatus, mask);
+    }
+
+    /**
+     * Create date-time from UTC time. Deviation of the local time zone of
+     * this computer is used.
+     * 
+     * @param epochMilliseconds
+     *            Milliseconds since 1970-01-01 00:00:00 UTC.
+     * @return Date-time.
+     */
+    public static GXCompactDateTime valueOf(final long epochMilliseconds) {
+        long seconds = epochMilliseconds / 1000;
+        int ms = (int) (epochMilliseconds % 1000);
+        if (ms < 0) {
+            --seconds;
+            ms += 1000;
+        }
+        int offset = TimeZone.getDefault().getOffset(epochMilliseconds);
+        return create(seconds, ms, -offset / 60000, 0, 0);
+    }
+
+    /**
+     * Add seconds to the date-time. Deviation, clock status and skipped
+     * fields are kept.
+     * 
+     * @param value
+     *            Seconds to add.
+     * @return New date-time.
+     */
+    public GXCompactDateTime plusSeconds(final long value) {
+        return create(epochSeconds + value, getMillisecond(), getDeviation(),
+                getStatus(), skip);
+    }
+
+    /**
+     * Create date-time from UTC seconds. Civil fields are resolved from the
+     * deviation without Calendar.
+     * 
+     * @param forEpochSeconds
+     *            Seconds since 1970-01-01 00:00:00 UTC.
+     * @param ms
+     *            Millisecond.
+     * @param dev
+     *            Deviation.
+     * @param clockStatus
+     *            Clock status.
+     * @param mask
+     *            Skipped fields.
+     * @return Date-time.
+     */
+    private static GXCompactDateTime create(final long forEpochSeconds,
+            final int ms, final int dev, final int clockStatus,
+            final int mask) {
+        long local;
+        if (dev == NO_DEVIATION) {
+            local = forEpochSeconds + TimeZone.getDefault()
+                    .getOffset(forEpochSeconds * 1000) / 1000;
+        } else {
+            local = forEpochSeconds - dev * 60;
+        }
+        long days = local / SECONDS_PER_DAY;
+        int secs = (int) (local % SECONDS_PER_DAY);
+        if (secs < 0) {
+            --days;
+            secs += SECONDS_PER_DAY;
+        }
+        // Civil date from days, see getDays.
+        days += 719468;
+        long era = (days >= 0 ? days : days - 146096) / 146097;
+        long doe = days - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int year = (int) (yoe + era * 400);
+        if (month <= 2) {
+            ++year;
+        }
+        return new GXCompactDateTime(forEpochSeconds,
+                year << 16 | month << 8 | day,
+                (secs / 3600) << 24 | (secs / 60 % 60) << 16
+                        | (secs % 60) << 10 | ms,
+                dev, clockStatus, mask);
+    }
+
+    /**
+     * Get days since 1970-01-01 in proleptic Gregorian calendar.
+     * 
+     * @param year
+     *            Year.
+     * @param month
+     *            Month 1-12.
+     * @param day
+     *            Day of month.
+     * @return Days since epoch.
+     */
+    static long getDays(final int year, final int month, final int day) {
+        int y = year;
+        if (month <= 2) {
+            --y;
+        }
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yoe = y - era * 400;
+        int mp = (month + 9) % 12;
+        int doy = (153 * mp + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097L + doe - 719468;
+    }
+
+    /**
+     * @return Current year in local time.
+     */
+    private static int getCurrentYear() {
+        long now = System.currentTimeMillis();
+        now += TimeZone.getDefault().getOffset(now);
+        long days = now / (SECONDS_PER_DAY * 1000L);
+        // Civil year from days, see getDays.
+        days += 719468;
+        long era = (days >= 0 ? days : days - 146096) / 146097;
+        long doe = days - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        long year = yoe + era * 400;
+        if (mp >= 10) {
+            ++year;
+        }
+        return (int) year;
+    }
+
+    /**
+     * @return Seconds since 1970-01-01 00:00:00 UTC.
+     */
+    public long getEpochSeconds() {
+        return epochSeconds;
+    }
+
+    /**
+     * @return Milliseconds since 1970-01-01 00:00:00 UTC.
+     */
+    public long getEpochMilliseconds() {
+        return epochSeconds * 1000 + getMillisecond();
+    }
+
+    /**
+     * @return Year. Current year if year is skipped.
+     */
+    public int getYear() {
+        return date >>> 16;
+    }
+
+    /**
+     * @return Month 1-12. January if month is skipped.
+     */
+    public int getMonth() {
+        int value = (date >> 8) & 0xFF;
+        if (value < 1 || value > 12) {
+            return 1;
+        }
+        return value;
+    }
+
+    /**
+     * @return Day of month.
+     */
+    public int getDay() {
+        return date & 0xFF;
+    }
+
+    /**
+     * @return Hour.
+     */
+    public int getHour() {
+        return time >>> 24;
+    }
+
+    /**
+     * @return Minute.
+     */
+    public int getMinute() {
+        return (time >> 16) & 0xFF;
+    }
+
+    /**
+     * @return Second.
+     */
+    public int getSecond() {
+        return (time >> 10) & 0x3F;
+    }
+
+    /**
+     * @return Millisecond.
+     */
+    public int getMillisecond() {
+        return time & 0x3FF;
+    }
+
+    /**
+     * @return Deviation from local time to UTC in minutes. 0x8000 if
+     *         deviation is not used.
+     */
+    public int getDeviation() {
+        if (deviation == (short) NO_DEVIATION) {
+            return NO_DEVIATION;
+        }
+        return deviation;
+    }
+
+    /**
+     * @return Clock status as a byte. See ClockStatus.
+     */
+    public int getStatus() {
+        return status & 0xFF;
+    }
+
+    /**
+     * @return Skipped fields as DateTimeSkips bitmask.
+     */
+    public int getSkip() {
+        return skip;
+    }
+
+    /**
+     * @return Is month daylight savings begin.
+     */
+    public boolean getDaylightSavingsBegin() {
+        return ((date >> 8) & 0xFF) == 0xFE;
+    }
+
+    /**
+     * @return Is month daylight savings end.
+     */
+    public boolean getDaylightSavingsEnd() {
+        return ((date >> 8) & 0xFF) == 0xFD;
+    }
+
+    /**
+     * @return Date-time as UTC date.
+     */
+    public Date toDate() {
+        return new Date(getEpochMilliseconds());
+    }
+
+    /**
+     * Convert compact date-time to calendar based date-time.
+     * 
+     * @return Date-time.
+     */
+    public GXDateTime toGXDateTime() {
+        GXDateTime dt = new GXDateTime((Calendar) null);
+        dt.setStatus(ClockStatus.forValue(getStatus()));
+        dt.setDaylightSavingsBegin(getDaylightSavingsBegin());
+        dt.setDaylightSavingsEnd(getDaylightSavingsEnd());
+        Calendar tm;
+        int tzOffset = 0;
+        int dev = getDeviation();
+        if (dev == NO_DEVIATION) {
+            tm = Calendar.getInstance();
+        } else {
+            TimeZone tz = GXDateTime.getTimeZone(-dev,
+                    (getStatus() & ClockStatus.DAYLIGHT_SAVE_ACTIVE
+                            .getValue()) != 0);
+            if (tz != null) {
+                tm = Calendar.getInstance(tz);
+            } else {
+                // Use current time zone if time zone is not found.
+                tm = Calendar.getInstance();
+                tzOffset = dev + (tm.getTimeZone().getRawOffset() / 60000);
+            }
+        }
+        tm.set(getYear(), getMonth() - 1, getDay(), getHour(), getMinute(),
+                getSecond());
+        tm.set(Calendar.MILLISECOND, getMillisecond());
+        if (tzOffset != 0) {
+            tm.add(Calendar.MINUTE, tzOffset);
+        }
+        dt.setMeterCalendar(tm);
+        dt.setSkip(getSkipSet());
+        return dt;
+    }
+
+    /**
+     * @return Skipped fields as a set.
+     */
+    public Set<DateTimeSkips> getSkipSet() {
+        Set<DateTimeSkips> list = new HashSet<DateTimeSkips>();
+        if (skip != 0) {
+            for (DateTimeSkips it : DateTimeSkips.values()) {
+                if ((skip & it.getValue()) != 0) {
+                    list.add(it);
+                }
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (!(obj instanceof GXCompactDateTime)) {
+            return false;
+        }
+        GXCompactDateTime o = (GXCompactDateTime) obj;
+        return epochSeconds == o.epochSeconds && date == o.date
+                && time == o.time && deviation == o.deviation
+                && status == o.status && skip == o.skip;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (epochSeconds ^ (epochSeconds >>> 32)) * 31 + time;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(23);
+        append(sb, getYear(), 4).append('-');
+        append(sb, getMonth(), 2).append('-');
+        append(sb, getDay(), 2).append(' ');
+        append(sb, getHour(), 2).append(':');
+        append(sb, getMinute(), 2).append(':');
+        append(sb, getSecond(), 2);
+        return sb.toString();
+    }
+
+    /**
+     * Append zero padded number.
+     * 
+     * @param sb
+     *            String builder.
+     * @param value
+     *            Value.
+     * @param digits
+     *            Minimum amount of digits.
+     * @return String builder.
+     */
+    private static StringBuilder append(final StringBuilder sb,
+            final int value, final int digits) {
+        String str = String.valueOf(value);
+        for (int pos = str.length(); pos < digits; ++pos) {
+            sb.append('0');
+        }
+        return sb.append(str);
+    }
+}
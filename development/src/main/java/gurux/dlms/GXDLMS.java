@@ -394,8 +394,26 @@ abstract class GXDLMS {
 
     static void appendData(final GXDLMSObject obj, final int index,
             final GXByteBuffer bb, final Object value) {
+        appendData(obj, index, obj.getDataType(index), bb, value);
+    }
 
-        DataType tp = obj.getDataType(index);
+    /**
+     * Append attribute value using already resolved data type.
+     * 
+     * @param obj
+     *            COSEM object.
+     * @param index
+     *            Attribute index.
+     * @param type
+     *            Data type of the attribute.
+     * @param bb
+     *            Byte buffer where value is added.
+     * @param value
+     *            Attribute value.
+     */
+    static void appendData(final GXDLMSObject obj, final int index,
+            final DataType type, final GXByteBuffer bb, final Object value) {
+        DataType tp = type;
         if (tp == DataType.ARRAY) {
             if (value instanceof byte[]) {
                 if (tp != DataType.OCTET_STRING) {
@@ -710,7 +728,8 @@ abstract class GXDLMS {
                 || (p.isMultipleBlocks()
                         && p.getSettings().getNegotiatedConformance().contains(
                                 Conformance.GENERAL_BLOCK_TRANSFER))) {
-            GXByteBuffer bb = new GXByteBuffer();
+            GXByteBuffer bb =
+                    p.getSettings().getBufferPool().acquire(reply.size());
             bb.set(reply);
             reply.clear();
             reply.setUInt8(Command.GENERAL_BLOCK_TRANSFER);
@@ -738,6 +757,7 @@ abstract class GXDLMS {
             // Add data length.
             GXCommon.setObjectCount(bb.size(), reply);
             reply.set(bb);
+            p.getSettings().getBufferPool().release(bb);
             if (p.getCommand() != Command.GENERAL_BLOCK_TRANSFER) {
                 p.command = Command.GENERAL_BLOCK_TRANSFER;
                 ++p.blockNumberAck;
@@ -942,7 +962,8 @@ abstract class GXDLMS {
      * @return Generated messages.
      */
     public static List<byte[]> getLnMessages(final GXDLMSLNParameters p) {
-        GXByteBuffer reply = new GXByteBuffer();
+        GXByteBuffer reply = p.getSettings().getBufferPool()
+                .acquire(p.getSettings().getMaxPduSize());
         java.util.ArrayList<byte[]> messages = new ArrayList<byte[]>();
         byte frame = 0;
         if (p.getCommand() == Command.AARQ) {
@@ -990,6 +1011,7 @@ abstract class GXDLMS {
             reply.clear();
         } while (p.getData() != null
                 && p.getData().position() != p.getData().size());
+        p.getSettings().getBufferPool().release(reply);
         return messages;
     }
 
@@ -1001,7 +1023,8 @@ abstract class GXDLMS {
      * @return Generated SN messages.
      */
     public static List<byte[]> getSnMessages(final GXDLMSSNParameters p) {
-        GXByteBuffer reply = new GXByteBuffer();
+        GXByteBuffer reply = p.getSettings().getBufferPool()
+                .acquire(p.getSettings().getMaxPduSize());
         java.util.ArrayList<byte[]> messages =
                 new java.util.ArrayList<byte[]>();
         byte frame = 0x0;
@@ -1044,6 +1067,7 @@ abstract class GXDLMS {
             reply.clear();
         } while (p.getData() != null
                 && p.getData().position() != p.getData().size());
+        p.getSettings().getBufferPool().release(reply);
         return messages;
 
     }
@@ -1251,7 +1275,29 @@ abstract class GXDLMS {
      */
     static byte[] getWrapperFrame(final GXDLMSSettings settings,
             final GXByteBuffer data) {
-        GXByteBuffer bb = new GXByteBuffer();
+        int len = 8;
+        if (data != null) {
+            len += data.size();
+        }
+        GXByteBuffer bb = settings.getBufferPool().acquire(len);
+        getWrapperFrame(settings, data, bb);
+        byte[] frame = bb.array();
+        settings.getBufferPool().release(bb);
+        return frame;
+    }
+
+    /**
+     * Split DLMS PDU to wrapper frames.
+     * 
+     * @param settings
+     *            DLMS settings.
+     * @param data
+     *            Wrapped data.
+     * @param bb
+     *            Buffer where wrapper frame is appended.
+     */
+    static void getWrapperFrame(final GXDLMSSettings settings,
+            final GXByteBuffer data, final GXByteBuffer bb) {
         // Add version.
         bb.setUInt16(1);
         if (settings.isServer()) {
@@ -1279,7 +1325,6 @@ abstract class GXDLMS {
                 data.position(0);
             }
         }
-        return bb.array();
     }
 
     /**
@@ -1295,7 +1340,30 @@ abstract class GXDLMS {
      */
     static byte[] getHdlcFrame(final GXDLMSSettings settings, final int frame,
             final GXByteBuffer data) {
-        GXByteBuffer bb = new GXByteBuffer();
+        GXByteBuffer bb = settings.getBufferPool()
+                .acquire(settings.getLimits().getMaxInfoTX() + 20);
+        getHdlcFrame(settings, frame, data, bb);
+        byte[] tmp = bb.array();
+        settings.getBufferPool().release(bb);
+        return tmp;
+    }
+
+    /**
+     * Get HDLC frame for data.
+     * 
+     * @param settings
+     *            DLMS settings.
+     * @param frame
+     *            Frame ID. If zero new is generated.
+     * @param data
+     *            Data to add.
+     * @param bb
+     *            Buffer where HDLC frame is appended.
+     */
+    static void getHdlcFrame(final GXDLMSSettings settings, final int frame,
+            final GXByteBuffer data, final GXByteBuffer bb) {
+        // Frame is appended after existing content.
+        int start = bb.size();
         int frameSize, len = 0;
         byte[] primaryAddress, secondaryAddress;
         if (settings.isServer()) {
@@ -1344,13 +1412,15 @@ abstract class GXDLMS {
             bb.setUInt8(frame);
         }
         // Add header CRC.
-        int crc = GXFCS16.countFCS16(bb.getData(), 1, bb.size() - 1);
+        int crc = GXFCS16.countFCS16(bb.getData(), start + 1,
+                bb.size() - start - 1);
         bb.setUInt16(crc);
         if (len != 0) {
             // Add data.
             bb.set(data, len);
             // Add data CRC.
-            crc = GXFCS16.countFCS16(bb.getData(), 1, bb.size() - 1);
+            crc = GXFCS16.countFCS16(bb.getData(), start + 1,
+                    bb.size() - start - 1);
             bb.setUInt16(crc);
         }
         // Add EOP
@@ -1367,7 +1437,6 @@ abstract class GXDLMS {
                 }
             }
         }
-        return bb.array();
     }
 
     /**
@@ -0,0 +1,464 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import gurux.dlms.enums.DataType;
+import gurux.dlms.enums.ObjectType;
+import gurux.dlms.internal.GXCommon;
+import gurux.dlms.internal.GXDataInfo;
+import gurux.dlms.manufacturersettings.GXDLMSAttributeSettings;
+import gurux.dlms.objects.GXDLMSCaptureObject;
+import gurux.dlms.objects.GXDLMSData;
+import gurux.dlms.objects.GXDLMSDemandRegister;
+import gurux.dlms.objects.GXDLMSObject;
+import gurux.dlms.objects.GXDLMSObjectCollection;
+import gurux.dlms.objects.GXDLMSProfileGeneric;
+import gurux.dlms.objects.GXDLMSRegister;
+
+/**
+ * Binary snapshot of the COSEM objects. Attribute values are saved in the same
+ * A-XDR format that server uses when attribute is read and they are set back
+ * with server settings, so loaded objects have the values that server had.
+ * Snapshot is much faster to save and load than XML, but it's not meant to be
+ * edited by hand. Use XML for the device templates.
+ */
+public final class GXDLMSBinarySerializer {
+    private static final Logger LOGGER =
+            Logger.getLogger(GXDLMSBinarySerializer.class.getName());
+
+    /**
+     * Snapshot identifier. "GXOS"
+     */
+    private static final int MAGIC = 0x47584F53;
+
+    /**
+     * Snapshot format version.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Descriptions are saved as UTF-8.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Constructor.
+     */
+    private GXDLMSBinarySerializer() {
+
+    }
+
+    /**
+     * Save COSEM objects to the stream.
+     * <p>
+     * Object type, version, short name, logical name and description of all
+     * objects are saved first and attribute values after them, so all objects
+     * exist before values that refer to other objects are loaded. Attribute
+     * values are saved from the last attribute to the first, so attributes
+     * like scaler or capture objects are set before the values that depend on
+     * them when snapshot is loaded. Null values are not saved. Values that
+     * can't be read are not saved and they are logged as warnings.
+     * </p>
+     * 
+     * @param objects
+     *            Saved objects.
+     * @param stream
+     *            Stream where objects are saved.
+     * @throws IOException
+     *             Write failed.
+     */
+    public static void save(final GXDLMSObjectCollection objects,
+            final OutputStream stream) throws IOException {
+        if (objects == null) {
+            throw new IllegalArgumentException("objects");
+        }
+        GXDLMSSettings settings = new GXDLMSSettings(true);
+        GXByteBuffer bb = new GXByteBuffer();
+        GXByteBuffer value = new GXByteBuffer();
+        bb.setUInt32(MAGIC);
+        bb.setUInt8(VERSION);
+        bb.setUInt32(objects.size());
+        stream.write(bb.getData(), 0, bb.size());
+        for (GXDLMSObject it : objects) {
+            bb.clear();
+            bb.setUInt32(0);
+            saveHeader(it, bb);
+            writeRecord(bb, stream);
+        }
+        for (GXDLMSObject it : objects) {
+            bb.clear();
+            bb.setUInt32(0);
+            saveValues(settings, it, bb, value);
+            // Objects are written one by one so the whole snapshot is not kept
+            // in memory.
+            writeRecord(bb, stream);
+        }
+    }
+
+    /**
+     * Write record to the stream. Record starts with the reserved four bytes
+     * where the length of the record is updated.
+     * 
+     * @param bb
+     *            Record to write.
+     * @param stream
+     *            Stream where record is written.
+     * @throws IOException
+     *             Write failed.
+     */
+    private static void writeRecord(final GXByteBuffer bb,
+            final OutputStream stream) throws IOException {
+        bb.setUInt32(0, bb.size() - 4);
+        stream.write(bb.getData(), 0, bb.size());
+    }
+
+    /**
+     * Save object type, version, short name, logical name and description.
+     * 
+     * @param target
+     *            Saved object.
+     * @param bb
+     *            Byte buffer where object is saved.
+     */
+    private static void saveHeader(final GXDLMSObject target,
+            final GXByteBuffer bb) {
+        ObjectType type = target.getObjectType();
+        if (type == null) {
+            type = ObjectType.NONE;
+        }
+        bb.setUInt16(type.getValue());
+        bb.setUInt8(target.getVersion());
+        bb.setUInt16(target.getShortName());
+        bb.set(GXCommon.logicalNameToBytes(target.getLN()));
+        String d = target.getDescription();
+        if (d == null) {
+            GXCommon.setObjectCount(0, bb);
+        } else {
+            byte[] tmp = d.getBytes(UTF8);
+            GXCommon.setObjectCount(tmp.length, bb);
+            bb.set(tmp);
+        }
+    }
+
+    /**
+     * Save attribute values of one COSEM object.
+     * 
+     * @param settings
+     *            DLMS settings.
+     * @param target
+     *            Saved object.
+     * @param bb
+     *            Byte buffer where values are saved.
+     * @param value
+     *            Buffer for attribute value.
+     */
+    private static void saveValues(final GXDLMSSettings settings,
+            final GXDLMSObject target, final GXByteBuffer bb,
+            final GXByteBuffer value) {
+        int count;
+        try {
+            count = target.getAttributeCount();
+        } catch (UnsupportedOperationException e) {
+            // Manufacturer specific or unknown object.
+            count = 1;
+        }
+        // Attribute count is updated when values are saved.
+        int countPos = bb.size();
+        bb.setUInt8(0);
+        int saved = 0;
+        for (int index = count; index > 1; --index) {
+            value.clear();
+            if (!getValue(settings, target, index, value)) {
+                continue;
+            }
+            bb.setUInt8(index);
+            GXDLMSAttributeSettings att = target.getAttributes().find(index);
+            if (att == null) {
+                bb.setUInt8(DataType.NONE.getValue());
+                bb.setUInt8(DataType.NONE.getValue());
+            } else {
+                bb.setUInt8(att.getType().getValue());
+                bb.setUInt8(att.getUIType().getValue());
+            }
+            GXCommon.setObjectCount(value.size(), bb);
+            bb.set(value);
+            ++saved;
+        }
+        bb.setUInt8(countPos, saved);
+    }
+
+    /**
+     * Get attribute value as A-XDR.
+     * 
+     * @param settings
+     *            DLMS settings.
+     * @param target
+     *            COSEM object.
+     * @param index
+     *            Attribute index.
+     * @param bb
+     *            Byte buffer where value is added.
+     * @return Is value added.
+     */
+    static boolean getValue(final GXDLMSSettings settings,
+            final GXDLMSObject target, final int index,
+            final GXByteBuffer bb) {
+        settings.setIndex(0);
+        settings.setCount(0);
+        ValueEventArgs e = new ValueEventArgs(settings, target, index, 0, null);
+        // Association view is saved as a whole.
+        e.setSkipMaxPduSize(true);
+        try {
+            Object value = target.getValue(settings, e);
+            if (value == null) {
+                return false;
+            }
+            if (e.isByteArray()) {
+                bb.set((byte[]) value);
+            } else {
+                GXDLMS.appendData(target, index, bb, value);
+            }
+        } catch (RuntimeException ex) {
+            // Attribute is not implemented or value is invalid.
+            LOGGER.log(Level.WARNING, "Attribute " + index + " of "
+                    + target.getObjectType() + " " + target.getLogicalName()
+                    + " skipped. Get value failed: " + ex);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Load COSEM objects from the stream. Snapshot is read object by object,
+     * so it's not copied to memory as a whole. Attribute values that can't be
+     * set are skipped and they are logged as warnings.
+     * 
+     * @param stream
+     *            Stream where objects are read.
+     * @return Loaded objects.
+     * @throws IOException
+     *             Read failed or snapshot ended unexpectedly.
+     */
+    public static GXDLMSObjectCollection load(final InputStream stream)
+            throws IOException {
+        GXByteBuffer bb = new GXByteBuffer();
+        read(stream, bb, 9);
+        if (bb.getUInt32() != MAGIC) {
+            throw new IllegalArgumentException("Invalid snapshot.");
+        }
+        int version = bb.getUInt8();
+        if (version != VERSION) {
+            throw new IllegalArgumentException(
+                    "Unsupported snapshot version: " + version);
+        }
+        long count = bb.getUInt32();
+        GXDLMSObjectCollection objects = new GXDLMSObjectCollection();
+        for (long pos = 0; pos != count; ++pos) {
+            read(stream, bb, 4);
+            read(stream, bb, (int) bb.getUInt32());
+            objects.add(loadHeader(bb));
+        }
+        // Values are set like server sets them. Capture objects are searched
+        // from the settings.
+        GXDLMSSettings settings = new GXDLMSSettings(true);
+        settings.getObjects().addAll(objects);
+        for (GXDLMSObject it : objects) {
+            read(stream, bb, 4);
+            read(stream, bb, (int) bb.getUInt32());
+            loadValues(settings, it, bb);
+        }
+        return objects;
+    }
+
+    /**
+     * Load COSEM objects from the byte array. Attribute values that can't be
+     * set are skipped and they are logged as warnings.
+     * 
+     * @param data
+     *            Saved snapshot.
+     * @return Loaded objects.
+     */
+    public static GXDLMSObjectCollection load(final byte[] data) {
+        try {
+            return load(new ByteArrayInputStream(data));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid snapshot.");
+        }
+    }
+
+    /**
+     * Read given amount of bytes from the stream to the buffer. Old content of
+     * the buffer is cleared.
+     * 
+     * @param stream
+     *            Stream where bytes are read.
+     * @param bb
+     *            Buffer where bytes are read.
+     * @param count
+     *            Amount of bytes to read.
+     * @throws IOException
+     *             Read failed or stream ended before all bytes are read.
+     */
+    private static void read(final InputStream stream, final GXByteBuffer bb,
+            final int count) throws IOException {
+        bb.clear();
+        if (bb.capacity() < count) {
+            bb.capacity(count);
+        }
+        int pos = 0;
+        while (pos != count) {
+            int cnt = stream.read(bb.getData(), pos, count - pos);
+            if (cnt == -1) {
+                throw new EOFException("Invalid snapshot.");
+            }
+            pos += cnt;
+        }
+        bb.size(count);
+    }
+
+    /**
+     * Create COSEM object from the saved header.
+     * 
+     * @param bb
+     *            Saved object header.
+     * @return Created object.
+     */
+    private static GXDLMSObject loadHeader(final GXByteBuffer bb) {
+        ObjectType type = ObjectType.forValue(bb.getUInt16());
+        GXDLMSObject obj = GXDLMSClient.createObject(type);
+        obj.setVersion(bb.getUInt8());
+        obj.setShortName(bb.getUInt16());
+        obj.setLN(GXLogicalName.valueOf(bb));
+        int len = GXCommon.getObjectCount(bb);
+        if (len != 0) {
+            byte[] tmp = new byte[len];
+            bb.get(tmp);
+            obj.setDescription(new String(tmp, UTF8));
+        }
+        return obj;
+    }
+
+    /**
+     * Load attribute values of the object.
+     * 
+     * @param settings
+     *            DLMS settings.
+     * @param target
+     *            COSEM object.
+     * @param bb
+     *            Saved attribute values.
+     */
+    private static void loadValues(final GXDLMSSettings settings,
+            final GXDLMSObject target, final GXByteBuffer bb) {
+        int attributes = bb.getUInt8();
+        for (int pos = 0; pos != attributes; ++pos) {
+            int index = bb.getUInt8();
+            DataType type = DataType.forValue(bb.getUInt8());
+            DataType uiType = DataType.forValue(bb.getUInt8());
+            if (type != DataType.NONE) {
+                target.setDataType(index, type);
+            }
+            if (uiType != DataType.NONE) {
+                target.setUIDataType(index, uiType);
+            }
+            int len = GXCommon.getObjectCount(bb);
+            int end = bb.position() + len;
+            Object value = GXCommon.getData(bb, new GXDataInfo());
+            bb.position(end);
+            if (value instanceof byte[] && uiType != DataType.NONE) {
+                value = GXDLMSClient.changeType((byte[]) value, uiType);
+            }
+            ValueEventArgs e =
+                    new ValueEventArgs(settings, target, index, 0, null);
+            if (index == 2 && target instanceof GXDLMSProfileGeneric) {
+                e.setParameters(getColumns((GXDLMSProfileGeneric) target));
+            }
+            e.setValue(value);
+            try {
+                target.setValue(settings, e);
+            } catch (RuntimeException ex) {
+                // Value is ignored like the values that can't be read are
+                // ignored when snapshot is saved. E.g. empty profile generic
+                // buffer can't be set without capture objects.
+                LOGGER.log(Level.WARNING, "Attribute " + index + " of "
+                        + target.getObjectType() + " "
+                        + target.getLogicalName()
+                        + " skipped. Set value failed: " + ex);
+            }
+        }
+    }
+
+    /**
+     * Get columns that are used when profile generic buffer is loaded. Buffer
+     * is saved without scalers and profile generic would scale register values
+     * again when buffer is set. For this reason registers are replaced with
+     * data objects that have the same UI data type.
+     * 
+     * @param target
+     *            Profile generic.
+     * @return Capture columns.
+     */
+    private static List<Entry<GXDLMSObject, GXDLMSCaptureObject>>
+            getColumns(final GXDLMSProfileGeneric target) {
+        List<Entry<GXDLMSObject, GXDLMSCaptureObject>> columns =
+                new ArrayList<Entry<GXDLMSObject, GXDLMSCaptureObject>>();
+        for (Entry<GXDLMSObject, GXDLMSCaptureObject> it : target
+                .getCaptureObjects()) {
+            GXDLMSObject obj = it.getKey();
+            if (obj instanceof GXDLMSRegister
+                    || obj instanceof GXDLMSDemandRegister) {
+                int index = it.getValue().getAttributeIndex();
+                GXDLMSData tmp = new GXDLMSData(obj.getLogicalName());
+                tmp.setUIDataType(index, obj.getUIDataType(index));
+                obj = tmp;
+            }
+            columns.add(new GXSimpleEntry<GXDLMSObject, GXDLMSCaptureObject>(
+                    obj, it.getValue()));
+        }
+        return columns;
+    }
+}
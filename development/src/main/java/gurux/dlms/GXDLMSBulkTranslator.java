@@ -0,0 +1,353 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Bulk translator converts large amount of DLMS messages or PDUs to XML using
+ * multiple threads. Each worker thread uses own copy of the translator
+ * settings and tag tables are shared. Results are returned in input order.
+ * Each message must be complete. Messages that are received on parts are not
+ * combined between the messages.
+ */
+public class GXDLMSBulkTranslator implements AutoCloseable {
+    /**
+     * How many translations are queued for each thread.
+     */
+    private static final int QUEUE_SIZE = 8;
+
+    /**
+     * Translator where worker settings are copied.
+     */
+    private final GXDLMSTranslator template;
+
+    /**
+     * Used thread pool.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Is thread pool closed when translator is closed.
+     */
+    private final boolean closePool;
+
+    /**
+     * Translator of each worker thread.
+     */
+    private final ThreadLocal<GXDLMSTranslator> translators =
+            new ThreadLocal<GXDLMSTranslator>() {
+                @Override
+                protected GXDLMSTranslator initialValue() {
+                    return template.copy();
+                }
+            };
+
+    /**
+     * Constructor. Thread count is the number of available processors.
+     * 
+     * @param forTemplate
+     *            Translator where settings are copied.
+     */
+    public GXDLMSBulkTranslator(final GXDLMSTranslator forTemplate) {
+        this(forTemplate, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param forTemplate
+     *            Translator where settings are copied.
+     * @param threads
+     *            Amount of worker threads.
+     */
+    public GXDLMSBulkTranslator(final GXDLMSTranslator forTemplate,
+            final int threads) {
+        this(forTemplate, new ForkJoinPool(threads), true);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param forTemplate
+     *            Translator where settings are copied.
+     * @param forPool
+     *            Thread pool where translations are made. Pool is not closed
+     *            when translator is closed.
+     */
+    public GXDLMSBulkTranslator(final GXDLMSTranslator forTemplate,
+            final ForkJoinPool forPool) {
+        this(forTemplate, forPool, false);
+    }
+
+    private GXDLMSBulkTranslator(final GXDLMSTranslator forTemplate,
+            final ForkJoinPool forPool, final boolean forClosePool) {
+        if (forTemplate == null) {
+            throw new IllegalArgumentException("forTemplate");
+        }
+        if (forPool == null) {
+            throw new IllegalArgumentException("forPool");
+        }
+        // Settings are copied so changes made to the template after this are
+        // not seen by the worker threads.
+        template = forTemplate.copy();
+        pool = forPool;
+        closePool = forClosePool;
+    }
+
+    /**
+     * Convert messages to XML.
+     * 
+     * @param messages
+     *            Messages to convert.
+     * @param listener
+     *            Listener where translated messages are returned in input
+     *            order.
+     * @return Amount of handled messages.
+     * @throws InterruptedException
+     *             Translation is interrupted.
+     */
+    public final long messagesToXml(final Iterator<byte[]> messages,
+            final IGXTranslatorListener listener)
+            throws InterruptedException {
+        try {
+            return translate(messages, false, listener, null);
+        } catch (IOException e) {
+            // Only writer throws IO exceptions.
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Convert messages to XML. Translation is stopped if message can't be
+     * translated.
+     * 
+     * @param messages
+     *            Messages to convert.
+     * @param writer
+     *            Writer where translated messages are written in input order.
+     * @return Amount of handled messages.
+     * @throws IOException
+     *             Write failed.
+     * @throws InterruptedException
+     *             Translation is interrupted.
+     */
+    public final long messagesToXml(final Iterator<byte[]> messages,
+            final Writer writer) throws IOException, InterruptedException {
+        return translate(messages, false, null, writer);
+    }
+
+    /**
+     * Convert PDUs to XML.
+     * 
+     * @param pdus
+     *            PDUs to convert.
+     * @param listener
+     *            Listener where translated PDUs are returned in input order.
+     * @return Amount of handled PDUs.
+     * @throws InterruptedException
+     *             Translation is interrupted.
+     */
+    public final long pdusToXml(final Iterator<byte[]> pdus,
+            final IGXTranslatorListener listener)
+            throws InterruptedException {
+        try {
+            return translate(pdus, true, listener, null);
+        } catch (IOException e) {
+            // Only writer throws IO exceptions.
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Convert PDUs to XML. Translation is stopped if PDU can't be translated.
+     * 
+     * @param pdus
+     *            PDUs to convert.
+     * @param writer
+     *            Writer where translated PDUs are written in input order.
+     * @return Amount of handled PDUs.
+     * @throws IOException
+     *             Write failed.
+     * @throws InterruptedException
+     *             Translation is interrupted.
+     */
+    public final long pdusToXml(final Iterator<byte[]> pdus,
+            final Writer writer) throws IOException, InterruptedException {
+        return translate(pdus, true, null, writer);
+    }
+
+    /**
+     * Translate values using worker threads. Only a limited amount of values
+     * are read ahead so memory usage stays constant.
+     * 
+     * @param values
+     *            Values to translate.
+     * @param pdu
+     *            Are values PDUs or messages.
+     * @param listener
+     *            Listener where results are returned. Null if writer is used.
+     * @param writer
+     *            Writer where results are written. Null if listener is used.
+     * @return Amount of handled values.
+     */
+    private long translate(final Iterator<byte[]> values, final boolean pdu,
+            final IGXTranslatorListener listener, final Writer writer)
+            throws IOException, InterruptedException {
+        if (values == null) {
+            throw new IllegalArgumentException("values");
+        }
+        if (listener == null && writer == null) {
+            throw new IllegalArgumentException("listener");
+        }
+        int max = QUEUE_SIZE * pool.getParallelism();
+        ArrayDeque<Future<String>> pending = new ArrayDeque<Future<String>>();
+        long index = 0;
+        try {
+            while (values.hasNext()) {
+                if (pending.size() == max) {
+                    complete(pending.poll(), index, listener, writer);
+                    ++index;
+                }
+                pending.add(pool.submit(new Translation(values.next(), pdu)));
+            }
+            while (!pending.isEmpty()) {
+                complete(pending.poll(), index, listener, writer);
+                ++index;
+            }
+        } finally {
+            for (Future<String> it : pending) {
+                it.cancel(false);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Wait until translation is ready and return the result.
+     * 
+     * @param task
+     *            Translation task.
+     * @param index
+     *            Index of the value.
+     * @param listener
+     *            Listener where results are returned.
+     * @param writer
+     *            Writer where results are written.
+     */
+    private static void complete(final Future<String> task, final long index,
+            final IGXTranslatorListener listener, final Writer writer)
+            throws IOException, InterruptedException {
+        String xml;
+        try {
+            xml = task.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            if (listener != null) {
+                listener.onError(index, (Exception) cause);
+                return;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+        if (listener != null) {
+            listener.onTranslated(index, xml);
+        } else {
+            writer.write(xml);
+        }
+    }
+
+    /**
+     * Close translator. Thread pool is closed if it was created by the
+     * translator.
+     */
+    @Override
+    public final void close() {
+        if (closePool) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Translation made in worker thread.
+     */
+    private final class Translation implements Callable<String> {
+        /**
+         * Value to translate.
+         */
+        private final byte[] value;
+
+        /**
+         * Is value PDU or message.
+         */
+        private final boolean pdu;
+
+        /**
+         * Constructor.
+         * 
+         * @param forValue
+         *            Value to translate.
+         * @param forPdu
+         *            Is value PDU or message.
+         */
+        Translation(final byte[] forValue, final boolean forPdu) {
+            value = forValue;
+            pdu = forPdu;
+        }
+
+        @Override
+        public String call() {
+            GXDLMSTranslator t = translators.get();
+            if (pdu) {
+                return t.pduToXml(value);
+            }
+            // Messages are independent from each other.
+            t.clear();
+            return t.messageToXml(value);
+        }
+    }
+}
@@ -34,6 +34,7 @@
 
 package gurux.dlms;
 
+import java.nio.ByteBuffer;
 import java.security.Signature;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -804,57 +805,6 @@ public class GXDLMSClient {
         return obj;
     }
 
-    /**
-     * Parse SN objects.
-     * 
-     * @param buff
-     *            Byte stream where objects are parsed.
-     * @param onlyKnownObjects
-     *            Only known objects are parsed.
-     * @return Collection of COSEM objects.
-     */
-    private GXDLMSObjectCollection parseSNObjects(final GXByteBuffer buff,
-            final boolean onlyKnownObjects) {
-        // Get array tag.
-        buff.position(0);
-        short size = buff.getUInt8();
-        // Check that data is in the array
-        if (size != 0x01) {
-            throw new GXDLMSException("Invalid response.");
-        }
-        GXDLMSObjectCollection items = new GXDLMSObjectCollection(this);
-        long cnt = GXCommon.getObjectCount(buff);
-        GXDataInfo info = new GXDataInfo();
-        for (long objPos = 0; objPos != cnt; ++objPos) {
-            // Some meters give wrong item count.
-            if (buff.position() == buff.size()) {
-                break;
-            }
-            info.setCount(0);
-            info.setIndex(0);
-            info.setType(DataType.NONE);
-            Object[] objects = (Object[]) GXCommon.getData(buff, info);
-            if (objects.length != 4) {
-                throw new GXDLMSException("Invalid structure format.");
-            }
-            int classID = ((Number) (objects[1])).intValue() & 0xFFFF;
-            int baseName = ((Number) (objects[0])).intValue() & 0xFFFF;
-            if (baseName > 0) {
-                GXDLMSObject comp = createDLMSObject(classID, objects[2],
-                        baseName, objects[3], null);
-                if (!onlyKnownObjects
-                        || comp.getClass() != GXDLMSObject.class) {
-                    items.add(comp);
-                } else {
-                    System.out.println(
-                            "Unknown object : " + String.valueOf(classID) + " "
-                                    + String.valueOf(baseName));
-                }
-            }
-        }
-        return items;
-    }
-
     /**
      * Reserved for internal use.
      * 
@@ -922,67 +872,36 @@ public class GXDLMSClient {
      */
     public final GXDLMSObjectCollection parseObjects(final GXByteBuffer data,
             final boolean onlyKnownObjects) {
-        if (data == null) {
-            throw new GXDLMSException("Invalid parameter.");
-        }
-        GXDLMSObjectCollection objects;
-        if (getUseLogicalNameReferencing()) {
-            objects = parseLNObjects(data, onlyKnownObjects);
-        } else {
-            objects = parseSNObjects(data, onlyKnownObjects);
-        }
-        settings.getObjects().addAll(objects);
-        return objects;
+        return parseObjects(data, onlyKnownObjects, null);
     }
 
     /**
-     * Parse LN objects.
+     * Parses the COSEM objects of the received data.
      * 
-     * @param buff
-     *            Byte stream where objects are parsed.
+     * @param data
+     *            Received data, from the device, as byte array.
      * @param onlyKnownObjects
      *            Only known objects are parsed.
+     * @param filter
+     *            Object filter. Objects that filter rejects are not created.
+     *            Null if all objects are parsed.
      * @return Collection of COSEM objects.
      */
-    private GXDLMSObjectCollection parseLNObjects(final GXByteBuffer buff,
-            final boolean onlyKnownObjects) {
-        // Get array tag.
-        byte size = buff.getInt8();
-        // Check that data is in the array
-        if (size != 0x01) {
-            throw new GXDLMSException("Invalid response.");
+    public final GXDLMSObjectCollection parseObjects(final GXByteBuffer data,
+            final boolean onlyKnownObjects, final IGXObjectFilter filter) {
+        if (data == null) {
+            throw new GXDLMSException("Invalid parameter.");
         }
-        GXDLMSObjectCollection items = new GXDLMSObjectCollection(this);
-        GXDataInfo info = new GXDataInfo();
-        long cnt = GXCommon.getObjectCount(buff);
-        for (long objPos = 0; objPos != cnt; ++objPos) {
-            // Some meters give wrong item count.
-            // This fix Iskraemeco (MT-880) bug.
-            if (buff.position() == buff.size()) {
-                break;
-            }
-            info.setType(DataType.NONE);
-            info.setIndex(0);
-            info.setCount(0);
-            Object[] objects = (Object[]) GXCommon.getData(buff, info);
-            if (objects.length != 4) {
-                throw new GXDLMSException("Invalid structure format.");
-            }
-            int classID = ((Number) (objects[0])).intValue() & 0xFFFF;
-            if (classID > 0) {
-                GXDLMSObject comp = createDLMSObject(classID, objects[1], 0,
-                        objects[2], objects[3]);
-                if (!onlyKnownObjects
-                        || comp.getClass() != GXDLMSObject.class) {
-                    items.add(comp);
-                } else {
-                    System.out.println("Unknown object : "
-                            + String.valueOf(classID) + " "
-                            + GXCommon.toLogicalName((byte[]) objects[2]));
-                }
-            }
+        GXDLMSObjectCollection objects = new GXDLMSObjectCollection(this);
+        if (getUseLogicalNameReferencing()) {
+            GXObjectListParser.parseLNObjects(data, objects, onlyKnownObjects,
+                    filter);
+        } else {
+            GXObjectListParser.parseSNObjects(data, objects, onlyKnownObjects,
+                    filter);
         }
-        return items;
+        settings.getObjects().addAll(objects);
+        return objects;
     }
 
     /**
@@ -1099,6 +1018,23 @@ public class GXDLMSClient {
      * @return Value changed by type.
      */
     public static Object changeType(final byte[] value, final DataType type) {
+        return changeType(value, type, false);
+    }
+
+    /**
+     * Changes byte array received from the meter to given type.
+     * 
+     * @param value
+     *            Byte array received from the meter.
+     * @param type
+     *            Wanted type.
+     * @param useCompactDateTime
+     *            Is date-time returned as GXCompactDateTime instead of
+     *            GXDateTime. Compact date-time is decoded without Calendar.
+     * @return Value changed by type.
+     */
+    public static Object changeType(final byte[] value, final DataType type,
+            final boolean useCompactDateTime) {
         if (value == null) {
             return null;
         }
@@ -1110,6 +1046,9 @@ public class GXDLMSClient {
             return "";
         }
         if (value.length == 0 && type == DataType.DATETIME) {
+            if (useCompactDateTime) {
+                return GXCompactDateTime.valueOf(0L);
+            }
             return new GXDateTime(new Date(0));
         }
         if (value.length == 0 && type == DataType.DATE) {
@@ -1121,6 +1060,7 @@ public class GXDLMSClient {
 
         GXDataInfo info = new GXDataInfo();
         info.setType(type);
+        info.setCompactDateTime(useCompactDateTime);
         Object ret = GXCommon.getData(new GXByteBuffer(value), info);
         if (!info.isComplete()) {
             throw new IllegalArgumentException(
@@ -1164,7 +1104,7 @@ public class GXDLMSClient {
      */
     public final byte[][] method(final GXDLMSObject item, final int index,
             final Object data, final DataType type) {
-        return method(item.getName(), item.getObjectType(), index, data, type);
+        return method(getName(item), item.getObjectType(), index, data, type);
     }
 
     /**
@@ -1207,7 +1147,7 @@ public class GXDLMSClient {
             // CI
             attributeDescriptor.setUInt16(objectType.getValue());
             // Add LN
-            attributeDescriptor.set(GXCommon.logicalNameToBytes((String) name));
+            addLogicalName(attributeDescriptor, name);
             // Attribute ID.
             attributeDescriptor.setUInt8((byte) methodIndex);
             // Method Invocation Parameters is not used.
@@ -1268,11 +1208,11 @@ public class GXDLMSClient {
         if (type == DataType.OCTET_STRING && value instanceof String) {
             DataType ui = item.getUIDataType(index);
             if (ui == DataType.STRING) {
-                return write(item.getName(), ((String) value).getBytes(), type,
+                return write(getName(item), ((String) value).getBytes(), type,
                         item.getObjectType(), index);
             }
         }
-        return write(item.getName(), value, type, item.getObjectType(), index);
+        return write(getName(item), value, type, item.getObjectType(), index);
     }
 
     /**
@@ -1313,7 +1253,7 @@ public class GXDLMSClient {
             // Add CI.
             attributeDescriptor.setUInt16(objectType.getValue());
             // Add LN.
-            attributeDescriptor.set(GXCommon.logicalNameToBytes((String) name));
+            addLogicalName(attributeDescriptor, name);
             // Attribute ID.
             attributeDescriptor.setUInt8(index);
             // Access selection is not used.
@@ -1364,7 +1304,7 @@ public class GXDLMSClient {
                 // CI.
                 bb.setUInt16(it.getTarget().getObjectType().getValue());
                 bb.set(GXCommon
-                        .logicalNameToBytes(it.getTarget().getLogicalName()));
+                        .logicalNameToBytes(it.getTarget().getLN()));
                 // Attribute ID.
                 bb.setUInt8(it.getIndex());
                 // Attribute selector is not used.
@@ -1411,6 +1351,37 @@ public class GXDLMSClient {
         return reply.toArray(new byte[0][0]);
     }
 
+    /**
+     * Get name that is used to access the object.
+     * 
+     * @param item
+     *            COSEM object.
+     * @return Short name or logical name as OBIS code.
+     */
+    private static Object getName(final GXDLMSObject item) {
+        if (item.getShortName() != 0) {
+            return item.getShortName();
+        }
+        return item.getLN();
+    }
+
+    /**
+     * Add logical name to the attribute descriptor.
+     * 
+     * @param bb
+     *            Attribute descriptor.
+     * @param name
+     *            Logical name as OBIS code or string.
+     */
+    private static void addLogicalName(final GXByteBuffer bb,
+            final Object name) {
+        if (name instanceof GXLogicalName) {
+            ((GXLogicalName) name).toBuffer(bb);
+        } else {
+            bb.set(GXCommon.logicalNameToBytes((String) name));
+        }
+    }
+
     /**
      * Generates a read message.
      * 
@@ -1452,7 +1423,7 @@ public class GXDLMSClient {
             // CI
             attributeDescriptor.setUInt16(objectType.getValue());
             // Add LN
-            attributeDescriptor.set(GXCommon.logicalNameToBytes((String) name));
+            addLogicalName(attributeDescriptor, name);
             // Attribute ID.
             attributeDescriptor.setUInt8(attributeOrdinal);
             if (data == null || data.size() == 0) {
@@ -1497,7 +1468,7 @@ public class GXDLMSClient {
      */
     public final byte[][] read(final GXDLMSObject item,
             final int attributeOrdinal) {
-        return read(item.getName(), item.getObjectType(), attributeOrdinal);
+        return read(getName(item), item.getObjectType(), attributeOrdinal);
     }
 
     /**
@@ -1533,14 +1504,10 @@ public class GXDLMSClient {
             for (Entry<GXDLMSObject, Integer> it : list) {
                 // CI.
                 data.setUInt16(it.getKey().getObjectType().getValue());
-                List<String> items =
-                        GXCommon.split(it.getKey().getLogicalName(), '.');
-                if (items.size() != 6) {
+                if (it.getKey().getLN() == null) {
                     throw new IllegalArgumentException("Invalid Logical Name.");
                 }
-                for (String it2 : items) {
-                    data.setUInt8(Integer.valueOf(it2).byteValue());
-                }
+                it.getKey().getLN().toBuffer(data);
                 // Attribute ID.
                 data.setUInt8(it.getValue());
                 // Attribute selector is not used.
@@ -1650,8 +1617,8 @@ public class GXDLMSClient {
                     ++pos;
                     if (it.getKey().getObjectType() == c.getKey()
                             .getObjectType()
-                            && it.getKey().getLogicalName()
-                                    .compareTo(c.getKey().getLogicalName()) == 0
+                            && it.getKey().getLN()
+                                    .equals(c.getKey().getLN())
                             && it.getValue().getAttributeIndex() == c.getValue()
                                     .getAttributeIndex()
                             && it.getValue().getDataIndex() == c.getValue()
@@ -1674,7 +1641,7 @@ public class GXDLMSClient {
         // Select columns to read.
         GXCommon.setData(buff, DataType.UINT16, columnIndex);
         GXCommon.setData(buff, DataType.UINT16, columnCount);
-        return read(pg.getName(), ObjectType.PROFILE_GENERIC, 2, buff);
+        return read(getName(pg), ObjectType.PROFILE_GENERIC, 2, buff);
     }
 
     /**
@@ -1812,7 +1779,7 @@ public class GXDLMSClient {
                 sort.getObjectType().getValue());
         // LN
         GXCommon.setData(buff, DataType.OCTET_STRING,
-                GXCommon.logicalNameToBytes(sort.getLogicalName()));
+                GXCommon.logicalNameToBytes(sort.getLN()));
         // Add attribute index.
         GXCommon.setData(buff, DataType.INT8, 2);
         // Add version
@@ -1837,7 +1804,7 @@ public class GXDLMSClient {
                         it.getKey().getObjectType().getValue());
                 // LN
                 GXCommon.setData(buff, DataType.OCTET_STRING, GXCommon
-                        .logicalNameToBytes(it.getKey().getLogicalName()));
+                        .logicalNameToBytes(it.getKey().getLN()));
                 // Add attribute index.
                 GXCommon.setData(buff, DataType.INT8,
                         it.getValue().getAttributeIndex());
@@ -1846,7 +1813,7 @@ public class GXDLMSClient {
                         it.getValue().getDataIndex());
             }
         }
-        return read(pg.getName(), ObjectType.PROFILE_GENERIC, 2, buff);
+        return read(getName(pg), ObjectType.PROFILE_GENERIC, 2, buff);
     }
 
     /**
@@ -1898,6 +1865,26 @@ public class GXDLMSClient {
         GXDLMS.getData(settings, reply, data);
     }
 
+    /**
+     * Removes the HDLC frame from the packet, and returns COSEM data only. Heap
+     * buffers are parsed without copying. Position of the reply is moved over
+     * the handled bytes.
+     * 
+     * @param reply
+     *            The received data from the device.
+     * @param data
+     *            Information from the received data.
+     * @return Is frame complete.
+     */
+    public final boolean getData(final ByteBuffer reply,
+            final GXReplyData data) {
+        GXByteBuffer bb = GXByteBuffer.wrap(reply);
+        int start = bb.position();
+        boolean ret = GXDLMS.getData(settings, bb, data);
+        reply.position(reply.position() + bb.position() - start);
+        return ret;
+    }
+
     /**
      * Converts meter serial number to server address. Default formula is used.
      * All meters do not use standard formula or support serial number
@@ -1989,13 +1976,10 @@ public class GXDLMSClient {
             bb.setUInt8(it.getCommand());
             bb.setUInt16(it.getTarget().getObjectType().getValue());
             // LN
-            String[] items = it.getTarget().getLogicalName().split("[.]");
-            if (items.length != 6) {
+            if (it.getTarget().getLN() == null) {
                 throw new IllegalArgumentException("Invalid Logical Name.");
             }
-            for (String it2 : items) {
-                bb.setUInt8(Integer.valueOf(it2).byteValue());
-            }
+            it.getTarget().getLN().toBuffer(bb);
             // Attribute ID.
             bb.setUInt8(it.getIndex());
         }
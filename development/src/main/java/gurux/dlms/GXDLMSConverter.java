@@ -1,8 +1,5 @@
 package gurux.dlms;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -14,10 +11,13 @@ import gurux.dlms.objects.GXDLMSObjectCollection;
 
 public class GXDLMSConverter {
     /**
-     * Collection of standard OBIS codes.
+     * Collection of standard OBIS codes. Codes are shared by all converters.
+     * 
+     * @return Standard OBIS codes.
      */
-    private GXStandardObisCodeCollection codes =
-            new GXStandardObisCodeCollection();
+    private static GXStandardObisCodeCollection getCodes() {
+        return GXStandardObisCodeDatabase.getCodes();
+    }
 
     /**
      * Get OBIS code description.
@@ -71,12 +71,10 @@ public class GXDLMSConverter {
      */
     public final String[] getDescription(final String logicalName,
             final ObjectType type, final String description) {
-        if (codes.size() == 0) {
-            readStandardObisInfo(codes);
-        }
         List<String> list = new ArrayList<String>();
         boolean all = logicalName == null || logicalName.isEmpty();
-        for (GXStandardObisCode it : codes.find(logicalName, type)) {
+        for (GXStandardObisCode it : getCodes().find(logicalName,
+                type)) {
             if (description != null && !description.isEmpty()
                     && !it.getDescription().toLowerCase()
                             .contains(description.toLowerCase())) {
@@ -203,12 +201,7 @@ public class GXDLMSConverter {
      *            COSEM object.
      */
     public final void updateOBISCodeInformation(final GXDLMSObject object) {
-        synchronized (codes) {
-            if (codes.size() == 0) {
-                readStandardObisInfo(codes);
-            }
-            updateOBISCodeInfo(codes, object);
-        }
+        updateOBISCodeInfo(getCodes(), object);
     }
 
     /**
@@ -219,54 +212,9 @@ public class GXDLMSConverter {
      */
     public final void
             updateOBISCodeInformation(final GXDLMSObjectCollection objects) {
-        synchronized (codes) {
-            if (codes.size() == 0) {
-                readStandardObisInfo(codes);
-            }
-            for (GXDLMSObject it : objects) {
-                updateOBISCodeInfo(codes, it);
-            }
-        }
-    }
-
-    /**
-     * Read standard OBIS code information from the file.
-     * 
-     * @param codes
-     *            Collection of standard OBIS codes.
-     */
-    private static void
-            readStandardObisInfo(final GXStandardObisCodeCollection codes) {
-        InputStream stream =
-                GXDLMSClient.class.getResourceAsStream("/OBISCodes.txt");
-        if (stream == null) {
-            return;
-        }
-
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        int nRead;
-        byte[] data = new byte[1000];
-        try {
-            while ((nRead = stream.read(data, 0, data.length)) != -1) {
-                buffer.write(data, 0, nRead);
-            }
-            buffer.flush();
-        } catch (IOException e) {
-            throw new RuntimeException(e.getMessage());
-        }
-        String str = buffer.toString();
-        List<String> rows = GXCommon.split(str, "\r\n");
-        for (String it : rows) {
-            if (!it.isEmpty()) {
-                List<String> items = GXCommon.split(it, ';');
-                List<String> obis = GXCommon.split(items.get(0), '.');
-                GXStandardObisCode code = new GXStandardObisCode(
-                        obis.toArray(new String[0]),
-                        items.get(3) + "; " + items.get(4) + "; " + items.get(5)
-                                + "; " + items.get(6) + "; " + items.get(7),
-                        items.get(1), items.get(2));
-                codes.add(code);
-            }
+        GXStandardObisCodeCollection codes = getCodes();
+        for (GXDLMSObject it : objects) {
+            updateOBISCodeInfo(codes, it);
         }
     }
 
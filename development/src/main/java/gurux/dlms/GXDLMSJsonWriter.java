@@ -0,0 +1,583 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map.Entry;
+
+import gurux.dlms.enums.DataType;
+import gurux.dlms.enums.ObjectType;
+import gurux.dlms.internal.GXCommon;
+import gurux.dlms.objects.GXDLMSCaptureObject;
+import gurux.dlms.objects.GXDLMSObject;
+import gurux.dlms.objects.GXDLMSObjectCollection;
+import gurux.dlms.objects.GXDLMSProfileGeneric;
+
+/**
+ * JSON writer converts A-XDR encoded DLMS data to JSON. Values are written
+ * directly from the byte buffer to the output without creating object trees.
+ * <p>
+ * Integers, enumerations and floats are written as numbers, boolean as
+ * boolean, arrays and structures as arrays, visible and UTF-8 strings as
+ * strings, octet strings as hex strings and bit strings as strings of bits.
+ * Date-time values are written as ISO 8601 strings where unspecified fields
+ * are replaced with asterisks.
+ * </p>
+ */
+public class GXDLMSJsonWriter implements AutoCloseable {
+    /**
+     * Hex characters.
+     */
+    private static final char[] HEX_ARRAY = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * UTF-8 character set.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Deviation is not used.
+     */
+    private static final int NO_DEVIATION = 0x8000;
+
+    /**
+     * Output.
+     */
+    private final Writer writer;
+
+    /**
+     * Constructor. Output is written as UTF-8.
+     * 
+     * @param stream
+     *            Output stream.
+     */
+    public GXDLMSJsonWriter(final OutputStream stream) {
+        this(new BufferedWriter(new OutputStreamWriter(stream, UTF8)));
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param forWriter
+     *            Output writer.
+     */
+    public GXDLMSJsonWriter(final Writer forWriter) {
+        if (forWriter == null) {
+            throw new IllegalArgumentException("forWriter");
+        }
+        writer = forWriter;
+    }
+
+    /**
+     * Write one A-XDR value from the buffer position.
+     * 
+     * @param data
+     *            A-XDR encoded data.
+     * @throws IOException
+     *             Write failed.
+     */
+    public final void writeValue(final GXByteBuffer data) throws IOException {
+        writeValue(data, DataType.forValue(data.getUInt8()));
+    }
+
+    /**
+     * Write attribute value with object annotations.
+     * 
+     * @param target
+     *            COSEM object.
+     * @param index
+     *            Attribute index.
+     * @param data
+     *            A-XDR encoded attribute value.
+     * @throws IOException
+     *             Write failed.
+     */
+    public final void writeAttribute(final GXDLMSObject target,
+            final int index, final GXByteBuffer data) throws IOException {
+        writeHeader(target.getObjectType().getValue(),
+                target.getLogicalName(), index, target.getDescription());
+        writeName("value");
+        writeValue(data);
+        writer.write('}');
+    }
+
+    /**
+     * Write attribute value. Object annotations are searched from the
+     * collection. Only logical name is written if object is not found.
+     * 
+     * @param objects
+     *            COSEM objects.
+     * @param type
+     *            Object type.
+     * @param ln
+     *            Logical name.
+     * @param index
+     *            Attribute index.
+     * @param data
+     *            A-XDR encoded attribute value.
+     * @throws IOException
+     *             Write failed.
+     */
+    public final void writeAttribute(final GXDLMSObjectCollection objects,
+            final ObjectType type, final String ln, final int index,
+            final GXByteBuffer data) throws IOException {
+        GXDLMSObject target = null;
+        if (objects != null) {
+            target = objects.findByLN(type, ln);
+        }
+        if (target != null) {
+            writeAttribute(target, index, data);
+        } else {
+            writeHeader(type.getValue(), ln, index, null);
+            writeName("value");
+            writeValue(data);
+            writer.write('}');
+        }
+    }
+
+    /**
+     * Write profile generic buffer. Each row is written as JSON object where
+     * the names are taken from the capture objects. Name is logical name and
+     * attribute index separated with colon. Data index is added if it's used.
+     * 
+     * @param target
+     *            Profile generic.
+     * @param data
+     *            A-XDR encoded buffer.
+     * @throws IOException
+     *             Write failed.
+     */
+    public final void writeRows(final GXDLMSProfileGeneric target,
+            final GXByteBuffer data) throws IOException {
+        List<Entry<GXDLMSObject, GXDLMSCaptureObject>> columns =
+                target.getCaptureObjects();
+        writeHeader(target.getObjectType().getValue(),
+                target.getLogicalName(), 2, target.getDescription());
+        writeName("rows");
+        writer.write('[');
+        DataType type = DataType.forValue(data.getUInt8());
+        if (type != DataType.ARRAY) {
+            throw new IllegalArgumentException("Invalid buffer.");
+        }
+        int rows = GXCommon.getObjectCount(data);
+        for (int row = 0; row != rows; ++row) {
+            if (row != 0) {
+                writer.write(',');
+            }
+            type = DataType.forValue(data.getUInt8());
+            if (type != DataType.STRUCTURE) {
+                throw new IllegalArgumentException("Invalid buffer.");
+            }
+            writer.write('{');
+            int cnt = GXCommon.getObjectCount(data);
+            for (int pos = 0; pos != cnt; ++pos) {
+                if (pos != 0) {
+                    writer.write(',');
+                }
+                writer.write('"');
+                if (pos < columns.size()) {
+                    Entry<GXDLMSObject, GXDLMSCaptureObject> it =
+                            columns.get(pos);
+                    writeEscaped(it.getKey().getLogicalName());
+                    writer.write(':');
+                    writer.write(
+                            Integer.toString(it.getValue().getAttributeIndex()));
+                    if (it.getValue().getDataIndex() != 0) {
+                        writer.write(':');
+                        writer.write(
+                                Integer.toString(it.getValue().getDataIndex()));
+                    }
+                } else {
+                    writer.write(Integer.toString(pos));
+                }
+                writer.write("\":");
+                writeValue(data);
+            }
+            writer.write('}');
+        }
+        writer.write("]}");
+    }
+
+    /**
+     * Write line separator. This is used when values are written as JSON
+     * lines.
+     * 
+     * @throws IOException
+     *             Write failed.
+     */
+    public final void newLine() throws IOException {
+        writer.write('\n');
+    }
+
+    /**
+     * Flush buffered data to the output.
+     * 
+     * @throws IOException
+     *             Flush failed.
+     */
+    public final void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Close the writer.
+     * 
+     * @throws IOException
+     *             Close failed.
+     */
+    @Override
+    public final void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * Write object annotations. Object is left open.
+     */
+    private void writeHeader(final int classId, final String ln,
+            final int index, final String description) throws IOException {
+        writer.write("{\"classId\":");
+        writer.write(Integer.toString(classId));
+        writer.write(',');
+        writeName("ln");
+        writeString(ln);
+        writer.write(',');
+        writeName("index");
+        writer.write(Integer.toString(index));
+        writer.write(',');
+        if (description != null && description.length() != 0) {
+            writeName("description");
+            writeString(description);
+            writer.write(',');
+        }
+    }
+
+    private void writeName(final String name) throws IOException {
+        writer.write('"');
+        writer.write(name);
+        writer.write("\":");
+    }
+
+    private void writeString(final String value) throws IOException {
+        writer.write('"');
+        writeEscaped(value);
+        writer.write('"');
+    }
+
+    /**
+     * Write character using JSON escaping.
+     * 
+     * @param ch
+     *            Character to write.
+     */
+    private void writeEscaped(final char ch) throws IOException {
+        switch (ch) {
+        case '"':
+            writer.write("\\\"");
+            break;
+        case '\\':
+            writer.write("\\\\");
+            break;
+        case '\n':
+            writer.write("\\n");
+            break;
+        case '\r':
+            writer.write("\\r");
+            break;
+        case '\t':
+            writer.write("\\t");
+            break;
+        default:
+            if (ch < 0x20) {
+                writer.write("\\u00");
+                writer.write(HEX_ARRAY[ch >> 4]);
+                writer.write(HEX_ARRAY[ch & 0xF]);
+            } else {
+                writer.write(ch);
+            }
+        }
+    }
+
+    private void writeEscaped(final String value) throws IOException {
+        for (int pos = 0; pos != value.length(); ++pos) {
+            writeEscaped(value.charAt(pos));
+        }
+    }
+
+    /**
+     * Write value.
+     * 
+     * @param data
+     *            A-XDR encoded data.
+     * @param type
+     *            Data type.
+     */
+    private void writeValue(final GXByteBuffer data, final DataType type)
+            throws IOException {
+        int cnt;
+        switch (type) {
+        case NONE:
+            writer.write("null");
+            break;
+        case ARRAY:
+        case STRUCTURE:
+            cnt = GXCommon.getObjectCount(data);
+            writer.write('[');
+            for (int pos = 0; pos != cnt; ++pos) {
+                if (pos != 0) {
+                    writer.write(',');
+                }
+                writeValue(data);
+            }
+            writer.write(']');
+            break;
+        case BOOLEAN:
+            if (data.getUInt8() != 0) {
+                writer.write("true");
+            } else {
+                writer.write("false");
+            }
+            break;
+        case BITSTRING:
+            cnt = GXCommon.getObjectCount(data);
+            writer.write('"');
+            while (cnt > 0) {
+                byte value = data.getInt8();
+                for (int pos = 7; pos != 7 - Math.min(cnt, 8); --pos) {
+                    if ((value & (1 << pos)) != 0) {
+                        writer.write('1');
+                    } else {
+                        writer.write('0');
+                    }
+                }
+                cnt -= 8;
+            }
+            writer.write('"');
+            break;
+        case INT8:
+            writer.write(Integer.toString(data.getInt8()));
+            break;
+        case INT16:
+            writer.write(Integer.toString(data.getInt16()));
+            break;
+        case INT32:
+            writer.write(Integer.toString(data.getInt32()));
+            break;
+        case INT64:
+            writer.write(Long.toString(data.getInt64()));
+            break;
+        case UINT8:
+        case ENUM:
+        case BCD:
+            writer.write(Integer.toString(data.getUInt8()));
+            break;
+        case UINT16:
+            writer.write(Integer.toString(data.getUInt16()));
+            break;
+        case UINT32:
+            writer.write(Long.toString(data.getUInt32()));
+            break;
+        case UINT64:
+            long value = data.getInt64();
+            if (value < 0) {
+                writer.write(BigInteger.valueOf(value).add(BigInteger.ONE
+                        .shiftLeft(64)).toString());
+            } else {
+                writer.write(Long.toString(value));
+            }
+            break;
+        case FLOAT32:
+            writeNumber(data.getFloat());
+            break;
+        case FLOAT64:
+            writeNumber(data.getDouble());
+            break;
+        case OCTET_STRING:
+            cnt = GXCommon.getObjectCount(data);
+            writer.write('"');
+            for (int pos = 0; pos != cnt; ++pos) {
+                int ch = data.getUInt8();
+                writer.write(HEX_ARRAY[ch >> 4]);
+                writer.write(HEX_ARRAY[ch & 0xF]);
+            }
+            writer.write('"');
+            break;
+        case STRING:
+            cnt = GXCommon.getObjectCount(data);
+            writer.write('"');
+            for (int pos = 0; pos != cnt; ++pos) {
+                writeEscaped((char) data.getUInt8());
+            }
+            writer.write('"');
+            break;
+        case STRING_UTF8:
+            cnt = GXCommon.getObjectCount(data);
+            if (data.size() - data.position() < cnt) {
+                throw new IllegalArgumentException("Not enough data.");
+            }
+            writeString(new String(data.getData(), data.position(), cnt,
+                    UTF8));
+            data.position(data.position() + cnt);
+            break;
+        case DATETIME:
+            writer.write('"');
+            writeDate(data);
+            writer.write('T');
+            writeTime(data);
+            writeDeviation(data.getInt16());
+            // Skip clock status.
+            data.getUInt8();
+            writer.write('"');
+            break;
+        case DATE:
+            writer.write('"');
+            writeDate(data);
+            writer.write('"');
+            break;
+        case TIME:
+            writer.write('"');
+            writeTime(data);
+            writer.write('"');
+            break;
+        default:
+            throw new IllegalArgumentException("Invalid data type: " + type);
+        }
+    }
+
+    private void writeNumber(final double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            writer.write("null");
+        } else {
+            writer.write(Double.toString(value));
+        }
+    }
+
+    private void writeNumber(final float value) throws IOException {
+        if (Float.isNaN(value) || Float.isInfinite(value)) {
+            writer.write("null");
+        } else {
+            writer.write(Float.toString(value));
+        }
+    }
+
+    /**
+     * Write date field with given amount of digits.
+     * 
+     * @param value
+     *            Field value.
+     * @param digits
+     *            Amount of digits.
+     * @param unknown
+     *            Value that is used when field is not specified.
+     */
+    private void writeField(final int value, final int digits,
+            final int unknown) throws IOException {
+        // Special month and day values are not shown.
+        if (value == unknown || (unknown == 0xFF && value > 0xFC)) {
+            for (int pos = 0; pos != digits; ++pos) {
+                writer.write('*');
+            }
+        } else {
+            writeDigits(value, digits);
+        }
+    }
+
+    /**
+     * Write number with leading zeros.
+     * 
+     * @param value
+     *            Value.
+     * @param digits
+     *            Minimum amount of digits.
+     */
+    private void writeDigits(final int value, final int digits)
+            throws IOException {
+        String str = Integer.toString(value);
+        for (int pos = str.length(); pos < digits; ++pos) {
+            writer.write('0');
+        }
+        writer.write(str);
+    }
+
+    private void writeDate(final GXByteBuffer data) throws IOException {
+        writeField(data.getUInt16(), 4, 0xFFFF);
+        writer.write('-');
+        writeField(data.getUInt8(), 2, 0xFF);
+        writer.write('-');
+        writeField(data.getUInt8(), 2, 0xFF);
+        // Skip day of week.
+        data.getUInt8();
+    }
+
+    private void writeTime(final GXByteBuffer data) throws IOException {
+        writeField(data.getUInt8(), 2, 0xFF);
+        writer.write(':');
+        writeField(data.getUInt8(), 2, 0xFF);
+        writer.write(':');
+        writeField(data.getUInt8(), 2, 0xFF);
+        int value = data.getUInt8();
+        if (value != 0 && value != 0xFF) {
+            writer.write('.');
+            writeField(value, 2, 0xFF);
+        }
+    }
+
+    /**
+     * Write deviation as UTC offset.
+     * 
+     * @param deviation
+     *            Deviation in minutes from local time to UTC.
+     */
+    private void writeDeviation(final int deviation) throws IOException {
+        if ((deviation & 0xFFFF) != NO_DEVIATION) {
+            int offset = -deviation;
+            if (offset < 0) {
+                writer.write('-');
+                offset = -offset;
+            } else {
+                writer.write('+');
+            }
+            writeDigits(offset / 60, 2);
+            writer.write(':');
+            writeDigits(offset % 60, 2);
+        }
+    }
+}
@@ -183,7 +183,7 @@ final class GXDLMSLNCommandHandler {
             final short invokeID, final GXDLMSServerBase server,
             final GXByteBuffer data, final GXByteBuffer replyData,
             final GXDLMSTranslatorStructure xml) throws Exception {
-        GXByteBuffer bb = new GXByteBuffer();
+        GXByteBuffer bb = settings.getBufferPool().acquire(0);
         ValueEventArgs e = null;
         ErrorCode status = ErrorCode.OK;
         settings.setCount(0);
@@ -221,8 +221,7 @@ final class GXDLMSLNCommandHandler {
         if (selection != 0) {
             parameters = GXCommon.getData(data, info);
         }
-        GXDLMSObject obj =
-                settings.getObjects().findByLN(ci, GXCommon.toLogicalName(ln));
+        GXDLMSObject obj = settings.getObjects().findByLN(ci, ln);
         if (obj == null) {
             obj = server.notifyFindObject(ci, 0, GXCommon.toLogicalName(ln));
         }
@@ -278,7 +277,7 @@ final class GXDLMSLNCommandHandler {
                 } else {
                     settings.setCount(
                             e.getRowEndIndex() - e.getRowBeginIndex());
-                    value = obj.getValue(settings, e);
+                    value = server.getValue(e);
                 }
                 server.notifyPostRead(new ValueEventArgs[] { e });
                 if (e.isByteArray()) {
@@ -298,6 +297,7 @@ final class GXDLMSLNCommandHandler {
             server.setTransaction(new GXDLMSLongTransaction(
                     new ValueEventArgs[] { e }, Command.GET_REQUEST, bb));
         }
+        settings.getBufferPool().release(bb);
     }
 
     /**
@@ -311,7 +311,7 @@ final class GXDLMSLNCommandHandler {
             final GXByteBuffer data, final GXByteBuffer replyData,
             final GXDLMSTranslatorStructure xml, boolean streaming)
             throws Exception {
-        GXByteBuffer bb = new GXByteBuffer();
+        GXByteBuffer bb = settings.getBufferPool().acquire(0);
         if (!streaming) {
             int index = (int) data.getUInt32();
             // Get block index.
@@ -357,7 +357,7 @@ final class GXDLMSLNCommandHandler {
                         if (arg.getHandled()) {
                             value = arg.getValue();
                         } else {
-                            value = arg.getTarget().getValue(settings, arg);
+                            value = server.getValue(arg);
                         }
                         p.setInvokeId(arg.getInvokeId());
                         // Add data.
@@ -380,6 +380,7 @@ final class GXDLMSLNCommandHandler {
                 settings.resetBlockIndex();
             }
         }
+        settings.getBufferPool().release(bb);
     }
 
     /**
@@ -392,11 +393,13 @@ final class GXDLMSLNCommandHandler {
             final short invokeID, final GXDLMSServerBase server,
             final GXByteBuffer data, final GXByteBuffer replyData,
             final GXDLMSTranslatorStructure xml) throws Exception {
-        GXByteBuffer bb = new GXByteBuffer();
+        GXByteBuffer bb = settings.getBufferPool().acquire(0);
         int pos;
         int cnt = GXCommon.getObjectCount(data);
         GXCommon.setObjectCount(cnt, bb);
         List<ValueEventArgs> list = new ArrayList<ValueEventArgs>();
+        // Resolved data types. Null if type is resolved when value is added.
+        List<DataType> types = new ArrayList<DataType>();
         if (xml != null) {
             xml.appendStartTag(TranslatorTags.ATTRIBUTE_DESCRIPTOR_LIST, "Qty",
                     xml.integerToHex(cnt, 2));
@@ -434,28 +437,62 @@ final class GXDLMSLNCommandHandler {
                 xml.appendEndTag(
                         TranslatorTags.ATTRIBUTE_DESCRIPTOR_WITH_SELECTION);
             } else {
-                GXDLMSObject obj = settings.getObjects().findByLN(ci,
-                        GXCommon.toLogicalName(ln));
+                // Use cached plan if same attribute is read again.
+                GXAttributeAccessPlanCache.Plan plan = server.getAccessPlans()
+                        .find(settings, ci.getValue(), ln, attributeIndex);
+                if (plan != null) {
+                    ValueEventArgs arg = new ValueEventArgs(server,
+                            plan.getTarget(), attributeIndex, selector,
+                            parameters);
+                    arg.setInvokeId(invokeID);
+                    AccessMode access = plan.getAccess();
+                    if (!server.getCacheAttributeAccess()) {
+                        access = server.notifyGetAttributeAccess(arg);
+                    }
+                    if (access == AccessMode.NO_ACCESS) {
+                        // Read Write denied.
+                        arg.setError(ErrorCode.READ_WRITE_DENIED);
+                    }
+                    list.add(arg);
+                    types.add(plan.getType());
+                    continue;
+                }
+                boolean cache = true;
+                GXDLMSObject obj = settings.getObjects().findByLN(ci, ln);
                 if (obj == null) {
+                    // Objects that user creates on the fly are not cached.
+                    cache = false;
                     obj = server.notifyFindObject(ci, 0,
                             GXCommon.toLogicalName(ln));
                 }
                 ValueEventArgs arg = new ValueEventArgs(server, obj,
                         attributeIndex, selector, parameters);
                 arg.setInvokeId(invokeID);
+                DataType type = null;
                 if (obj == null) {
                     arg.setError(ErrorCode.UNDEFINED_OBJECT);
-                    list.add(arg);
                 } else {
-                    if (server.notifyGetAttributeAccess(
-                            arg) == AccessMode.NO_ACCESS) {
+                    AccessMode access = server.notifyGetAttributeAccess(arg);
+                    if (access == AccessMode.NO_ACCESS) {
                         // Read Write denied.
                         arg.setError(ErrorCode.READ_WRITE_DENIED);
-                        list.add(arg);
-                    } else {
-                        list.add(arg);
+                    }
+                    if (cache) {
+                        try {
+                            type = obj.getDataType(attributeIndex);
+                            server.getAccessPlans().add(ci.getValue(), ln,
+                                    attributeIndex,
+                                    new GXAttributeAccessPlanCache.Plan(obj,
+                                            access, type));
+                        } catch (IllegalArgumentException ex) {
+                            // Invalid attribute index is reported when
+                            // value is read.
+                            type = null;
+                        }
                     }
                 }
+                list.add(arg);
+                types.add(type);
             }
         }
         if (xml != null) {
@@ -472,11 +509,15 @@ final class GXDLMSLNCommandHandler {
                 if (it.getHandled()) {
                     value = it.getValue();
                 } else {
-                    value = it.getTarget().getValue(settings, it);
+                    value = server.getValue(it);
                 }
                 bb.setUInt8(it.getError().getValue());
+                DataType type = types.get(pos);
                 if (it.isByteArray()) {
                     bb.set((byte[]) value);
+                } else if (type != null) {
+                    GXDLMS.appendData(it.getTarget(), it.getIndex(), type, bb,
+                            value);
                 } else {
                     GXDLMS.appendData(it.getTarget(), it.getIndex(), bb, value);
                 }
@@ -493,6 +534,7 @@ final class GXDLMSLNCommandHandler {
         }
         server.notifyPostRead(list.toArray(new ValueEventArgs[list.size()]));
         GXDLMS.getLNPdu(p, replyData);
+        settings.getBufferPool().release(bb);
     }
 
     private static void handleSetRequestNormal(final GXDLMSSettings settings,
@@ -551,8 +593,7 @@ final class GXDLMSLNCommandHandler {
             value = GXCommon.getData(data, reply);
         }
 
-        GXDLMSObject obj =
-                settings.getObjects().findByLN(ot, GXCommon.toLogicalName(ln));
+        GXDLMSObject obj = settings.getObjects().findByLN(ot, ln);
         if (obj == null) {
             obj = server.notifyFindObject(ot, 0, GXCommon.toLogicalName(ln));
         }
@@ -587,9 +628,10 @@ final class GXDLMSLNCommandHandler {
                     if (e.getError() != ErrorCode.OK) {
                         p.setStatus(e.getError().getValue());
                     } else if (!e.getHandled() && !p.isMultipleBlocks()) {
-                        obj.setValue(settings, e);
+                        server.setValue(e);
                     }
                     server.notifyPostWrite(list);
+                    server.publish(list);
                     p.setInvokeId(e.getInvokeId());
                 } catch (Exception ex) {
                     p.setStatus(ErrorCode.HARDWARE_FAULT.getValue());
@@ -652,12 +694,12 @@ final class GXDLMSLNCommandHandler {
                     server.notifyWrite(server.getTransaction().getTargets());
                     if (!server.getTransaction().getTargets()[0].getHandled()
                             && !p.isMultipleBlocks()) {
-                        server.getTransaction().getTargets()[0].getTarget()
-                                .setValue(settings, server.getTransaction()
-                                        .getTargets()[0]);
+                        server.setValue(
+                                server.getTransaction().getTargets()[0]);
                     }
                     server.notifyPostWrite(
                             server.getTransaction().getTargets());
+                    server.publish(server.getTransaction().getTargets());
                 } catch (RuntimeException e) {
                     p.setStatus(ErrorCode.HARDWARE_FAULT.getValue());
                 } finally {
@@ -712,8 +754,7 @@ final class GXDLMSLNCommandHandler {
                     xml.appendEndTag(
                             TranslatorTags.ATTRIBUTE_DESCRIPTOR_WITH_SELECTION);
                 } else {
-                    GXDLMSObject obj = settings.getObjects().findByLN(ci,
-                            GXCommon.toLogicalName(ln));
+                    GXDLMSObject obj = settings.getObjects().findByLN(ci, ln);
                     if (obj == null) {
                         obj = server.notifyFindObject(ci, 0,
                                 GXCommon.toLogicalName(ln));
@@ -832,8 +873,7 @@ final class GXDLMSLNCommandHandler {
             GXDataInfo info = new GXDataInfo();
             parameters = GXCommon.getData(data, info);
         }
-        GXDLMSObject obj =
-                settings.getObjects().findByLN(ot, GXCommon.toLogicalName(ln));
+        GXDLMSObject obj = settings.getObjects().findByLN(ot, ln);
         if (!settings.acceptConnection()
                 && (ci != ObjectType.ASSOCIATION_LOGICAL_NAME.getValue()
                         || id != 1)) {
@@ -860,9 +900,10 @@ final class GXDLMSLNCommandHandler {
                 if (e.getHandled()) {
                     actionReply = (byte[]) e.getValue();
                 } else {
-                    actionReply = obj.invoke(settings, e);
+                    actionReply = server.invoke(e);
                 }
                 server.notifyPostAction(new ValueEventArgs[] { e });
+                server.publish(new ValueEventArgs[] { e });
                 // Set default action reply if not given.
                 if (actionReply != null && e.getError() == ErrorCode.OK) {
                     // Add return parameters
@@ -1058,8 +1099,8 @@ final class GXDLMSLNCommandHandler {
             reply.getXml().appendEndTag(TranslatorTags.ATTRIBUTE_VALUE);
             reply.getXml().appendEndTag(Command.EVENT_NOTIFICATION);
         } else {
-            GXDLMSObject obj = settings.getObjects().findByLN(
-                    ObjectType.forValue(ci), GXCommon.toLogicalName(ln));
+            GXDLMSObject obj = settings.getObjects()
+                    .findByLN(ObjectType.forValue(ci), ln);
             if (obj != null) {
                 ValueEventArgs v = new ValueEventArgs(obj, index, 0, null);
                 v.setValue(value);
@@ -495,7 +495,7 @@ public class GXDLMSNotify {
             for (Entry<GXDLMSObject, Integer> it : list) {
                 buff.setUInt16(it.getKey().getObjectType().getValue());
                 buff.set(GXCommon
-                        .logicalNameToBytes(it.getKey().getLogicalName()));
+                        .logicalNameToBytes(it.getKey().getLN()));
                 buff.setUInt8(it.getValue());
                 addData(it.getKey(), it.getValue(), buff);
             }
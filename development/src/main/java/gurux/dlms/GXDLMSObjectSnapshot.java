@@ -0,0 +1,334 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import gurux.dlms.objects.GXDLMSAssociationLogicalName;
+import gurux.dlms.objects.GXDLMSAssociationShortName;
+import gurux.dlms.objects.GXDLMSObject;
+import gurux.dlms.objects.GXDLMSObjectCollection;
+import gurux.dlms.objects.GXDLMSProfileGeneric;
+
+/**
+ * Copy-on-write snapshot of the attribute values of the COSEM objects.
+ * <p>
+ * Attribute values are kept as immutable A-XDR encoded byte arrays. When value
+ * is changed, new version of the attribute is encoded and published
+ * atomically. Readers get the last published version without locking, so
+ * several server sessions can read the same objects at the same time while
+ * values are updated.
+ * </p>
+ * <p>
+ * Values are changed while the monitor of the object is held. If object is
+ * changed directly, changes are not seen by the readers until attribute is
+ * published:
+ * </p>
+ * 
+ * <pre>
+ * synchronized (register) {
+ *     register.setValue(value);
+ * }
+ * snapshot.publish(register, 2);
+ * </pre>
+ * <p>
+ * Association objects are not added to the snapshot, because their values
+ * depend on the current association. Profile generic buffer is not published
+ * either. It's read from the object so rows are split to several PDUs and
+ * buffer is not encoded again when new row is captured.
+ * </p>
+ */
+public final class GXDLMSObjectSnapshot {
+    /**
+     * Published attribute values of each object. Map is replaced when objects
+     * are added or removed.
+     */
+    private volatile Map<GXDLMSObject, AtomicReferenceArray<byte[]>> values =
+            new IdentityHashMap<GXDLMSObject, AtomicReferenceArray<byte[]>>();
+
+    /**
+     * Settings used to encode the values in each thread.
+     */
+    private final ThreadLocal<GXDLMSSettings> settings =
+            new ThreadLocal<GXDLMSSettings>() {
+                @Override
+                protected GXDLMSSettings initialValue() {
+                    return new GXDLMSSettings(true);
+                }
+            };
+
+    /**
+     * Buffer used to encode the values in each thread.
+     */
+    private final ThreadLocal<GXByteBuffer> buffers =
+            new ThreadLocal<GXByteBuffer>() {
+                @Override
+                protected GXByteBuffer initialValue() {
+                    return new GXByteBuffer();
+                }
+            };
+
+    /**
+     * Constructor.
+     */
+    public GXDLMSObjectSnapshot() {
+
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param objects
+     *            Objects to add. Values of all attributes are published.
+     */
+    public GXDLMSObjectSnapshot(final GXDLMSObjectCollection objects) {
+        addAll(objects);
+    }
+
+    /**
+     * Add object and publish values of all attributes.
+     * 
+     * @param target
+     *            COSEM object.
+     * @return True, if object is added.
+     */
+    public boolean add(final GXDLMSObject target) {
+        GXDLMSObjectCollection tmp = new GXDLMSObjectCollection();
+        tmp.add(target);
+        return addAll(tmp);
+    }
+
+    /**
+     * Add objects and publish values of all attributes.
+     * 
+     * @param objects
+     *            COSEM objects.
+     * @return True, if any object is added.
+     */
+    public boolean addAll(final GXDLMSObjectCollection objects) {
+        if (objects == null) {
+            throw new IllegalArgumentException("objects");
+        }
+        boolean added = false;
+        synchronized (this) {
+            Map<GXDLMSObject, AtomicReferenceArray<byte[]>> tmp = copy();
+            for (GXDLMSObject it : objects) {
+                if (!tmp.containsKey(it) && isSupported(it)) {
+                    tmp.put(it,
+                            new AtomicReferenceArray<byte[]>(getCount(it) + 1));
+                    added = true;
+                }
+            }
+            if (!added) {
+                return false;
+            }
+            values = tmp;
+        }
+        for (GXDLMSObject it : objects) {
+            publish(it);
+        }
+        return true;
+    }
+
+    /**
+     * Remove object. Readers read the object itself after this.
+     * 
+     * @param target
+     *            COSEM object.
+     * @return True, if object is removed.
+     */
+    public boolean remove(final GXDLMSObject target) {
+        synchronized (this) {
+            if (!values.containsKey(target)) {
+                return false;
+            }
+            Map<GXDLMSObject, AtomicReferenceArray<byte[]>> tmp = copy();
+            tmp.remove(target);
+            values = tmp;
+        }
+        return true;
+    }
+
+    /**
+     * @param target
+     *            COSEM object.
+     * @return Is object added to the snapshot.
+     */
+    public boolean contains(final GXDLMSObject target) {
+        return values.containsKey(target);
+    }
+
+    /**
+     * Get last published value of the attribute. Reader is never blocked.
+     * 
+     * @param target
+     *            COSEM object.
+     * @param index
+     *            Attribute index.
+     * @return A-XDR encoded value or null if value is not published.
+     */
+    public byte[] getValue(final GXDLMSObject target, final int index) {
+        byte[] value = get(target, index);
+        if (value == null) {
+            return null;
+        }
+        return value.clone();
+    }
+
+    /**
+     * Get last published value of the attribute without copying it. This is
+     * reserved for internal use.
+     * 
+     * @param target
+     *            COSEM object.
+     * @param index
+     *            Attribute index.
+     * @return A-XDR encoded value or null if value is not published.
+     */
+    final byte[] get(final GXDLMSObject target, final int index) {
+        AtomicReferenceArray<byte[]> list = values.get(target);
+        if (list == null || index < 1 || index >= list.length()) {
+            return null;
+        }
+        return list.get(index);
+    }
+
+    /**
+     * Set attribute value and publish values of all attributes of the object.
+     * 
+     * @param settings
+     *            DLMS settings.
+     * @param e
+     *            Value event parameters.
+     */
+    public void setValue(final GXDLMSSettings settings,
+            final ValueEventArgs e) {
+        GXDLMSObject target = e.getTarget();
+        synchronized (target) {
+            target.setValue(settings, e);
+        }
+        publish(target);
+    }
+
+    /**
+     * Publish current value of the attribute.
+     * 
+     * @param target
+     *            COSEM object.
+     * @param index
+     *            Attribute index.
+     */
+    public void publish(final GXDLMSObject target, final int index) {
+        AtomicReferenceArray<byte[]> list = values.get(target);
+        if (list == null || index < 1 || index >= list.length()
+                || !isPublished(target, index)) {
+            return;
+        }
+        GXDLMSSettings s = settings.get();
+        GXByteBuffer bb = buffers.get();
+        // Value is encoded and set while the object is locked so the last
+        // change is always published last.
+        synchronized (target) {
+            bb.clear();
+            if (GXDLMSBinarySerializer.getValue(s, target, index, bb)) {
+                list.set(index, bb.array());
+            } else {
+                // Value is read from the object.
+                list.set(index, null);
+            }
+        }
+    }
+
+    /**
+     * Publish current values of all attributes of the object.
+     * 
+     * @param target
+     *            COSEM object.
+     */
+    public void publish(final GXDLMSObject target) {
+        AtomicReferenceArray<byte[]> list = values.get(target);
+        if (list != null) {
+            for (int index = 1; index != list.length(); ++index) {
+                publish(target, index);
+            }
+        }
+    }
+
+    /**
+     * @return Copy of the published values.
+     */
+    private Map<GXDLMSObject, AtomicReferenceArray<byte[]>> copy() {
+        return new IdentityHashMap<GXDLMSObject, AtomicReferenceArray<byte[]>>(
+                values);
+    }
+
+    /**
+     * @param target
+     *            COSEM object.
+     * @return Can object be added to the snapshot.
+     */
+    private static boolean isSupported(final GXDLMSObject target) {
+        return !(target instanceof GXDLMSAssociationLogicalName
+                || target instanceof GXDLMSAssociationShortName);
+    }
+
+    /**
+     * @param target
+     *            COSEM object.
+     * @param index
+     *            Attribute index.
+     * @return Is attribute value published to the snapshot.
+     */
+    private static boolean isPublished(final GXDLMSObject target,
+            final int index) {
+        return !(target instanceof GXDLMSProfileGeneric && index == 2);
+    }
+
+    /**
+     * @param target
+     *            COSEM object.
+     * @return Attribute count of the object.
+     */
+    private static int getCount(final GXDLMSObject target) {
+        try {
+            return target.getAttributeCount();
+        } catch (UnsupportedOperationException e) {
+            // Manufacturer specific or unknown object.
+            return 1;
+        }
+    }
+}
@@ -161,7 +161,7 @@ final class GXDLMSSNCommandHandler {
                 server.notifyAction(
                         actions.toArray(new ValueEventArgs[actions.size()]));
             }
-            getReadData(settings, server.getTransaction().getTargets(),
+            getReadData(server, server.getTransaction().getTargets(),
                     server.getTransaction().getData());
             if (reads.size() != 0) {
                 server.notifyPostRead(
@@ -191,13 +191,15 @@ final class GXDLMSSNCommandHandler {
     /**
      * Get data for Read command.
      * 
+     * @param server
+     *            DLMS server.
      * @param list
      *            received objects.
      * @param data
      *            Data as byte array.
      * @return Response type.
      */
-    private static byte getReadData(final GXDLMSSettings settings,
+    private static byte getReadData(final GXDLMSServerBase server,
             final ValueEventArgs[] list, final GXByteBuffer data) {
         Object value;
         boolean first = true;
@@ -208,9 +210,10 @@ final class GXDLMSSNCommandHandler {
             } else {
                 // If action.
                 if (e.isAction()) {
-                    value = e.getTarget().invoke(settings, e);
+                    value = server.invoke(e);
+                    server.publish(new ValueEventArgs[] { e });
                 } else {
-                    value = e.getTarget().getValue(settings, e);
+                    value = server.getValue(e);
                 }
             }
             if (e.getError() == ErrorCode.OK) {
@@ -221,6 +224,8 @@ final class GXDLMSSNCommandHandler {
                 if (e.isAction()) {
                     GXCommon.setData(data,
                             GXDLMSConverter.getDLMSDataType(value), value);
+                } else if (e.isByteArray()) {
+                    data.set((byte[]) value);
                 } else {
                     GXDLMS.appendData(e.getTarget(), e.getIndex(), data, value);
                 }
@@ -334,7 +339,7 @@ final class GXDLMSSNCommandHandler {
             final GXDLMSServerBase server, final GXByteBuffer data,
             final GXByteBuffer replyData, final GXDLMSTranslatorStructure xml)
             throws Exception {
-        GXByteBuffer bb = new GXByteBuffer();
+        GXByteBuffer bb = settings.getBufferPool().acquire(0);
         int cnt = 0xFF;
         byte type;
         List<ValueEventArgs> list = new ArrayList<ValueEventArgs>();
@@ -397,7 +402,7 @@ final class GXDLMSSNCommandHandler {
             xml.appendEndTag(Command.READ_REQUEST);
             return;
         }
-        int requestType = getReadData(settings,
+        int requestType = getReadData(server,
                 list.toArray(new ValueEventArgs[list.size()]), bb);
         GXDLMSSNParameters p = new GXDLMSSNParameters(settings,
                 Command.READ_RESPONSE, cnt, requestType, null, bb);
@@ -417,8 +422,8 @@ final class GXDLMSSNCommandHandler {
                     Command.READ_REQUEST, bb));
         } else if (server.getTransaction() != null) {
             replyData.set(bb);
-            return;
         }
+        settings.getBufferPool().release(bb);
     }
 
     private static void returnSNError(final GXDLMSSettings settings,
@@ -594,9 +599,10 @@ final class GXDLMSSNCommandHandler {
                     if (e.getError() != ErrorCode.OK) {
                         results.setUInt8(pos, e.getError().getValue());
                     } else if (!e.getHandled()) {
-                        target.getItem().setValue(settings, e);
+                        server.setValue(e);
                     }
                     server.notifyPostWrite(new ValueEventArgs[] { e });
+                    server.publish(new ValueEventArgs[] { e });
                 }
             }
         }
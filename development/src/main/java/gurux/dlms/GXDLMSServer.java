@@ -41,6 +41,7 @@ import gurux.dlms.enums.ObjectType;
 import gurux.dlms.enums.Priority;
 import gurux.dlms.enums.ServiceClass;
 import gurux.dlms.enums.SourceDiagnostic;
+import gurux.dlms.objects.GXCaptureScheduler;
 import gurux.dlms.objects.GXDLMSObject;
 import gurux.dlms.objects.GXDLMSObjectCollection;
 
@@ -126,6 +127,73 @@ public abstract class GXDLMSServer {
         return base.getSettings();
     }
 
+    /**
+     * @return Is attribute access cached.
+     */
+    public final boolean getCacheAttributeAccess() {
+        return base.getCacheAttributeAccess();
+    }
+
+    /**
+     * Set is attribute access cached. When attribute access is cached,
+     * onGetAttributeAccess is called only the first time when attribute is
+     * read with get-request-with-list. The result is used until association,
+     * object collection, logical name or data type of the object changes.
+     * Association view is also encoded only once for each authentication
+     * level. Do not cache attribute access if access depends on the client
+     * or request.
+     * 
+     * @param value
+     *            Is attribute access cached.
+     */
+    public final void setCacheAttributeAccess(final boolean value) {
+        base.setCacheAttributeAccess(value);
+    }
+
+    /**
+     * @return Snapshot where attribute values are read. Null if values are
+     *         read from the objects.
+     */
+    public final GXDLMSObjectSnapshot getSnapshot() {
+        return base.getSnapshot();
+    }
+
+    /**
+     * Set snapshot where attribute values are read. When snapshot is used,
+     * readers are not blocked by writes. Profile generic buffer is read from
+     * the object. Changes made to the objects outside of the server must be
+     * published to the snapshot. If attribute value is updated in read
+     * callback, call ValueEventArgs.setValueChanged(true) so the new value is
+     * published before it's read. Objects that are removed from the snapshot
+     * are read from the objects.
+     * 
+     * @param value
+     *            Snapshot where attribute values are read. Same snapshot can
+     *            be shared between servers that use the same objects.
+     */
+    public final void setSnapshot(final GXDLMSObjectSnapshot value) {
+        base.setSnapshot(value);
+    }
+
+    /**
+     * @return Scheduler that captures profile generic objects.
+     */
+    public final GXCaptureScheduler getCaptureScheduler() {
+        return base.getCaptureScheduler();
+    }
+
+    /**
+     * Set scheduler that captures profile generic objects. Profiles of all
+     * servers are captured by the default scheduler if scheduler is not set.
+     * 
+     * @param value
+     *            Capture scheduler. Scheduler must be set before server is
+     *            initialized.
+     */
+    public final void setCaptureScheduler(final GXCaptureScheduler value) {
+        base.setCaptureScheduler(value);
+    }
+
     /**
      * @param value
      *            Cipher interface that is used to cipher PDU.
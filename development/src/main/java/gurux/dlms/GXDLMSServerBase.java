@@ -20,6 +20,7 @@ import gurux.dlms.enums.SourceDiagnostic;
 import gurux.dlms.internal.GXCommon;
 import gurux.dlms.manufacturersettings.GXAttributeCollection;
 import gurux.dlms.manufacturersettings.GXDLMSAttributeSettings;
+import gurux.dlms.objects.GXCaptureScheduler;
 import gurux.dlms.objects.GXDLMSAssociationLogicalName;
 import gurux.dlms.objects.GXDLMSAssociationShortName;
 import gurux.dlms.objects.GXDLMSHdlcSetup;
@@ -49,6 +50,17 @@ public class GXDLMSServerBase {
      */
     private GXDLMSLongTransaction transaction;
 
+    /*
+     * Cached attribute access plans.
+     */
+    private final GXAttributeAccessPlanCache accessPlans =
+            new GXAttributeAccessPlanCache();
+
+    /*
+     * Is attribute access cached.
+     */
+    private boolean cacheAttributeAccess;
+
     /*
      * Server settings.
      */
@@ -64,6 +76,18 @@ public class GXDLMSServerBase {
      */
     private long dataReceived = 0;
 
+    /**
+     * Snapshot where attribute values are read. Null if values are read from
+     * the objects.
+     */
+    private volatile GXDLMSObjectSnapshot snapshot;
+
+    /**
+     * Scheduler that captures profile generic objects. Null if default
+     * scheduler is used.
+     */
+    private GXCaptureScheduler captureScheduler;
+
     /*
      * @param value Cipher interface that is used to cipher PDU.
      */
@@ -87,6 +111,14 @@ public class GXDLMSServerBase {
         return transaction;
     }
 
+    /*
+     * This is reserved for internal use only.
+     * @return Cached attribute access plans.
+     */
+    final GXAttributeAccessPlanCache getAccessPlans() {
+        return accessPlans;
+    }
+
     /*
      * @return Client to Server challenge.
      */
@@ -241,6 +273,142 @@ public class GXDLMSServerBase {
         return settings;
     }
 
+    /**
+     * @return Is attribute access cached.
+     */
+    public final boolean getCacheAttributeAccess() {
+        return cacheAttributeAccess;
+    }
+
+    /**
+     * @param value
+     *            Is attribute access cached.
+     */
+    public final void setCacheAttributeAccess(final boolean value) {
+        cacheAttributeAccess = value;
+        accessPlans.clear();
+    }
+
+    /**
+     * @return Snapshot where attribute values are read. Null if values are
+     *         read from the objects.
+     */
+    public final GXDLMSObjectSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Set snapshot where attribute values are read. If attribute value is
+     * updated in read callback, it's published to the snapshot when
+     * ValueEventArgs.isValueChanged is set.
+     * 
+     * @param value
+     *            Snapshot where attribute values are read. Same snapshot can
+     *            be shared between servers that use the same objects.
+     */
+    public final void setSnapshot(final GXDLMSObjectSnapshot value) {
+        snapshot = value;
+    }
+
+    /**
+     * @return Scheduler that captures profile generic objects.
+     */
+    public final GXCaptureScheduler getCaptureScheduler() {
+        if (captureScheduler == null) {
+            return GXCaptureScheduler.getDefault();
+        }
+        return captureScheduler;
+    }
+
+    /**
+     * @param value
+     *            Scheduler that captures profile generic objects. Default
+     *            scheduler is used if value is null. Scheduler must be set
+     *            before server is initialized.
+     */
+    public final void setCaptureScheduler(final GXCaptureScheduler value) {
+        captureScheduler = value;
+    }
+
+    /**
+     * Read attribute value. Published value is used if snapshot is set and
+     * selective access is not used. This is reserved for internal use.
+     * 
+     * @param e
+     *            Value event parameters.
+     * @return Attribute value.
+     */
+    final Object getValue(final ValueEventArgs e) {
+        GXDLMSObjectSnapshot s = snapshot;
+        if (s == null) {
+            return e.getTarget().getValue(settings, e);
+        }
+        if (e.getSelector() == 0) {
+            if (e.isValueChanged()) {
+                // Value is updated in read callback.
+                s.publish(e.getTarget(), e.getIndex());
+            }
+            byte[] value = s.get(e.getTarget(), e.getIndex());
+            if (value != null) {
+                e.setByteArray(true);
+                return value;
+            }
+        }
+        synchronized (e.getTarget()) {
+            return e.getTarget().getValue(settings, e);
+        }
+    }
+
+    /**
+     * Write attribute value. Object is locked if snapshot is set. This is
+     * reserved for internal use.
+     * 
+     * @param e
+     *            Value event parameters.
+     */
+    final void setValue(final ValueEventArgs e) {
+        if (snapshot == null) {
+            e.getTarget().setValue(settings, e);
+        } else {
+            synchronized (e.getTarget()) {
+                e.getTarget().setValue(settings, e);
+            }
+        }
+    }
+
+    /**
+     * Invoke method. Object is locked if snapshot is set. This is reserved for
+     * internal use.
+     * 
+     * @param e
+     *            Value event parameters.
+     * @return Action reply.
+     */
+    final byte[] invoke(final ValueEventArgs e) {
+        if (snapshot == null) {
+            return e.getTarget().invoke(settings, e);
+        }
+        synchronized (e.getTarget()) {
+            return e.getTarget().invoke(settings, e);
+        }
+    }
+
+    /**
+     * Publish values of changed objects after write or action. This is
+     * reserved for internal use.
+     * 
+     * @param args
+     *            Value event parameters.
+     */
+    final void publish(final ValueEventArgs[] args) {
+        GXDLMSObjectSnapshot s = snapshot;
+        if (s != null) {
+            for (ValueEventArgs it : args) {
+                s.publish(it.getTarget());
+            }
+        }
+    }
+
     /**
      * Close server.
      * 
@@ -552,6 +720,7 @@ public class GXDLMSServerBase {
         settings.setStoCChallenge(null);
         receivedData.clear();
         transaction = null;
+        accessPlans.clear();
         settings.setCount(0);
         settings.setIndex(0);
         settings.setConnected(false);
@@ -253,6 +253,11 @@ public class GXDLMSSettings {
      */
     private final GXDLMSObjectCollection objects;
 
+    /**
+     * Buffers that are reused when PDUs and frames are generated.
+     */
+    private final GXByteBufferPool bufferPool = new GXByteBufferPool();
+
     /**
      * Cipher interface that is used to cipher PDU.
      */
@@ -808,6 +813,13 @@ public class GXDLMSSettings {
         return objects;
     }
 
+    /**
+     * @return Buffers that are reused when PDUs and frames are generated.
+     */
+    final GXByteBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
     /**
      * @return Is custom challenges used.
      */
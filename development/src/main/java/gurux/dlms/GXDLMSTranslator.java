@@ -34,16 +34,28 @@
 
 package gurux.dlms;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
 import java.io.StringReader;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 import org.w3c.dom.Node;
+import org.w3c.dom.Text;
 import org.xml.sax.InputSource;
 
 import gurux.dlms.enums.AccessServiceCommandType;
@@ -67,9 +79,46 @@ import gurux.dlms.secure.GXCiphering;
  * This class is used to translate DLMS frame or PDU to xml.
  */
 public class GXDLMSTranslator {
-    private HashMap<Integer, String> tags = new HashMap<Integer, String>();
-    private HashMap<String, Integer> tagsByName =
-            new HashMap<String, Integer>();
+    /**
+     * Factory for XML stream readers. Factory is configured only once so it
+     * can be shared between threads.
+     */
+    private static final XMLInputFactory INPUT_FACTORY;
+
+    /**
+     * Document builder of each thread. Builders are reset before use.
+     */
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDERS =
+            new ThreadLocal<DocumentBuilder>() {
+                @Override
+                protected DocumentBuilder initialValue() {
+                    try {
+                        return DocumentBuilderFactory.newInstance()
+                                .newDocumentBuilder();
+                    } catch (ParserConfigurationException e) {
+                        throw new RuntimeException(e.getMessage());
+                    }
+                }
+            };
+
+    static {
+        INPUT_FACTORY = XMLInputFactory.newInstance();
+        // Tags have prefixes without name space declaration when name space
+        // is omitted.
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE,
+                Boolean.FALSE);
+    }
+
+    /**
+     * Tags by ID. Tags are shared between translators.
+     */
+    private final GXIntStringMap tags;
+
+    /**
+     * Tags by name. Tags are shared between translators and they are never
+     * modified.
+     */
+    private final Map<String, Integer> tagsByName;
 
     /**
      * Are numeric values shows as hex.
@@ -145,7 +194,48 @@ public class GXDLMSTranslator {
      */
     public GXDLMSTranslator(final TranslatorOutputType type) {
         outputType = type;
-        getTags(outputType, tags, tagsByName);
+        if (type == TranslatorOutputType.SIMPLE_XML) {
+            tags = SimpleXmlTags.TAGS;
+            tagsByName = SimpleXmlTags.TAGS_BY_NAME;
+        } else {
+            tags = StandardXmlTags.TAGS;
+            tagsByName = StandardXmlTags.TAGS_BY_NAME;
+        }
+    }
+
+    /**
+     * Constructor. Tag tables are shared with the template translator.
+     * 
+     * @param template
+     *            Translator where settings are copied.
+     */
+    private GXDLMSTranslator(final GXDLMSTranslator template) {
+        outputType = template.outputType;
+        tags = template.tags;
+        tagsByName = template.tagsByName;
+        hex = template.hex;
+        showStringAsHex = template.showStringAsHex;
+        pduOnly = template.pduOnly;
+        completePdu = template.completePdu;
+        omitXmlDeclaration = template.omitXmlDeclaration;
+        omitXmlNameSpace = template.omitXmlNameSpace;
+        comments = template.comments;
+        security = template.security;
+        systemTitle = template.systemTitle;
+        blockCipherKey = template.blockCipherKey;
+        authenticationKey = template.authenticationKey;
+        invocationCounter = template.invocationCounter;
+    }
+
+    /**
+     * Create a new translator that uses the same settings. Tag tables are
+     * never modified after construction, so they are shared between copies.
+     * Frames that are received on parts are not copied.
+     * 
+     * @return Copy of the translator.
+     */
+    final GXDLMSTranslator copy() {
+        return new GXDLMSTranslator(this);
     }
 
     /**
@@ -394,6 +484,71 @@ public class GXDLMSTranslator {
         return data.position() != data.size();
     }
 
+    /**
+     * Find next capture frame that contains DLMS frame. Position of the
+     * frame data is set to the begin of the DLMS frame.
+     * 
+     * @param capture
+     *            Capture reader.
+     * @param frame
+     *            Capture frame where data is read.
+     * @param pdu
+     *            PDU of received frame is set here.
+     * @return False, if there are no more frames.
+     * @throws IOException
+     *             Capture read failed.
+     */
+    public final boolean findNextFrame(final GXCaptureReader capture,
+            final GXCaptureFrame frame, final GXByteBuffer pdu)
+            throws IOException {
+        while (capture.read(frame)) {
+            if (findNextFrame(frame.getData(), pdu)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Convert captured frames to XML. All DLMS frames are converted from
+     * each capture frame.
+     * 
+     * @param capture
+     *            Capture reader.
+     * @param listener
+     *            Listener where translated frames are returned. Index is the
+     *            index of the capture frame.
+     * @return Amount of handled capture frames.
+     * @throws IOException
+     *             Capture read failed.
+     */
+    public final long messageToXml(final GXCaptureReader capture,
+            final IGXTranslatorListener listener) throws IOException {
+        GXCaptureFrame frame = new GXCaptureFrame();
+        GXByteBuffer data = frame.getData();
+        long cnt = 0;
+        int pos;
+        String xml;
+        while (capture.read(frame)) {
+            ++cnt;
+            while (data.position() != data.size()) {
+                pos = data.position();
+                try {
+                    xml = messageToXml(data);
+                } catch (Exception e) {
+                    listener.onError(frame.getIndex(), e);
+                    break;
+                }
+                listener.onTranslated(frame.getIndex(), xml);
+                // Stop if frame is not complete.
+                if (pos == data.position()) {
+                    break;
+                }
+            }
+        }
+        return cnt;
+    }
+
     static void addTag(final HashMap<Integer, String> list, final int value,
             final String text) {
         list.put(value, text);
@@ -443,6 +598,44 @@ public class GXDLMSTranslator {
         }
     }
 
+    /**
+     * Simple XML tags. Tags are built when simple XML is used first time.
+     */
+    private static final class SimpleXmlTags {
+        private static final GXIntStringMap TAGS;
+        private static final Map<String, Integer> TAGS_BY_NAME;
+
+        static {
+            HashMap<Integer, String> list = new HashMap<Integer, String>();
+            HashMap<String, Integer> names = new HashMap<String, Integer>();
+            getTags(TranslatorOutputType.SIMPLE_XML, list, names);
+            TAGS = new GXIntStringMap(list);
+            TAGS_BY_NAME = Collections.unmodifiableMap(names);
+        }
+
+        private SimpleXmlTags() {
+        }
+    }
+
+    /**
+     * Standard XML tags. Tags are built when standard XML is used first time.
+     */
+    private static final class StandardXmlTags {
+        private static final GXIntStringMap TAGS;
+        private static final Map<String, Integer> TAGS_BY_NAME;
+
+        static {
+            HashMap<Integer, String> list = new HashMap<Integer, String>();
+            HashMap<String, Integer> names = new HashMap<String, Integer>();
+            getTags(TranslatorOutputType.STANDARD_XML, list, names);
+            TAGS = new GXIntStringMap(list);
+            TAGS_BY_NAME = Collections.unmodifiableMap(names);
+        }
+
+        private StandardXmlTags() {
+        }
+    }
+
     public final byte[] getPdu(final byte[] value) {
         return getPdu(new GXByteBuffer(value));
     }
@@ -2291,19 +2484,174 @@ public class GXDLMSTranslator {
      * @return Converted PDU in bytes.
      */
     public final byte[] xmlToPdu(final String xml) {
-        DocumentBuilder docBuilder;
         Document doc;
-        DocumentBuilderFactory docBuilderFactory =
-                DocumentBuilderFactory.newInstance();
         try {
-            docBuilder = docBuilderFactory.newDocumentBuilder();
+            DocumentBuilder docBuilder = DOCUMENT_BUILDERS.get();
+            docBuilder.reset();
             doc = docBuilder.parse(new InputSource(new StringReader(xml)));
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage());
         }
+        return xmlToPdu(doc.getDocumentElement());
+    }
+
+    /**
+     * Convert XML stream to PDUs. Stream can contain one PDU or a root element
+     * that contains multiple PDUs. Only one PDU is kept in memory at the time
+     * and PDUs are returned to the listener as soon as they are read.
+     * 
+     * @param xml
+     *            XML stream.
+     * @param listener
+     *            Listener where converted PDUs are returned.
+     * @return Amount of converted PDUs.
+     * @throws XMLStreamException
+     *             Invalid XML.
+     */
+    public final long xmlToPdu(final InputStream xml,
+            final IGXPduListener listener) throws XMLStreamException {
+        return xmlToPdu(INPUT_FACTORY.createXMLStreamReader(xml), listener);
+    }
+
+    /**
+     * Convert XML stream to PDUs. Stream can contain one PDU or a root element
+     * that contains multiple PDUs. Only one PDU is kept in memory at the time
+     * and PDUs are returned to the listener as soon as they are read.
+     * 
+     * @param xml
+     *            XML reader.
+     * @param listener
+     *            Listener where converted PDUs are returned.
+     * @return Amount of converted PDUs.
+     * @throws XMLStreamException
+     *             Invalid XML.
+     */
+    public final long xmlToPdu(final Reader xml,
+            final IGXPduListener listener) throws XMLStreamException {
+        return xmlToPdu(INPUT_FACTORY.createXMLStreamReader(xml), listener);
+    }
+
+    /**
+     * Convert XML stream to PDUs. Elements of each PDU are collected to a
+     * small document so the same node parser is used as with
+     * {@link #xmlToPdu(String)}.
+     * 
+     * @param reader
+     *            XML stream reader.
+     * @param listener
+     *            Listener where converted PDUs are returned.
+     * @return Amount of converted PDUs.
+     */
+    private long xmlToPdu(final XMLStreamReader reader,
+            final IGXPduListener listener) throws XMLStreamException {
+        if (listener == null) {
+            throw new IllegalArgumentException("listener");
+        }
+        DocumentBuilder builder = DOCUMENT_BUILDERS.get();
+        builder.reset();
+        Document doc = null;
+        Node current = null;
+        Node last;
+        Element e;
+        String name, str, prefix;
+        boolean root = true;
+        long index = 0;
+        try {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    name = reader.getLocalName();
+                    // If root element is not a known tag it contains PDUs.
+                    if (root) {
+                        root = false;
+                        if (outputType == TranslatorOutputType.SIMPLE_XML) {
+                            str = name.toLowerCase();
+                        } else {
+                            str = name;
+                        }
+                        if (!tagsByName.containsKey(str)) {
+                            break;
+                        }
+                    }
+                    if (current == null) {
+                        doc = builder.newDocument();
+                        current = doc;
+                    }
+                    e = doc.createElement(name);
+                    for (int pos = 0; pos < reader.getAttributeCount(); ++pos) {
+                        prefix = reader.getAttributePrefix(pos);
+                        if (prefix == null || prefix.length() == 0) {
+                            e.setAttribute(reader.getAttributeLocalName(pos),
+                                    reader.getAttributeValue(pos));
+                        } else {
+                            e.setAttribute(
+                                    prefix + ":"
+                                            + reader.getAttributeLocalName(pos),
+                                    reader.getAttributeValue(pos));
+                        }
+                    }
+                    current.appendChild(e);
+                    current = e;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (current != null) {
+                        current = current.getParentNode();
+                        if (current == doc) {
+                            listener.onPdu(index,
+                                    xmlToPdu(doc.getDocumentElement()));
+                            ++index;
+                            current = null;
+                            doc = null;
+                        }
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                    if (current != null && current != doc) {
+                        // Adjacent text is combined as DOM parser does.
+                        last = current.getLastChild();
+                        if (last != null
+                                && last.getNodeType() == Node.TEXT_NODE) {
+                            ((Text) last).appendData(reader.getText());
+                        } else {
+                            current.appendChild(
+                                    doc.createTextNode(reader.getText()));
+                        }
+                    }
+                    break;
+                case XMLStreamConstants.CDATA:
+                    if (current != null && current != doc) {
+                        current.appendChild(
+                                doc.createCDATASection(reader.getText()));
+                    }
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    if (current != null && current != doc) {
+                        current.appendChild(
+                                doc.createComment(reader.getText()));
+                    }
+                    break;
+                default:
+                    break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return index;
+    }
+
+    /**
+     * Convert XML node to byte array.
+     * 
+     * @param node
+     *            PDU node.
+     * @return Converted PDU in bytes.
+     */
+    private byte[] xmlToPdu(final Node node) {
         GXDLMSXmlSettings s = new GXDLMSXmlSettings(outputType, hex,
                 getShowStringAsHex(), tagsByName);
-        readNode(doc.getDocumentElement(), s);
+        readNode(node, s);
         GXByteBuffer bb = new GXByteBuffer();
         GXDLMSLNParameters ln;
         GXDLMSSNParameters sn;
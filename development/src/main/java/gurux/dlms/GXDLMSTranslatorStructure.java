@@ -34,8 +34,6 @@
 
 package gurux.dlms;
 
-import java.util.HashMap;
-
 import gurux.dlms.enums.DataType;
 import gurux.dlms.internal.GXCommon;
 
@@ -44,7 +42,7 @@ import gurux.dlms.internal.GXCommon;
  */
 public class GXDLMSTranslatorStructure {
     private StringBuilder sb = new StringBuilder();
-    private HashMap<Integer, String> tags;
+    private GXIntStringMap tags;
 
     private final TranslatorOutputType outputType;
     /**
@@ -107,7 +105,7 @@ public class GXDLMSTranslatorStructure {
      */
     GXDLMSTranslatorStructure(final TranslatorOutputType type,
             final boolean numericsAshex, final boolean hex,
-            final boolean addComments, final HashMap<Integer, String> list) {
+            final boolean addComments, final GXIntStringMap list) {
         outputType = type;
         showNumericsAsHex = numericsAshex;
         setShowStringAsHex(hex);
@@ -34,7 +34,7 @@
 
 package gurux.dlms;
 
-import java.util.HashMap;
+import java.util.Map;
 
 import gurux.dlms.enums.AssociationResult;
 import gurux.dlms.enums.InterfaceType;
@@ -51,7 +51,7 @@ class GXDLMSXmlSettings {
     private GXByteBuffer attributeDescriptor = new GXByteBuffer();
     private GXByteBuffer data = new GXByteBuffer();
     private GXDLMSSettings settings = new GXDLMSSettings(true);
-    private HashMap<String, Integer> tags = new HashMap<String, Integer>();
+    private Map<String, Integer> tags;
     private GXDateTime time = null;
     /**
      * Are numeric values shows as hex.
@@ -68,7 +68,7 @@ class GXDLMSXmlSettings {
      */
     GXDLMSXmlSettings(final TranslatorOutputType type,
             final boolean numericsAsHex, final boolean hex,
-            final HashMap<String, Integer> list) {
+            final Map<String, Integer> list) {
         outputType = type;
         showNumericsAsHex = outputType != TranslatorOutputType.STANDARD_XML
                 && numericsAsHex;
@@ -190,9 +190,9 @@ class GXDLMSXmlSettings {
     }
 
     /**
-     * @return the tags
+     * @return Read-only tags by name. Tags are shared by all translators.
      */
-    public final HashMap<String, Integer> getTags() {
+    public final Map<String, Integer> getTags() {
         return tags;
     }
 
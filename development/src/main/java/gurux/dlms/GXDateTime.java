@@ -42,12 +42,30 @@ import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import gurux.dlms.enums.ClockStatus;
 import gurux.dlms.enums.DateTimeSkips;
 import gurux.dlms.internal.GXCommon;
 
 public class GXDateTime {
+    /**
+     * Maximum deviation in minutes.
+     */
+    private static final int MAX_DEVIATION = 720;
+
+    /**
+     * Resolved time zones. Index is 2 * (deviation + 720) and one is added
+     * when daylight saving time is used.
+     */
+    private static final AtomicReferenceArray<TimeZone> TIME_ZONES =
+            new AtomicReferenceArray<TimeZone>(4 * MAX_DEVIATION + 2);
+
+    /**
+     * Default time zone ID when time zones were resolved.
+     */
+    private static volatile String timeZonesId;
+
     /**
      * Clock status.
      */
@@ -784,9 +802,53 @@ public class GXDateTime {
     public static TimeZone getTimeZone(final int deviation, final boolean dst) {
         // Return current time zone if time zone is not used.
         if (deviation == 0x8000 || deviation == -32768) {
-            return Calendar.getInstance().getTimeZone();
+            return TimeZone.getDefault();
+        }
+        if (deviation < -MAX_DEVIATION || deviation > MAX_DEVIATION) {
+            return resolveTimeZone(deviation, dst, TimeZone.getDefault());
+        }
+        TimeZone current = TimeZone.getDefault();
+        // Resolved time zones depend from the default time zone.
+        if (!current.getID().equals(timeZonesId)) {
+            synchronized (TIME_ZONES) {
+                if (!current.getID().equals(timeZonesId)) {
+                    for (int pos = 0; pos != TIME_ZONES.length(); ++pos) {
+                        TIME_ZONES.set(pos, null);
+                    }
+                    timeZonesId = current.getID();
+                }
+            }
         }
-        TimeZone tz = Calendar.getInstance().getTimeZone();
+        int index = 2 * (deviation + MAX_DEVIATION);
+        if (dst) {
+            ++index;
+        }
+        TimeZone tz = TIME_ZONES.get(index);
+        if (tz == null) {
+            tz = resolveTimeZone(deviation, dst, current);
+            if (tz == null) {
+                return null;
+            }
+            TIME_ZONES.compareAndSet(index, null, tz);
+        }
+        // Time zone is mutable. Return a copy.
+        return (TimeZone) tz.clone();
+    }
+
+    /**
+     * Find time zone for deviation.
+     * 
+     * @param deviation
+     *            Used deviation.
+     * @param dst
+     *            Is daylight saving time used.
+     * @param current
+     *            Time zone of this computer.
+     * @return Time zone.
+     */
+    private static TimeZone resolveTimeZone(final int deviation,
+            final boolean dst, final TimeZone current) {
+        TimeZone tz = current;
         if (dst) {
             // If meter is in same time zone than meter reading application.
             if (tz.observesDaylightTime()
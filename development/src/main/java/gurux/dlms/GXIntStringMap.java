@@ -0,0 +1,129 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms;
+
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Immutable open addressing map from integer to string. Keys are not boxed
+ * when values are searched. This class is reserved for internal use.
+ */
+final class GXIntStringMap {
+    /**
+     * Keys.
+     */
+    private final int[] keys;
+
+    /**
+     * Values. Null if slot is empty.
+     */
+    private final String[] values;
+
+    /**
+     * Mask that is used to get slot from the hash.
+     */
+    private final int mask;
+
+    /**
+     * Amount of items.
+     */
+    private final int size;
+
+    /**
+     * Constructor.
+     * 
+     * @param list
+     *            Items to add. Null values are not allowed.
+     */
+    GXIntStringMap(final Map<Integer, String> list) {
+        int capacity = 16;
+        // Keep load factor under 0.5 so probe sequences stay short.
+        while (capacity < 2 * list.size()) {
+            capacity <<= 1;
+        }
+        keys = new int[capacity];
+        values = new String[capacity];
+        mask = capacity - 1;
+        for (Entry<Integer, String> it : list.entrySet()) {
+            int key = it.getKey();
+            int pos = hash(key) & mask;
+            while (values[pos] != null) {
+                pos = (pos + 1) & mask;
+            }
+            keys[pos] = key;
+            values[pos] = it.getValue();
+        }
+        size = list.size();
+    }
+
+    /**
+     * Spread key bits so sequential keys don't collide.
+     * 
+     * @param key
+     *            Key.
+     * @return Hash.
+     */
+    private static int hash(final int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Get value.
+     * 
+     * @param key
+     *            Key.
+     * @return Value or null if key is not found.
+     */
+    String get(final int key) {
+        int pos = hash(key) & mask;
+        String value;
+        while ((value = values[pos]) != null) {
+            if (keys[pos] == key) {
+                return value;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * @return Amount of items.
+     */
+    int size() {
+        return size;
+    }
+}
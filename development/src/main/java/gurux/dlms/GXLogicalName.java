@@ -0,0 +1,264 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms;
+
+/**
+ * Immutable logical name. Logical name is stored as a 48-bit value and dotted
+ * string presentation is created only when it's needed.
+ */
+public final class GXLogicalName implements Comparable<GXLogicalName> {
+    /**
+     * Invalid logical name error message.
+     */
+    private static final String INVALID_LOGICAL_NAME =
+            "Invalid Logical name.";
+
+    /**
+     * Logical name as 48-bit value. First group is in the highest byte.
+     */
+    private final long value;
+
+    /**
+     * Logical name as a string. This is created when it's needed.
+     */
+    private String logicalName;
+
+    /**
+     * Constructor.
+     * 
+     * @param forValue
+     *            Logical name as 48-bit value.
+     */
+    private GXLogicalName(final long forValue) {
+        value = forValue;
+    }
+
+    /**
+     * Create logical name from 48-bit value.
+     * 
+     * @param value
+     *            Logical name as 48-bit value.
+     * @return Logical name.
+     */
+    public static GXLogicalName valueOf(final long value) {
+        if ((value & 0xFFFF000000000000L) != 0) {
+            throw new IllegalArgumentException(INVALID_LOGICAL_NAME);
+        }
+        return new GXLogicalName(value);
+    }
+
+    /**
+     * Create logical name from byte array.
+     * 
+     * @param value
+     *            Logical name as byte array. Null or empty array is handled
+     *            as 0.0.0.0.0.0.
+     * @return Logical name.
+     */
+    public static GXLogicalName valueOf(final byte[] value) {
+        if (value == null || value.length == 0) {
+            return new GXLogicalName(0);
+        }
+        if (value.length != 6) {
+            throw new IllegalArgumentException(INVALID_LOGICAL_NAME);
+        }
+        return new GXLogicalName(toLong(value, 0));
+    }
+
+    /**
+     * Create logical name from logical name string.
+     * 
+     * @param value
+     *            Logical name in a.b.c.d.e.f format. Null or empty string is
+     *            handled as 0.0.0.0.0.0.
+     * @return Logical name.
+     */
+    public static GXLogicalName valueOf(final String value) {
+        if (value == null) {
+            return new GXLogicalName(0);
+        }
+        String ln = value.trim();
+        if (ln.length() == 0) {
+            return new GXLogicalName(0);
+        }
+        long ret = 0;
+        int group = 0, count = 0, digits = 0;
+        char ch;
+        for (int pos = 0; pos != ln.length(); ++pos) {
+            ch = ln.charAt(pos);
+            if (ch == '.') {
+                if (digits == 0 || count == 5) {
+                    throw new IllegalArgumentException(INVALID_LOGICAL_NAME);
+                }
+                ret = (ret << 8) | group;
+                group = 0;
+                digits = 0;
+                ++count;
+            } else if (ch >= '0' && ch <= '9') {
+                group = 10 * group + (ch - '0');
+                if (group > 255) {
+                    throw new IllegalArgumentException(INVALID_LOGICAL_NAME);
+                }
+                ++digits;
+            } else {
+                throw new IllegalArgumentException(INVALID_LOGICAL_NAME);
+            }
+        }
+        if (digits == 0 || count != 5) {
+            throw new IllegalArgumentException(INVALID_LOGICAL_NAME);
+        }
+        GXLogicalName item = new GXLogicalName((ret << 8) | group);
+        if (ln.length() == value.length()) {
+            item.logicalName = value;
+        }
+        return item;
+    }
+
+    /**
+     * Read logical name from byte buffer.
+     * 
+     * @param buff
+     *            Byte buffer.
+     * @return Logical name.
+     */
+    public static GXLogicalName valueOf(final GXByteBuffer buff) {
+        long high = buff.getUInt16();
+        return new GXLogicalName((high << 32) | buff.getUInt32());
+    }
+
+    /**
+     * Convert logical name bytes to 48-bit value.
+     * 
+     * @param buff
+     *            Byte array.
+     * @param index
+     *            Position of the first byte.
+     * @return Logical name as 48-bit value.
+     */
+    public static long toLong(final byte[] buff, final int index) {
+        long ret = 0;
+        for (int pos = index; pos != index + 6; ++pos) {
+            ret = (ret << 8) | (buff[pos] & 0xFF);
+        }
+        return ret;
+    }
+
+    /**
+     * @return Logical name as 48-bit value.
+     */
+    public long getValue() {
+        return value;
+    }
+
+    /**
+     * Get value of logical name group.
+     * 
+     * @param index
+     *            Zero based group index. 0 is A and 5 is F.
+     * @return Group value.
+     */
+    public int getGroup(final int index) {
+        if (index < 0 || index > 5) {
+            throw new IllegalArgumentException("Invalid group index.");
+        }
+        return (int) (value >> (8 * (5 - index))) & 0xFF;
+    }
+
+    /**
+     * @return Logical name as byte array.
+     */
+    public byte[] toArray() {
+        byte[] buff = new byte[6];
+        for (int pos = 0; pos != 6; ++pos) {
+            buff[pos] = (byte) (value >> (8 * (5 - pos)));
+        }
+        return buff;
+    }
+
+    /**
+     * Add logical name to the byte buffer.
+     * 
+     * @param buff
+     *            Byte buffer.
+     */
+    public void toBuffer(final GXByteBuffer buff) {
+        buff.setUInt16((int) (value >> 32));
+        buff.setUInt32(value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return Logical name in a.b.c.d.e.f format.
+     */
+    @Override
+    public String toString() {
+        String str = logicalName;
+        if (str == null) {
+            StringBuilder sb = new StringBuilder(23);
+            for (int pos = 0; pos != 6; ++pos) {
+                if (pos != 0) {
+                    sb.append('.');
+                }
+                sb.append(getGroup(pos));
+            }
+            str = sb.toString();
+            logicalName = str;
+        }
+        return str;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj instanceof GXLogicalName) {
+            return ((GXLogicalName) obj).value == value;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (value ^ (value >>> 32));
+    }
+
+    @Override
+    public int compareTo(final GXLogicalName o) {
+        if (value < o.value) {
+            return -1;
+        }
+        if (value > o.value) {
+            return 1;
+        }
+        return 0;
+    }
+}
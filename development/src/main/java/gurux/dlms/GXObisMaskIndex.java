@@ -0,0 +1,308 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms;
+
+import java.util.Arrays;
+import java.util.List;
+
+import gurux.dlms.internal.GXCommon;
+
+/**
+ * Compiled masks of standard OBIS codes. For each OBIS group and value there
+ * is a bit set of codes that allow the value, and for each interface class
+ * there is a bit set of codes that allow the interface. Matching codes are
+ * found by combining these bit sets. Codes that can't be compiled are always
+ * returned and they are checked with the string masks. This class is reserved
+ * for internal use.
+ */
+final class GXObisMaskIndex {
+    /**
+     * Amount of values in OBIS group.
+     */
+    private static final int VALUE_COUNT = 256;
+
+    /**
+     * Codes by OBIS group and value. Index is group * 256 + value.
+     */
+    private final long[][] values;
+
+    /**
+     * Codes by interface class.
+     */
+    private final long[][] interfaces;
+
+    /**
+     * Codes that allow all interfaces or are not compiled.
+     */
+    private final long[] allInterfaces;
+
+    /**
+     * Codes that are not compiled.
+     */
+    private final long[] notCompiled;
+
+    /**
+     * Modification count of the collection when index was made.
+     */
+    private final int modificationCount;
+
+    /**
+     * Constructor.
+     * 
+     * @param codes
+     *            Standard OBIS codes.
+     * @param forModificationCount
+     *            Modification count of the collection.
+     */
+    GXObisMaskIndex(final List<GXStandardObisCode> codes,
+            final int forModificationCount) {
+        modificationCount = forModificationCount;
+        int cnt = codes.size();
+        int words = (cnt + 63) >> 6;
+        values = new long[6 * VALUE_COUNT][words];
+        allInterfaces = new long[words];
+        notCompiled = new long[words];
+        long[] obis = new long[6 * VALUE_COUNT / 64];
+        int[][] ids = new int[cnt][];
+        int max = 0;
+        for (int pos = 0; pos != cnt; ++pos) {
+            GXStandardObisCode it = codes.get(pos);
+            ids[pos] = compileInterfaces(it.getInterfaces());
+            if (compileObis(it.getOBIS(), obis)) {
+                for (int value = 0; value != 6 * VALUE_COUNT; ++value) {
+                    if (isSet(obis, value)) {
+                        set(values[value], pos);
+                    }
+                }
+            } else {
+                // Code is checked with the string masks.
+                set(notCompiled, pos);
+                ids[pos] = null;
+                for (long[] it2 : values) {
+                    set(it2, pos);
+                }
+            }
+            if (ids[pos] == null) {
+                set(allInterfaces, pos);
+            } else {
+                for (int id : ids[pos]) {
+                    max = Math.max(max, id);
+                }
+            }
+        }
+        interfaces = new long[max + 1][];
+        for (int pos = 0; pos != cnt; ++pos) {
+            if (ids[pos] != null) {
+                for (int id : ids[pos]) {
+                    if (interfaces[id] == null) {
+                        interfaces[id] = allInterfaces.clone();
+                    }
+                    set(interfaces[id], pos);
+                }
+            }
+        }
+    }
+
+    private static boolean isSet(final long[] bits, final int index) {
+        return (bits[index >> 6] & (1L << index)) != 0;
+    }
+
+    private static void set(final long[] bits, final int index) {
+        bits[index >> 6] |= 1L << index;
+    }
+
+    /**
+     * Compile OBIS code masks.
+     * 
+     * @param obis
+     *            OBIS code masks.
+     * @param bits
+     *            Allowed values of each group.
+     * @return False, if masks can't be compiled.
+     */
+    private static boolean compileObis(final String[] obis,
+            final long[] bits) {
+        if (obis == null || obis.length != 6) {
+            return false;
+        }
+        Arrays.fill(bits, 0);
+        try {
+            for (int pos = 0; pos != 6; ++pos) {
+                if (!compileMask(obis[pos], bits, pos * VALUE_COUNT)) {
+                    return false;
+                }
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Compile one OBIS group mask.
+     * 
+     * @return False, if mask contains values that can't be compiled.
+     */
+    private static boolean compileMask(final String mask, final long[] bits,
+            final int offset) {
+        if (mask == null) {
+            return false;
+        }
+        if (mask.equals("&")) {
+            set(bits, offset);
+            set(bits, offset + 1);
+            set(bits, offset + 7);
+            return true;
+        }
+        for (String it : GXCommon.split(mask, ',')) {
+            int start, end;
+            if (it.indexOf('-') != -1) {
+                List<String> tmp = GXCommon.split(it, '-');
+                start = Integer.parseInt(tmp.get(0));
+                end = Integer.parseInt(tmp.get(1));
+            } else {
+                start = Integer.parseInt(it);
+                end = start;
+            }
+            if (start < 0 || end >= VALUE_COUNT) {
+                return false;
+            }
+            for (int value = start; value <= end; ++value) {
+                set(bits, offset + value);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compile interfaces.
+     * 
+     * @param value
+     *            Interfaces separated with comma.
+     * @return Allowed interfaces or null if all interfaces are allowed.
+     */
+    private static int[] compileInterfaces(final String value) {
+        if (value == null) {
+            return new int[0];
+        }
+        if (value.equals("*")) {
+            return null;
+        }
+        List<String> list = GXCommon.split(value, ',');
+        int[] ids = new int[list.size()];
+        int cnt = 0;
+        for (String it : list) {
+            try {
+                int id = Integer.parseInt(it);
+                // Interface must be written as it's compared as a string.
+                if (id > 0 && it.equals(Integer.toString(id))) {
+                    ids[cnt] = id;
+                    ++cnt;
+                }
+            } catch (NumberFormatException e) {
+                // Interface is never matched.
+            }
+        }
+        return Arrays.copyOf(ids, cnt);
+    }
+
+    /**
+     * @return Modification count of the collection when index was made.
+     */
+    int getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * Find codes that match.
+     * 
+     * @param obisCode
+     *            OBIS code where all values are between 0 and 255.
+     * @param ic
+     *            Interface class. Zero if interface is not checked.
+     * @return Bit set of matching code indexes.
+     */
+    long[] find(final int[] obisCode, final int ic) {
+        long[] bits;
+        if (ic == 0) {
+            bits = values[obisCode[0]].clone();
+        } else {
+            if (ic > 0 && ic < interfaces.length && interfaces[ic] != null) {
+                bits = interfaces[ic].clone();
+            } else {
+                bits = allInterfaces.clone();
+            }
+            long[] tmp = values[obisCode[0]];
+            for (int pos = 0; pos != bits.length; ++pos) {
+                bits[pos] &= tmp[pos];
+            }
+        }
+        for (int group = 1; group != 6; ++group) {
+            long[] tmp = values[group * VALUE_COUNT + obisCode[group]];
+            for (int pos = 0; pos != bits.length; ++pos) {
+                bits[pos] &= tmp[pos];
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * @param index
+     *            Code index.
+     * @return Is code compiled.
+     */
+    boolean isCompiled(final int index) {
+        return !isSet(notCompiled, index);
+    }
+
+    /**
+     * Check that all OBIS values are between 0 and 255.
+     * 
+     * @param obisCode
+     *            OBIS code.
+     * @return True, if index can be used.
+     */
+    static boolean isValid(final int[] obisCode) {
+        if (obisCode == null || obisCode.length != 6) {
+            return false;
+        }
+        for (int it : obisCode) {
+            if (it < 0 || it >= VALUE_COUNT) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
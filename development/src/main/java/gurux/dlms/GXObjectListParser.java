@@ -0,0 +1,457 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms;
+
+import gurux.dlms.enums.AccessMode;
+import gurux.dlms.enums.DataType;
+import gurux.dlms.enums.MethodAccessMode;
+import gurux.dlms.enums.ObjectType;
+import gurux.dlms.internal.GXCommon;
+import gurux.dlms.internal.GXDataInfo;
+import gurux.dlms.objects.GXDLMSObject;
+import gurux.dlms.objects.GXDLMSObjectCollection;
+
+/**
+ * Parses association view straight from the received bytes without creating
+ * intermediate value arrays. Items that are not in the standard format are
+ * skipped instead of failing the whole association view. This class is
+ * reserved for internal use.
+ */
+final class GXObjectListParser {
+    /**
+     * Object types by class ID.
+     */
+    private static final ObjectType[] TYPES;
+
+    static {
+        int max = 0;
+        for (ObjectType it : ObjectType.values()) {
+            if (it.getValue() > max) {
+                max = it.getValue();
+            }
+        }
+        TYPES = new ObjectType[max + 1];
+        for (ObjectType it : ObjectType.values()) {
+            if (it != ObjectType.NONE) {
+                TYPES[it.getValue()] = it;
+            }
+        }
+    }
+
+    /**
+     * Constructor.
+     */
+    private GXObjectListParser() {
+
+    }
+
+    /**
+     * Get object type.
+     * 
+     * @param classId
+     *            Class ID.
+     * @return Object type or null if class ID is unknown.
+     */
+    private static ObjectType getObjectType(final int classId) {
+        if (classId < TYPES.length) {
+            return TYPES[classId];
+        }
+        return null;
+    }
+
+    /**
+     * Check that next item is structure with given count.
+     * 
+     * @param buff
+     *            Received data.
+     * @param count
+     *            Expected item count.
+     */
+    private static void readStructure(final GXByteBuffer buff,
+            final int count) {
+        if (buff.getUInt8() != DataType.STRUCTURE.getValue()
+                || GXCommon.getObjectCount(buff) != count) {
+            throw new GXDLMSException("Invalid structure format.");
+        }
+    }
+
+    /**
+     * Read array item count.
+     * 
+     * @param buff
+     *            Received data.
+     * @return Item count.
+     */
+    private static int readArray(final GXByteBuffer buff) {
+        if (buff.getUInt8() != DataType.ARRAY.getValue()) {
+            throw new GXDLMSException("Invalid structure format.");
+        }
+        return GXCommon.getObjectCount(buff);
+    }
+
+    /**
+     * Read integer, enumeration or boolean value.
+     * 
+     * @param buff
+     *            Received data.
+     * @return Value.
+     */
+    private static int readInt(final GXByteBuffer buff) {
+        DataType type = DataType.forValue(buff.getUInt8());
+        switch (type) {
+        case BOOLEAN:
+        case UINT8:
+        case ENUM:
+            return buff.getUInt8();
+        case INT8:
+            return buff.getInt8();
+        case UINT16:
+            return buff.getUInt16();
+        case INT16:
+            return buff.getInt16();
+        case UINT32:
+        case INT32:
+            return (int) buff.getUInt32();
+        case UINT64:
+        case INT64:
+            return (int) buff.getInt64();
+        case NONE:
+            return 0;
+        default:
+            throw new GXDLMSException("Invalid structure format.");
+        }
+    }
+
+    /**
+     * Read logical name.
+     * 
+     * @param buff
+     *            Received data.
+     * @return Logical name. Empty octet string is handled as 0.0.0.0.0.0.
+     */
+    private static GXLogicalName readLogicalName(final GXByteBuffer buff) {
+        if (buff.getUInt8() != DataType.OCTET_STRING.getValue()) {
+            throw new GXDLMSException("Invalid structure format.");
+        }
+        int cnt = GXCommon.getObjectCount(buff);
+        if (cnt == 0) {
+            return GXLogicalName.valueOf(0);
+        }
+        if (cnt != 6) {
+            throw new GXDLMSException("Invalid structure format.");
+        }
+        return GXLogicalName.valueOf(buff);
+    }
+
+    /**
+     * Skip next value.
+     * 
+     * @param buff
+     *            Received data.
+     */
+    private static void skip(final GXByteBuffer buff) {
+        if (buff.getUInt8(buff.position()) == DataType.NONE.getValue()) {
+            buff.getUInt8();
+        } else {
+            GXCommon.getData(buff, new GXDataInfo());
+        }
+    }
+
+    /**
+     * Get integer value of parsed access right item.
+     * 
+     * @param value
+     *            Parsed value.
+     * @return Integer value or -1 if value is not a number or boolean.
+     */
+    private static int toInt(final Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof Boolean) {
+            if (((Boolean) value).booleanValue()) {
+                return 1;
+            }
+            return 0;
+        }
+        return -1;
+    }
+
+    /**
+     * Update access rights that are not in the standard format. Items that
+     * are not understood are skipped.
+     * 
+     * @param obj
+     *            COSEM object.
+     * @param value
+     *            Parsed access rights.
+     */
+    private static void updateAccessRights(final GXDLMSObject obj,
+            final Object value) {
+        if (!(value instanceof Object[]) || ((Object[]) value).length != 2) {
+            return;
+        }
+        Object[] access = (Object[]) value;
+        Object[] item;
+        int id;
+        if (access[0] instanceof Object[]) {
+            for (Object it : (Object[]) access[0]) {
+                if (it instanceof Object[] && ((Object[]) it).length > 1) {
+                    item = (Object[]) it;
+                    id = toInt(item[0]);
+                    // Kamstrup is returning -1 here.
+                    if (id > 0) {
+                        obj.setAccess(id, AccessMode.forValue(toInt(item[1])));
+                    }
+                }
+            }
+        }
+        if (access[1] instanceof Object[]) {
+            for (Object it : (Object[]) access[1]) {
+                if (it instanceof Object[] && ((Object[]) it).length > 1) {
+                    item = (Object[]) it;
+                    id = toInt(item[0]);
+                    if (id > 0) {
+                        obj.setMethodAccess(id,
+                                MethodAccessMode.forValue(toInt(item[1])));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Read access rights and update them to the object. Access rights that
+     * are not in the standard format are read as generic value and items that
+     * are understood are used.
+     * 
+     * @param buff
+     *            Received data.
+     * @param obj
+     *            COSEM object. Null if access rights are skipped.
+     */
+    private static void readAccessRights(final GXByteBuffer buff,
+            final GXDLMSObject obj) {
+        int start = buff.position();
+        try {
+            readStandardAccessRights(buff, obj);
+        } catch (GXDLMSException | IllegalArgumentException e) {
+            buff.position(start);
+            Object value = GXCommon.getData(buff, new GXDataInfo());
+            if (obj != null) {
+                updateAccessRights(obj, value);
+            }
+        }
+    }
+
+    /**
+     * Read access rights in the standard format and update them to the
+     * object.
+     * 
+     * @param buff
+     *            Received data.
+     * @param obj
+     *            COSEM object. Null if access rights are skipped.
+     */
+    private static void readStandardAccessRights(final GXByteBuffer buff,
+            final GXDLMSObject obj) {
+        readStructure(buff, 2);
+        int id, mode;
+        // attribute_access_descriptor
+        int cnt = readArray(buff);
+        for (int pos = 0; pos != cnt; ++pos) {
+            readStructure(buff, 3);
+            id = readInt(buff);
+            mode = readInt(buff);
+            // Access selectors.
+            skip(buff);
+            // Kamstrup is returning -1 here.
+            if (obj != null && id > 0) {
+                obj.setAccess(id, AccessMode.forValue(mode));
+            }
+        }
+        // method_access_descriptor
+        cnt = readArray(buff);
+        for (int pos = 0; pos != cnt; ++pos) {
+            readStructure(buff, 2);
+            id = readInt(buff);
+            mode = readInt(buff);
+            if (obj != null) {
+                obj.setMethodAccess(id, MethodAccessMode.forValue(mode));
+            }
+        }
+    }
+
+    /**
+     * Create COSEM object.
+     * 
+     * @param classId
+     *            Class ID.
+     * @param version
+     *            Object version.
+     * @param ln
+     *            Logical name.
+     * @param onlyKnownObjects
+     *            Only known objects are created.
+     * @param filter
+     *            Object filter. Null if all objects are created.
+     * @return Created object or null if object is skipped.
+     */
+    private static GXDLMSObject createObject(final int classId,
+            final int version, final GXLogicalName ln,
+            final boolean onlyKnownObjects, final IGXObjectFilter filter) {
+        ObjectType type = getObjectType(classId);
+        if (filter != null && !filter.accept(type, classId, version, ln)) {
+            return null;
+        }
+        GXDLMSObject obj = GXDLMS.createObject(type);
+        if (onlyKnownObjects && obj.getClass() == GXDLMSObject.class) {
+            System.out.println("Unknown object : " + classId + " " + ln);
+            return null;
+        }
+        if (type != null) {
+            obj.setObjectType(type);
+        }
+        obj.setVersion(version);
+        obj.setLN(ln);
+        return obj;
+    }
+
+    /**
+     * Parse LN objects.
+     * 
+     * @param buff
+     *            Byte stream where objects are parsed.
+     * @param items
+     *            Collection where parsed objects are added.
+     * @param onlyKnownObjects
+     *            Only known objects are parsed.
+     * @param filter
+     *            Object filter. Null if all objects are parsed.
+     */
+    static void parseLNObjects(final GXByteBuffer buff,
+            final GXDLMSObjectCollection items,
+            final boolean onlyKnownObjects, final IGXObjectFilter filter) {
+        // Get array tag.
+        if (buff.getUInt8() != DataType.ARRAY.getValue()) {
+            throw new GXDLMSException("Invalid response.");
+        }
+        int cnt = GXCommon.getObjectCount(buff);
+        items.ensureCapacity(items.size() + cnt);
+        for (int objPos = 0; objPos != cnt; ++objPos) {
+            // Some meters give wrong item count.
+            // This fix Iskraemeco (MT-880) bug.
+            if (buff.position() == buff.size()) {
+                break;
+            }
+            int start = buff.position();
+            int classId, version;
+            GXLogicalName ln;
+            try {
+                readStructure(buff, 4);
+                classId = readInt(buff) & 0xFFFF;
+                version = readInt(buff);
+                ln = readLogicalName(buff);
+            } catch (GXDLMSException | IllegalArgumentException e) {
+                // Skip invalid item.
+                buff.position(start);
+                skip(buff);
+                continue;
+            }
+            GXDLMSObject obj = null;
+            if (classId > 0) {
+                obj = createObject(classId, version, ln, onlyKnownObjects,
+                        filter);
+            }
+            readAccessRights(buff, obj);
+            if (obj != null) {
+                items.add(obj);
+            }
+        }
+    }
+
+    /**
+     * Parse SN objects.
+     * 
+     * @param buff
+     *            Byte stream where objects are parsed.
+     * @param items
+     *            Collection where parsed objects are added.
+     * @param onlyKnownObjects
+     *            Only known objects are parsed.
+     * @param filter
+     *            Object filter. Null if all objects are parsed.
+     */
+    static void parseSNObjects(final GXByteBuffer buff,
+            final GXDLMSObjectCollection items,
+            final boolean onlyKnownObjects, final IGXObjectFilter filter) {
+        // Get array tag.
+        buff.position(0);
+        if (buff.getUInt8() != DataType.ARRAY.getValue()) {
+            throw new GXDLMSException("Invalid response.");
+        }
+        int cnt = GXCommon.getObjectCount(buff);
+        items.ensureCapacity(items.size() + cnt);
+        for (int objPos = 0; objPos != cnt; ++objPos) {
+            // Some meters give wrong item count.
+            if (buff.position() == buff.size()) {
+                break;
+            }
+            int start = buff.position();
+            int baseName, classId, version;
+            GXLogicalName ln;
+            try {
+                readStructure(buff, 4);
+                baseName = readInt(buff) & 0xFFFF;
+                classId = readInt(buff) & 0xFFFF;
+                version = readInt(buff);
+                ln = readLogicalName(buff);
+            } catch (GXDLMSException | IllegalArgumentException e) {
+                // Skip invalid item.
+                buff.position(start);
+                skip(buff);
+                continue;
+            }
+            if (baseName > 0) {
+                GXDLMSObject obj = createObject(classId, version, ln,
+                        onlyKnownObjects, filter);
+                if (obj != null) {
+                    obj.setShortName(baseName);
+                    items.add(obj);
+                }
+            }
+        }
+    }
+}
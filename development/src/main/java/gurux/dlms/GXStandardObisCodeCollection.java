@@ -49,6 +49,12 @@ class GXStandardObisCodeCollection
      */
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Compiled OBIS masks. Index is made again when codes are added or
+     * removed.
+     */
+    private transient volatile GXObisMaskIndex index;
+
     /*
      * Convert Logical name string to bytes.
      */
@@ -97,7 +103,7 @@ class GXStandardObisCodeCollection
             return true;
         }
         return GXCommon.split(it.getInterfaces(), ',')
-                .contains((new Integer(ic)).toString());
+                .contains(Integer.toString(ic));
     }
 
     /**
@@ -423,96 +429,34 @@ class GXStandardObisCodeCollection
     public final GXStandardObisCode[] find(final int[] obisCode, final int ic) {
         GXStandardObisCode tmp;
         List<GXStandardObisCode> list = new ArrayList<GXStandardObisCode>();
-
-        for (GXStandardObisCode it : this) {
-            // Interface is tested first because it's faster.
-            if (equalsInterface(it, ic)
-                    && equalsObisCode(it.getOBIS(), obisCode)) {
-                tmp = new GXStandardObisCode(it.getOBIS(), it.getDescription(),
-                        it.getInterfaces(), it.getDataType());
-                list.add(tmp);
-                List<String> tmp2 = GXCommon.split(it.getDescription(), ';');
-                if (tmp2.size() > 1) {
-                    String desc = "";
-                    if (obisCode != null && "$1".equals(tmp2.get(1).trim())) {
-                        if (obisCode[0] == 7) {
-                            desc = getN1CDescription("$" + obisCode[2]);
-                        } else {
-                            desc = getDescription("$" + obisCode[2]);
-                        }
-                    }
-                    if (!desc.equals("")) {
-                        tmp2.set(1, desc);
-                        StringBuilder builder = new StringBuilder();
-                        for (String s : tmp2) {
-                            if (builder.capacity() != 0) {
-                                builder.append(";");
-                            }
-                            builder.append(s);
-                        }
-                        tmp.setDescription(builder.toString());
+        if (GXObisMaskIndex.isValid(obisCode)) {
+            GXObisMaskIndex masks = getIndex();
+            long[] found = masks.find(obisCode, ic);
+            for (int word = 0; word != found.length; ++word) {
+                long bits = found[word];
+                while (bits != 0) {
+                    int pos = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    GXStandardObisCode it = get(pos);
+                    if (masks.isCompiled(pos) || (equalsInterface(it, ic)
+                            && equalsObisCode(it.getOBIS(), obisCode))) {
+                        add(list, it, obisCode);
                     }
                 }
-
-                if (obisCode != null) {
-                    String[] obis = tmp.getOBIS();
-                    obis[0] = Integer.toString(obisCode[0]);
-                    obis[1] = Integer.toString(obisCode[1]);
-                    obis[2] = Integer.toString(obisCode[2]);
-                    obis[3] = Integer.toString(obisCode[3]);
-                    obis[4] = Integer.toString(obisCode[4]);
-                    obis[5] = Integer.toString(obisCode[5]);
-
-                    tmp.setOBIS(obis);
-                    String desc = tmp.getDescription();
-                    desc = desc.replace("$A", Integer.toString(obisCode[0]));
-                    desc = desc.replace("$B", Integer.toString(obisCode[1]));
-                    desc = desc.replace("$C", Integer.toString(obisCode[2]));
-                    desc = desc.replace("$D", Integer.toString(obisCode[3]));
-                    desc = desc.replace("$E", Integer.toString(obisCode[4]));
-                    desc = desc.replace("$F", Integer.toString(obisCode[5]));
-                    // Increase value
-                    int begin = desc.indexOf("$(");
-                    if (begin != -1) {
-                        List<String> arr =
-                                GXCommon.split(desc.substring(begin + 2),
-                                        new char[] { '(', ')', '$' });
-                        desc = desc.substring(0, begin);
-                        for (String v : arr) {
-                            switch (v.charAt(0)) {
-                            case 'A':
-                                desc += getObisValue(v, obisCode[0]);
-                                break;
-                            case 'B':
-                                desc += getObisValue(v, obisCode[1]);
-                                break;
-                            case 'C':
-                                desc += getObisValue(v, obisCode[2]);
-                                break;
-                            case 'D':
-                                desc += getObisValue(v, obisCode[3]);
-                                break;
-                            case 'E':
-                                desc += getObisValue(v, obisCode[4]);
-                                break;
-                            case 'F':
-                                desc += getObisValue(v, obisCode[5]);
-                                break;
-                            default:
-                                desc += v;
-                                break;
-                            }
-                        }
-                    }
-                    desc = desc.replace(';', ' ').replace("  ", " ").trim();
-                    tmp.setDescription(desc);
+            }
+        } else {
+            for (GXStandardObisCode it : this) {
+                // Interface is tested first because it's faster.
+                if (equalsInterface(it, ic)
+                        && equalsObisCode(it.getOBIS(), obisCode)) {
+                    add(list, it, obisCode);
                 }
             }
         }
         // If invalid OBIS code.
         if (list.size() == 0) {
             tmp = new GXStandardObisCode(null, "Invalid",
-                    (new Integer(ic)).toString(), "");
+                    Integer.toString(ic), "");
             String[] obis = tmp.getOBIS();
             obis[0] = Integer.toString(obisCode[0]);
             obis[1] = Integer.toString(obisCode[1]);
@@ -525,4 +469,116 @@ class GXStandardObisCodeCollection
         }
         return list.toArray(new GXStandardObisCode[list.size()]);
     }
+
+    /**
+     * Get compiled OBIS masks.
+     * 
+     * @return Compiled masks.
+     */
+    private GXObisMaskIndex getIndex() {
+        GXObisMaskIndex tmp = index;
+        if (tmp == null || tmp.getModificationCount() != modCount) {
+            tmp = new GXObisMaskIndex(this, modCount);
+            index = tmp;
+        }
+        return tmp;
+    }
+
+    /**
+     * Add found standard OBIS code to the list.
+     * 
+     * @param list
+     *            Found codes.
+     * @param it
+     *            Matching standard OBIS code.
+     * @param obisCode
+     *            Searched OBIS code.
+     */
+    private void add(final List<GXStandardObisCode> list,
+            final GXStandardObisCode it, final int[] obisCode) {
+        GXStandardObisCode tmp = new GXStandardObisCode(it.getOBIS(),
+                it.getDescription(), it.getInterfaces(), it.getDataType());
+        list.add(tmp);
+        // Description is split only if it's updated by the value of group C.
+        List<String> tmp2;
+        if (obisCode != null && it.getDescription().indexOf("$1") != -1) {
+            tmp2 = GXCommon.split(it.getDescription(), ';');
+        } else {
+            tmp2 = null;
+        }
+        if (tmp2 != null && tmp2.size() > 1) {
+            String desc = "";
+            if (obisCode != null && "$1".equals(tmp2.get(1).trim())) {
+                if (obisCode[0] == 7) {
+                    desc = getN1CDescription("$" + obisCode[2]);
+                } else {
+                    desc = getDescription("$" + obisCode[2]);
+                }
+            }
+            if (!desc.equals("")) {
+                tmp2.set(1, desc);
+                StringBuilder builder = new StringBuilder();
+                for (String s : tmp2) {
+                    if (builder.capacity() != 0) {
+                        builder.append(";");
+                    }
+                    builder.append(s);
+                }
+                tmp.setDescription(builder.toString());
+            }
+        }
+
+        if (obisCode != null) {
+            String[] obis = tmp.getOBIS();
+            obis[0] = Integer.toString(obisCode[0]);
+            obis[1] = Integer.toString(obisCode[1]);
+            obis[2] = Integer.toString(obisCode[2]);
+            obis[3] = Integer.toString(obisCode[3]);
+            obis[4] = Integer.toString(obisCode[4]);
+            obis[5] = Integer.toString(obisCode[5]);
+
+            tmp.setOBIS(obis);
+            String desc = tmp.getDescription();
+            desc = desc.replace("$A", Integer.toString(obisCode[0]));
+            desc = desc.replace("$B", Integer.toString(obisCode[1]));
+            desc = desc.replace("$C", Integer.toString(obisCode[2]));
+            desc = desc.replace("$D", Integer.toString(obisCode[3]));
+            desc = desc.replace("$E", Integer.toString(obisCode[4]));
+            desc = desc.replace("$F", Integer.toString(obisCode[5]));
+            // Increase value
+            int begin = desc.indexOf("$(");
+            if (begin != -1) {
+                List<String> arr = GXCommon.split(desc.substring(begin + 2),
+                        new char[] { '(', ')', '$' });
+                desc = desc.substring(0, begin);
+                for (String v : arr) {
+                    switch (v.charAt(0)) {
+                    case 'A':
+                        desc += getObisValue(v, obisCode[0]);
+                        break;
+                    case 'B':
+                        desc += getObisValue(v, obisCode[1]);
+                        break;
+                    case 'C':
+                        desc += getObisValue(v, obisCode[2]);
+                        break;
+                    case 'D':
+                        desc += getObisValue(v, obisCode[3]);
+                        break;
+                    case 'E':
+                        desc += getObisValue(v, obisCode[4]);
+                        break;
+                    case 'F':
+                        desc += getObisValue(v, obisCode[5]);
+                        break;
+                    default:
+                        desc += v;
+                        break;
+                    }
+                }
+            }
+            desc = desc.replace(';', ' ').replace("  ", " ").trim();
+            tmp.setDescription(desc);
+        }
+    }
 }
\ No newline at end of file
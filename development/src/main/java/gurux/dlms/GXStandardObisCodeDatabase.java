@@ -0,0 +1,373 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import gurux.dlms.internal.GXCommon;
+
+/**
+ * Standard OBIS code database. Build converts OBISCodes.txt to binary
+ * OBISCodes.bin that contains a string pool and fixed size records. Binary
+ * database is memory mapped when it's available as a file and codes are read
+ * without parsing. Text file is used if binary database is not available.
+ * Codes are read once and shared by all converters. This class is reserved
+ * for internal use.
+ */
+final class GXStandardObisCodeDatabase {
+    /**
+     * Binary database identifier.
+     */
+    private static final int MAGIC = 0x47584F42;
+
+    /**
+     * Binary database version.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Amount of string indexes in one record.
+     */
+    private static final int RECORD_SIZE = 9;
+
+    /**
+     * Text database.
+     */
+    private static final String TEXT_NAME = "/OBISCodes.txt";
+
+    /**
+     * Binary database.
+     */
+    private static final String BINARY_NAME = "/OBISCodes.bin";
+
+    /**
+     * Both databases are saved as UTF-8.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Codes are read when they are used first time.
+     */
+    private static final class Holder {
+        /**
+         * Standard OBIS codes.
+         */
+        private static final GXStandardObisCodeCollection CODES = load();
+
+        /**
+         * Constructor.
+         */
+        private Holder() {
+        }
+    }
+
+    /**
+     * Constructor.
+     */
+    private GXStandardObisCodeDatabase() {
+    }
+
+    /**
+     * @return Shared collection of standard OBIS codes.
+     */
+    static GXStandardObisCodeCollection getCodes() {
+        return Holder.CODES;
+    }
+
+    /**
+     * Read standard OBIS codes.
+     * 
+     * @return Collection of standard OBIS codes.
+     */
+    private static GXStandardObisCodeCollection load() {
+        GXStandardObisCodeCollection codes = new GXStandardObisCodeCollection();
+        try {
+            ByteBuffer data = readBinary();
+            if (data != null && data.remaining() >= 8
+                    && data.getInt() == MAGIC && data.getInt() == VERSION) {
+                readBinary(data, codes);
+                return codes;
+            }
+        } catch (IOException e) {
+            codes.clear();
+        } catch (RuntimeException e) {
+            // Binary database is corrupted. Text database is used.
+            codes.clear();
+        }
+        InputStream stream =
+                GXDLMSClient.class.getResourceAsStream(TEXT_NAME);
+        if (stream != null) {
+            try {
+                try {
+                    readText(readAll(stream), codes);
+                } finally {
+                    stream.close();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e.getMessage());
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * Memory map binary database or read it if it's not a file.
+     * 
+     * @return Binary database or null if it's not available.
+     */
+    private static ByteBuffer readBinary() throws IOException {
+        URL url = GXDLMSClient.class.getResource(BINARY_NAME);
+        if (url == null) {
+            return null;
+        }
+        if ("file".equals(url.getProtocol())) {
+            File file;
+            try {
+                file = new File(url.toURI());
+            } catch (URISyntaxException e) {
+                file = new File(url.getPath());
+            }
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                FileChannel channel = raf.getChannel();
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                        channel.size());
+            } finally {
+                raf.close();
+            }
+        }
+        // Database is inside of the jar.
+        InputStream stream = url.openStream();
+        try {
+            return ByteBuffer.wrap(readAll(stream));
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Read all bytes from the stream.
+     */
+    private static byte[] readAll(final InputStream stream)
+            throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        int nRead;
+        byte[] data = new byte[4096];
+        while ((nRead = stream.read(data, 0, data.length)) != -1) {
+            buffer.write(data, 0, nRead);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Read codes from the binary database.
+     * 
+     * @param data
+     *            Binary database after the header.
+     * @param codes
+     *            Collection where codes are added.
+     */
+    private static void readBinary(final ByteBuffer data,
+            final GXStandardObisCodeCollection codes) {
+        String[] strings = new String[data.getInt()];
+        byte[] tmp = new byte[256];
+        for (int pos = 0; pos != strings.length; ++pos) {
+            int len = data.getShort() & 0xFFFF;
+            if (tmp.length < len) {
+                tmp = new byte[len];
+            }
+            data.get(tmp, 0, len);
+            strings[pos] = new String(tmp, 0, len, UTF8);
+        }
+        int count = data.getInt();
+        codes.ensureCapacity(count);
+        String[] obis = new String[6];
+        for (int pos = 0; pos != count; ++pos) {
+            for (int index = 0; index != 6; ++index) {
+                obis[index] = strings[data.getShort() & 0xFFFF];
+            }
+            String interfaces = strings[data.getShort() & 0xFFFF];
+            String dataType = strings[data.getShort() & 0xFFFF];
+            String description = strings[data.getShort() & 0xFFFF];
+            codes.add(new GXStandardObisCode(obis, description, interfaces,
+                    dataType));
+        }
+    }
+
+    /**
+     * Read codes from the text database.
+     * 
+     * @param data
+     *            Content of the text database.
+     * @param codes
+     *            Collection where codes are added.
+     */
+    private static void readText(final byte[] data,
+            final GXStandardObisCodeCollection codes) {
+        String str = new String(data, UTF8);
+        // File might be saved with Unix line endings.
+        List<String> rows = GXCommon.split(str, '\n');
+        for (String row : rows) {
+            String it = row;
+            if (it.endsWith("\r")) {
+                it = it.substring(0, it.length() - 1);
+            }
+            if (!it.isEmpty()) {
+                List<String> items = GXCommon.split(it, ';');
+                List<String> obis = GXCommon.split(items.get(0), '.');
+                GXStandardObisCode code = new GXStandardObisCode(
+                        obis.toArray(new String[0]),
+                        items.get(3) + "; " + items.get(4) + "; " + items.get(5)
+                                + "; " + items.get(6) + "; " + items.get(7),
+                        items.get(1), items.get(2));
+                codes.add(code);
+            }
+        }
+    }
+
+    /**
+     * Write codes to the binary database.
+     * 
+     * @param codes
+     *            Standard OBIS codes.
+     * @param stream
+     *            Output stream.
+     * @throws IOException
+     *             IO exception.
+     */
+    static void write(final List<GXStandardObisCode> codes,
+            final OutputStream stream) throws IOException {
+        List<String> strings = new ArrayList<String>();
+        Map<String, Integer> indexes = new HashMap<String, Integer>();
+        int[] records = new int[codes.size() * RECORD_SIZE];
+        int pos = 0;
+        for (GXStandardObisCode it : codes) {
+            String[] obis = it.getOBIS();
+            for (int index = 0; index != 6; ++index) {
+                records[pos] = getIndex(obis[index], strings, indexes);
+                ++pos;
+            }
+            records[pos] = getIndex(it.getInterfaces(), strings, indexes);
+            ++pos;
+            records[pos] = getIndex(it.getDataType(), strings, indexes);
+            ++pos;
+            records[pos] = getIndex(it.getDescription(), strings, indexes);
+            ++pos;
+        }
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(strings.size());
+        for (String it : strings) {
+            byte[] tmp = it.getBytes(UTF8);
+            if (tmp.length > 0xFFFF) {
+                throw new IllegalArgumentException("String is too long.");
+            }
+            out.writeShort(tmp.length);
+            out.write(tmp);
+        }
+        out.writeInt(codes.size());
+        for (int it : records) {
+            out.writeShort(it);
+        }
+        out.flush();
+    }
+
+    /**
+     * Get index of the string in the string pool.
+     */
+    private static int getIndex(final String value, final List<String> strings,
+            final Map<String, Integer> indexes) {
+        String str = value;
+        if (str == null) {
+            str = "";
+        }
+        Integer index = indexes.get(str);
+        if (index == null) {
+            if (strings.size() > 0xFFFF) {
+                throw new IllegalArgumentException("Too many strings.");
+            }
+            index = strings.size();
+            strings.add(str);
+            indexes.put(str, index);
+        }
+        return index;
+    }
+
+    /**
+     * Convert text database to binary database. This is called by the build.
+     * 
+     * @param args
+     *            Text database and binary database file names.
+     * @throws IOException
+     *             IO exception.
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException(
+                    "Usage: GXStandardObisCodeDatabase <txt> <bin>");
+        }
+        GXStandardObisCodeCollection codes = new GXStandardObisCodeCollection();
+        InputStream in = new FileInputStream(args[0]);
+        try {
+            readText(readAll(in), codes);
+        } finally {
+            in.close();
+        }
+        OutputStream out = new FileOutputStream(args[1]);
+        try {
+            write(codes, out);
+        } finally {
+            out.close();
+        }
+    }
+}
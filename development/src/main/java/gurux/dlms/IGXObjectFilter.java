@@ -32,41 +32,27 @@
 // Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
 //---------------------------------------------------------------------------
 
-package gurux.dlms.objects;
+package gurux.dlms;
 
-import gurux.dlms.GXDLMSServerBase;
-import gurux.dlms.internal.AutoResetEvent;
+import gurux.dlms.enums.ObjectType;
 
-/*
- * This class is reserved for internal use. Do not use.
+/**
+ * Object filter is used to select which COSEM objects are created when
+ * association view is parsed.
  */
-final class GXProfileGenericUpdater extends Thread {
-    private GXDLMSServerBase server;
-    private GXDLMSProfileGeneric target;
-
-    private AutoResetEvent receivedEvent;
-
-    public AutoResetEvent getReceivedEvent() {
-        return receivedEvent;
-    }
-
-    /*
-     * Constructor.
+public interface IGXObjectFilter {
+    /**
+     * Is object created.
+     * 
+     * @param type
+     *            Object type. Null if class ID is unknown.
+     * @param classId
+     *            Class ID.
+     * @param version
+     *            Object version.
+     * @param ln
+     *            Logical name.
+     * @return True, if object is created.
      */
-    GXProfileGenericUpdater(final GXDLMSServerBase svr,
-            final GXDLMSProfileGeneric pg) {
-        receivedEvent = new AutoResetEvent(false);
-        target = pg;
-        server = svr;
-    }
-
-    public void run() {
-        do {
-            try {
-                target.capture(server);
-            } catch (Exception ex) {
-                System.out.printf(ex.getMessage());
-            }
-        } while (!receivedEvent.waitOne(target.getCapturePeriod() * 1000));
-    }
-}
\ No newline at end of file
+    boolean accept(ObjectType type, int classId, int version, GXLogicalName ln);
+}
@@ -93,6 +93,11 @@ public class ValueEventArgs {
      */
     private boolean byteArray = false;
 
+    /**
+     * Is attribute value changed in read callback.
+     */
+    private boolean valueChanged;
+
     /**
      * Row to PDU is used with Profile Generic to tell how many rows are fit to
      * one PDU.
@@ -353,6 +358,25 @@ public class ValueEventArgs {
         byteArray = value;
     }
 
+    /**
+     * @return Is attribute value changed in read callback.
+     */
+    public final boolean isValueChanged() {
+        return valueChanged;
+    }
+
+    /**
+     * Set in read callback when attribute value of the object is updated
+     * before it's read. Server publishes the new value to the snapshot
+     * before it's returned to the client.
+     * 
+     * @param value
+     *            Is attribute value changed in read callback.
+     */
+    public final void setValueChanged(final boolean value) {
+        valueChanged = value;
+    }
+
     /**
      * @return How many rows are read to one PDU.
      */
@@ -199,7 +199,7 @@ public final class GXAsn1Converter {
         return sb.toString();
     }
 
-    private static void getValue(final GXByteBuffer bb,
+    static void getValue(final GXByteBuffer bb,
             final List<Object> objects, final GXAsn1Settings s) {
         int len;
         short type;
@@ -0,0 +1,315 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+package gurux.dlms.asn;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import gurux.dlms.GXByteBuffer;
+import gurux.dlms.asn.enums.X509Name;
+import gurux.dlms.enums.BerType;
+import gurux.dlms.internal.GXCommon;
+
+/**
+ * Streaming DER reader. Reader is a cursor over the bytes and values are read
+ * in the order they are encoded without building object trees. Constructed
+ * values are entered and the end position that is returned is used to check
+ * if there are more values and to leave the value.
+ */
+public final class GXAsn1Reader {
+    /**
+     * Encoded bytes.
+     */
+    private final GXByteBuffer data;
+
+    /**
+     * Constructor.
+     * 
+     * @param value
+     *            DER encoded bytes.
+     */
+    public GXAsn1Reader(final byte[] value) {
+        this(new GXByteBuffer(value));
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param value
+     *            DER encoded bytes. Reading starts from the current position.
+     */
+    public GXAsn1Reader(final GXByteBuffer value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value");
+        }
+        data = value;
+    }
+
+    /**
+     * @return Current position.
+     */
+    public int position() {
+        return data.position();
+    }
+
+    /**
+     * @return Tag of the next value.
+     */
+    public int peekTag() {
+        if (data.position() == data.size()) {
+            throw new IllegalArgumentException("End of data.");
+        }
+        return data.getUInt8(data.position());
+    }
+
+    /**
+     * Is there more values before the end position.
+     * 
+     * @param end
+     *            End position of the constructed value.
+     * @return True, if there are more values.
+     */
+    public boolean hasMore(final int end) {
+        return data.position() < end;
+    }
+
+    /**
+     * Move to the end of the constructed value. Values that are not read are
+     * skipped.
+     * 
+     * @param end
+     *            End position of the constructed value.
+     */
+    public void leave(final int end) {
+        data.position(end);
+    }
+
+    /**
+     * Read tag and length.
+     * 
+     * @param tag
+     *            Expected tag.
+     * @return Length of the content.
+     */
+    private int readHeader(final int tag) {
+        int type = data.getUInt8();
+        if (type != tag) {
+            throw new IllegalArgumentException("Invalid type: " + type
+                    + ". Expected: " + tag);
+        }
+        int len = GXCommon.getObjectCount(data);
+        if (len > data.size() - data.position()) {
+            throw new IllegalArgumentException("Not enought memory.");
+        }
+        return len;
+    }
+
+    /**
+     * Enter constructed value.
+     * 
+     * @param tag
+     *            Expected tag.
+     * @return End position of the value.
+     */
+    private int enter(final int tag) {
+        int len = readHeader(tag);
+        return data.position() + len;
+    }
+
+    /**
+     * Enter sequence.
+     * 
+     * @return End position of the sequence.
+     */
+    public int enterSequence() {
+        return enter(BerType.CONSTRUCTED | BerType.SEQUENCE);
+    }
+
+    /**
+     * Enter set.
+     * 
+     * @return End position of the set.
+     */
+    public int enterSet() {
+        return enter(BerType.CONSTRUCTED | BerType.SET);
+    }
+
+    /**
+     * Enter constructed context specific value.
+     * 
+     * @param index
+     *            Context index.
+     * @return End position of the value.
+     */
+    public int enterContext(final int index) {
+        return enter(BerType.CONSTRUCTED | BerType.CONTEXT | index);
+    }
+
+    /**
+     * Enter octet string that contains encoded value.
+     * 
+     * @return End position of the octet string.
+     */
+    public int enterOctetString() {
+        return enter(BerType.OCTET_STRING);
+    }
+
+    /**
+     * Skip next value.
+     */
+    public void skip() {
+        data.getUInt8();
+        int len = GXCommon.getObjectCount(data);
+        data.position(data.position() + len);
+    }
+
+    /**
+     * Read next value including tag and length.
+     * 
+     * @return Encoded value.
+     */
+    public byte[] readEncoded() {
+        int start = data.position();
+        skip();
+        return data.subArray(start, data.position() - start);
+    }
+
+    /**
+     * Read object identifier.
+     * 
+     * @return Object identifier in dotted format.
+     */
+    public String readOid() {
+        int len = readHeader(BerType.OBJECT_IDENTIFIER);
+        return new GXAsn1ObjectIdentifier(data, len).toString();
+    }
+
+    /**
+     * Read bit string.
+     * 
+     * @return Bit string.
+     */
+    public GXAsn1BitString readBitString() {
+        int len = readHeader(BerType.BIT_STRING);
+        GXAsn1BitString value =
+                new GXAsn1BitString(data.subArray(data.position(), len));
+        data.position(data.position() + len);
+        return value;
+    }
+
+    /**
+     * Read content of octet string.
+     * 
+     * @return Octet string.
+     */
+    public byte[] readOctetString() {
+        return readBytes(BerType.OCTET_STRING);
+    }
+
+    /**
+     * Read content of primitive context specific value.
+     * 
+     * @param index
+     *            Context index.
+     * @return Value.
+     */
+    public byte[] readContext(final int index) {
+        return readBytes(BerType.CONTEXT | index);
+    }
+
+    private byte[] readBytes(final int tag) {
+        byte[] value = new byte[readHeader(tag)];
+        data.get(value);
+        return value;
+    }
+
+    /**
+     * Read integer.
+     * 
+     * @return Integer.
+     */
+    public GXAsn1Integer readInteger() {
+        return new GXAsn1Integer(readBytes(BerType.INTEGER));
+    }
+
+    /**
+     * Read integer that fits to 32 bits.
+     * 
+     * @return Integer.
+     */
+    public int readInt() {
+        int len = readHeader(BerType.INTEGER);
+        if (len == 0 || len > 4) {
+            throw new IllegalArgumentException("Invalid integer.");
+        }
+        int value = data.getInt8();
+        for (int pos = 1; pos != len; ++pos) {
+            value = (value << 8) | data.getUInt8();
+        }
+        return value;
+    }
+
+    /**
+     * Read boolean.
+     * 
+     * @return Boolean.
+     */
+    public boolean readBoolean() {
+        int len = readHeader(BerType.BOOLEAN);
+        boolean value = data.getUInt8() != 0;
+        data.position(data.position() + len - 1);
+        return value;
+    }
+
+    /**
+     * Read UTC or generalized time.
+     * 
+     * @return Time.
+     */
+    public Date readTime() {
+        Object value = readValue();
+        if (!(value instanceof Date)) {
+            throw new IllegalArgumentException("Invalid time.");
+        }
+        return (Date) value;
+    }
+
+    /**
+     * Read next value as ASN1 object. Constructed values are returned as
+     * object trees.
+     * 
+     * @return Parsed object.
+     */
+    public Object readValue() {
+        List<Object> objects = new ArrayList<Object>(1);
+        GXAsn1Converter.getValue(data, objects, null);
+        return objects.get(0);
+    }
+
+    /**
+     * Read X.509 name. Example: "CN=Test, O=Gurux, L=Tampere, C=FI".
+     * 
+     * @return Name.
+     */
+    public String readName() {
+        StringBuilder sb = new StringBuilder();
+        int end = enterSequence();
+        while (hasMore(end)) {
+            int setEnd = enterSet();
+            int seqEnd = enterSequence();
+            if (sb.length() != 0) {
+                sb.append(", ");
+            }
+            sb.append(X509Name.forValue(readOid()));
+            sb.append('=');
+            sb.append(readValue());
+            leave(seqEnd);
+            leave(setEnd);
+        }
+        leave(end);
+        return sb.toString();
+    }
+}
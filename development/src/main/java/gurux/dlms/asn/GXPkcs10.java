@@ -94,12 +94,8 @@ public class GXPkcs10 {
     }
 
     private void init(final byte[] data) {
-        GXAsn1Sequence seq =
-                (GXAsn1Sequence) GXAsn1Converter.fromByteArray(data);
-        if (seq.size() < 3) {
-            throw new IllegalArgumentException(
-                    "Wrong number of elements in sequence.");
-        }
+        GXAsn1Reader reader = new GXAsn1Reader(data);
+        int end = reader.enterSequence();
         /////////////////////////////
         // CertificationRequestInfo ::= SEQUENCE {
         // version INTEGER { v1(0) } (v1,...),
@@ -107,20 +103,25 @@ public class GXPkcs10 {
         // subjectPKInfo SubjectPublicKeyInfo{{ PKInfoAlgorithms }},
         // attributes [0] Attributes{{ CRIAttributes }}
         // }
-
-        GXAsn1Sequence reqInfo = (GXAsn1Sequence) seq.get(0);
-        version = CertificateVersion
-                .forValue(((Number) reqInfo.get(0)).intValue());
-        subject = GXAsn1Converter.getSubject((GXAsn1Sequence) reqInfo.get(1));
+        int start = reader.position();
+        int reqInfo = reader.enterSequence();
+        version = CertificateVersion.forValue(reader.readInt());
+        subject = reader.readName();
         // subject Public key info.
-        GXAsn1Sequence subjectPKInfo = (GXAsn1Sequence) reqInfo.get(2);
-        if (reqInfo.size() > 3) {
-            attributes = reqInfo.get(3);
+        byte[] encodedKey = reader.readEncoded();
+        if (reader.hasMore(reqInfo)) {
+            attributes = reader.readValue();
         }
-        GXAsn1Sequence tmp = (GXAsn1Sequence) subjectPKInfo.get(0);
-        algorithm = PkcsObjectIdentifier.forValue(tmp.get(0).toString());
+        reader.leave(reqInfo);
+        byte[] info = new byte[reqInfo - start];
+        System.arraycopy(data, start, info, 0, info.length);
+        GXAsn1Reader key = new GXAsn1Reader(encodedKey);
+        key.enterSequence();
+        key.enterSequence();
+        String oid = key.readOid();
+        algorithm = PkcsObjectIdentifier.forValue(oid);
         if (algorithm == null) {
-            algorithm = X9ObjectIdentifier.forValue(tmp.get(0).toString());
+            algorithm = X9ObjectIdentifier.forValue(oid);
         }
         // Make public key.
         KeyFactory eckf;
@@ -141,7 +142,6 @@ public class GXPkcs10 {
                     + "key factory not present in runtime");
         }
         try {
-            byte[] encodedKey = GXAsn1Converter.toByteArray(subjectPKInfo);
             X509EncodedKeySpec ecpks = new X509EncodedKeySpec(encodedKey);
             publicKey = eckf.generatePublic(ecpks);
         } catch (InvalidKeySpecException e) {
@@ -150,15 +150,20 @@ public class GXPkcs10 {
 
         /////////////////////////////
         // signatureAlgorithm
-        GXAsn1Sequence sign = (GXAsn1Sequence) seq.get(1);
-        signatureAlgorithm = HashAlgorithm.forValue(sign.get(0).toString());
-        if (sign.size() != 1) {
-            signatureParameters = (String) sign.get(1);
+        int sign = reader.enterSequence();
+        signatureAlgorithm = HashAlgorithm.forValue(reader.readOid());
+        if (reader.hasMore(sign)) {
+            signatureParameters = (String) reader.readValue();
         }
+        reader.leave(sign);
         /////////////////////////////
         // signature
-        signature = ((GXAsn1BitString) seq.get(2)).getValue();
-        if (!verify(GXAsn1Converter.toByteArray(reqInfo), signature)) {
+        signature = reader.readBitString().getValue();
+        if (reader.hasMore(end)) {
+            throw new IllegalArgumentException(
+                    "Wrong number of elements in sequence.");
+        }
+        if (!verify(info, signature)) {
             throw new RuntimeException("Invalid Signature.");
         }
     }
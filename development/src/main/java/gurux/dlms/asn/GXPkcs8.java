@@ -18,6 +18,7 @@ import java.security.spec.X509EncodedKeySpec;
 import gurux.dlms.asn.enums.GXOid;
 import gurux.dlms.asn.enums.PkcsObjectIdentifier;
 import gurux.dlms.asn.enums.X9ObjectIdentifier;
+import gurux.dlms.enums.BerType;
 import gurux.dlms.internal.GXCommon;
 
 /**
@@ -82,14 +83,15 @@ public class GXPkcs8 {
     // privateKey PrivateKey,
     // attributes [0]
     private void init(final byte[] data) {
-        GXAsn1Sequence seq =
-                (GXAsn1Sequence) GXAsn1Converter.fromByteArray(data);
+        GXAsn1Reader reader = new GXAsn1Reader(data);
+        reader.enterSequence();
         // If public key.
-        if (seq.size() == 2) {
-            GXAsn1Sequence tmp = (GXAsn1Sequence) seq.get(0);
-            algorithm = PkcsObjectIdentifier.forValue(tmp.get(0).toString());
+        if (reader.peekTag() == (BerType.CONSTRUCTED | BerType.SEQUENCE)) {
+            reader.enterSequence();
+            String oid = reader.readOid();
+            algorithm = PkcsObjectIdentifier.forValue(oid);
             if (algorithm == null) {
-                algorithm = X9ObjectIdentifier.forValue(tmp.get(0).toString());
+                algorithm = X9ObjectIdentifier.forValue(oid);
             }
             // Make public key.
             KeyFactory eckf;
@@ -111,8 +113,7 @@ public class GXPkcs8 {
                                 + "key factory not present in runtime");
             }
             try {
-                byte[] encodedKey = GXAsn1Converter.toByteArray(seq);
-                X509EncodedKeySpec ecpks = new X509EncodedKeySpec(encodedKey);
+                X509EncodedKeySpec ecpks = new X509EncodedKeySpec(data);
                 setPublicKey(eckf.generatePublic(ecpks));
             } catch (InvalidKeySpecException e) {
                 throw new RuntimeException(e.getMessage());
@@ -128,17 +129,12 @@ public class GXPkcs8 {
             // }
 
         } else {
-            if (seq.size() < 3) {
-                throw new IllegalArgumentException(
-                        "Wrong number of elements in sequence.");
-            }
-            version = CertificateVersion
-                    .forValue(((Number) seq.get(0)).intValue());
-            GXAsn1Sequence tmp = (GXAsn1Sequence) seq.get(1);
-            algorithm = X9ObjectIdentifier.forValue(tmp.get(0).toString());
+            version = CertificateVersion.forValue(reader.readInt());
+            reader.enterSequence();
+            String oid = reader.readOid();
+            algorithm = X9ObjectIdentifier.forValue(oid);
             if (algorithm == null) {
-                algorithm =
-                        PkcsObjectIdentifier.forValue(tmp.get(0).toString());
+                algorithm = PkcsObjectIdentifier.forValue(oid);
             }
             // Make public key.
             KeyFactory eckf;
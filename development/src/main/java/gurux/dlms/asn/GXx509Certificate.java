@@ -143,65 +143,47 @@ public class GXx509Certificate {
      * https://tools.ietf.org/html/rfc5280#section-4.1
      */
     private void init(final byte[] data) {
-        GXAsn1Sequence seq =
-                (GXAsn1Sequence) GXAsn1Converter.fromByteArray(data);
-        if (seq.size() != 3) {
-            throw new IllegalArgumentException(
-                    "Wrong number of elements in sequence.");
+        GXAsn1Reader reader = new GXAsn1Reader(data);
+        int end = reader.enterSequence();
+        int reqInfo = reader.enterSequence();
+        // Version is optional.
+        if (reader.peekTag() == (BerType.CONSTRUCTED | BerType.CONTEXT)) {
+            int tmp = reader.enterContext(0);
+            version = CertificateVersion.forValue(reader.readInt());
+            reader.leave(tmp);
+        } else {
+            version = CertificateVersion.V1;
         }
-        GXAsn1Sequence reqInfo = (GXAsn1Sequence) seq.get(0);
-        version = CertificateVersion.forValue(
-                ((Number) ((GXAsn1Context) reqInfo.get(0)).get(0)).byteValue());
-        serialNumber = (GXAsn1Integer) reqInfo.get(1);
-        String tmp = ((GXAsn1Sequence) reqInfo.get(2)).get(0).toString();
+        serialNumber = reader.readInteger();
         // Signature Algorithm
-        algorithm = HashAlgorithm.forValue(tmp);
+        int tmp = reader.enterSequence();
+        algorithm = HashAlgorithm.forValue(reader.readOid());
         // Optional.
-        if (((GXAsn1Sequence) reqInfo.get(2)).size() > 1) {
-            parameters = ((GXAsn1Sequence) reqInfo.get(2)).get(1);
+        if (reader.hasMore(tmp)) {
+            parameters = reader.readValue();
         }
+        reader.leave(tmp);
         // Issuer
-        issuer = GXAsn1Converter.getSubject((GXAsn1Sequence) reqInfo.get(3));
+        issuer = reader.readName();
         // Validity
-        validFrom = (Date) ((GXAsn1Sequence) reqInfo.get(4)).get(0);
-        validTo = (Date) ((GXAsn1Sequence) reqInfo.get(4)).get(1);
-        subject = GXAsn1Converter.getSubject((GXAsn1Sequence) reqInfo.get(5));
+        tmp = reader.enterSequence();
+        validFrom = reader.readTime();
+        validTo = reader.readTime();
+        reader.leave(tmp);
+        subject = reader.readName();
         // subject public key Info
-        GXAsn1Sequence subjectPKInfo = (GXAsn1Sequence) reqInfo.get(6);
+        byte[] encodedKey = reader.readEncoded();
         // Get Standard Extensions.
-        if (reqInfo.size() > 7) {
-            for (Object it : (GXAsn1Sequence) ((GXAsn1Context) reqInfo.get(7))
-                    .get(0)) {
-                GXAsn1Sequence s = (GXAsn1Sequence) ((GXAsn1Sequence) it);
-                GXAsn1ObjectIdentifier id = (GXAsn1ObjectIdentifier) s.get(0);
-                Object value = s.get(1);
-                X509Certificate t = X509Certificate.forValue(id.toString());
-                switch (t) {
-                case SUBJECT_KEY_IDENTIFIER:
-                    subjectKeyIdentifier = (byte[]) value;
-                    break;
-                case AUTHORITY_KEY_IDENTIFIER:
-                    authorityKeyIdentifier =
-                            (byte[]) ((GXAsn1Sequence) value).get(0);
-                    break;
-                case KEY_USAGE:
-                    if (value instanceof GXAsn1BitString) {
-                        // critical is optional. BOOLEAN DEFAULT FALSE,
-                        keyUsage = KeyUsage.forValue(
-                                ((GXAsn1BitString) value).getValue()[0] & 0xFF);
-                    } else if (value instanceof Boolean) {
-                        value = s.get(2);
-                        keyUsage = KeyUsage.forValue(
-                                ((GXAsn1BitString) value).getValue()[0] & 0xFF);
-                    } else {
-                        throw new IllegalStateException("Invalid key usage.");
-                    }
-                    break;
-                default:
-                    System.out.println("Unknown extensions: " + t.toString());
-                }
+        if (reader.hasMore(reqInfo) && reader.peekTag() == (BerType.CONSTRUCTED
+                | BerType.CONTEXT | 3)) {
+            int extensions = reader.enterContext(3);
+            int list = reader.enterSequence();
+            while (reader.hasMore(list)) {
+                readExtension(reader);
             }
+            reader.leave(extensions);
         }
+        reader.leave(reqInfo);
 
         // Make public key.
         KeyFactory eckf;
@@ -212,21 +194,57 @@ public class GXx509Certificate {
                     + "key factory not present in runtime");
         }
         try {
-            byte[] encodedKey = GXAsn1Converter.toByteArray(subjectPKInfo);
             X509EncodedKeySpec ecpks = new X509EncodedKeySpec(encodedKey);
             publicKey = eckf.generatePublic(ecpks);
         } catch (InvalidKeySpecException e) {
             throw new RuntimeException(e.getMessage());
         }
-        signatureAlgorithm = HashAlgorithm
-                .forValue(((GXAsn1Sequence) seq.get(1)).get(0).toString());
+        tmp = reader.enterSequence();
+        signatureAlgorithm = HashAlgorithm.forValue(reader.readOid());
         // Optional.
-        if (((GXAsn1Sequence) seq.get(1)).size() > 1) {
-            signatureParameters = ((GXAsn1Sequence) seq.get(1)).get(1);
+        if (reader.hasMore(tmp)) {
+            signatureParameters = reader.readValue();
         }
-
+        reader.leave(tmp);
         // signature
-        signature = ((GXAsn1BitString) seq.get(2)).getValue();
+        signature = reader.readBitString().getValue();
+        if (reader.hasMore(end)) {
+            throw new IllegalArgumentException(
+                    "Wrong number of elements in sequence.");
+        }
+    }
+
+    /**
+     * Read standard extension.
+     * 
+     * @param reader
+     *            DER reader.
+     */
+    private void readExtension(final GXAsn1Reader reader) {
+        int end = reader.enterSequence();
+        X509Certificate t = X509Certificate.forValue(reader.readOid());
+        // critical is optional. BOOLEAN DEFAULT FALSE,
+        if (reader.peekTag() == BerType.BOOLEAN) {
+            reader.readBoolean();
+        }
+        switch (t) {
+        case SUBJECT_KEY_IDENTIFIER:
+            subjectKeyIdentifier = reader.readOctetString();
+            break;
+        case AUTHORITY_KEY_IDENTIFIER:
+            reader.enterOctetString();
+            reader.enterSequence();
+            authorityKeyIdentifier = reader.readContext(0);
+            break;
+        case KEY_USAGE:
+            reader.enterOctetString();
+            keyUsage = KeyUsage
+                    .forValue(reader.readBitString().getValue()[0] & 0xFF);
+            break;
+        default:
+            System.out.println("Unknown extensions: " + t.toString());
+        }
+        reader.leave(end);
     }
 
     /**
@@ -51,10 +51,12 @@ import java.util.TimeZone;
 import javax.crypto.KeyAgreement;
 
 import gurux.dlms.GXByteBuffer;
+import gurux.dlms.GXCompactDateTime;
 import gurux.dlms.GXDLMSClient;
 import gurux.dlms.GXDLMSConverter;
 import gurux.dlms.GXDate;
 import gurux.dlms.GXDateTime;
+import gurux.dlms.GXLogicalName;
 import gurux.dlms.GXICipher;
 import gurux.dlms.GXTime;
 import gurux.dlms.enums.ClockStatus;
@@ -850,8 +852,6 @@ public final class GXCommon {
     private static Object getDateTime(final GXByteBuffer buff,
             final GXDataInfo info) {
         Object value = null;
-        java.util.Set<DateTimeSkips> skip = new HashSet<DateTimeSkips>();
-
         // If there is not enough data available.
         if (buff.size() - buff.position() < 12) {
             info.setCompleate(false);
@@ -861,105 +861,22 @@ public final class GXCommon {
         if (info.getXml() != null) {
             str = GXCommon.toHex(buff.getData(), false, buff.position(), 12);
         }
-        GXDateTime dt = new GXDateTime();
+        GXCompactDateTime dt = null;
         try {
-            // Get year.
-            int year = buff.getUInt16();
-            // Get month
-            int month = buff.getUInt8();
-            // Get day
-            int day = buff.getUInt8();
-            // Skip week day
-            if (buff.getUInt8() == 0xFF) {
-                skip.add(DateTimeSkips.DAY_OF_WEEK);
-            }
-            // Get time.
-            int hour = buff.getUInt8();
-            int minute = buff.getUInt8();
-            int second = buff.getUInt8();
-            int ms = buff.getUInt8() & 0xFF;
-            if (ms != 0xFF) {
-                ms *= 10;
-            } else {
-                ms = -1;
-            }
-            int deviation = buff.getInt16();
-            if (deviation == -32768) {
-                deviation = 0x8000;
-                skip.add(DateTimeSkips.DEVITATION);
-            }
-            int status = buff.getUInt8();
-            dt.setStatus(ClockStatus.forValue(status));
-            if (year < 1 || year == 0xFFFF) {
-                skip.add(DateTimeSkips.YEAR);
-                java.util.Calendar tm = java.util.Calendar.getInstance();
-                year = tm.get(Calendar.YEAR);
-            }
-            dt.setDaylightSavingsBegin(month == 0xFE);
-            dt.setDaylightSavingsEnd(month == 0xFD);
-            if (month < 1 || month > 12) {
-                skip.add(DateTimeSkips.MONTH);
-                month = 0;
-            } else {
-                month -= 1;
-            }
-            if (day == -1 || day == 0 || day > 31) {
-                skip.add(DateTimeSkips.DAY);
-                day = 1;
-            } else if (day < 0) {
-                Calendar cal = Calendar.getInstance();
-                day = cal.getActualMaximum(Calendar.DATE) + day + 3;
-            }
-            if (hour < 0 || hour > 24) {
-                skip.add(DateTimeSkips.HOUR);
-                hour = 0;
-            }
-            if (minute < 0 || minute > 60) {
-                skip.add(DateTimeSkips.MINUTE);
-                minute = 0;
-            }
-            if (second < 0 || second > 60) {
-                skip.add(DateTimeSkips.SECOND);
-                second = 0;
-            }
-            // If ms is Zero it's skipped.
-            if (ms < 0 || ms > 1000) {
-                skip.add(DateTimeSkips.MILLISECOND);
-                ms = 0;
-            }
-            java.util.Calendar tm;
-            int tzOffset = 0;
-            if (deviation == 0x8000) {
-                tm = Calendar.getInstance();
+            dt = GXCompactDateTime.parse(buff);
+            if (info.isCompactDateTime()) {
+                value = dt;
             } else {
-                TimeZone tz = GXDateTime.getTimeZone(-deviation, dt.getStatus()
-                        .contains(ClockStatus.DAYLIGHT_SAVE_ACTIVE));
-                if (tz != null) {
-                    tm = Calendar.getInstance(tz);
-                } else {
-                    // Use current time zone if time zone is not found.
-                    tm = Calendar.getInstance();
-                    tzOffset = deviation
-                            + (tm.getTimeZone().getRawOffset() / 60000);
-                }
-            }
-            tm.set(year, month, day, hour, minute, second);
-            if (ms != 0xFF) {
-                tm.set(Calendar.MILLISECOND, ms);
+                value = dt.toGXDateTime();
             }
-            if (tzOffset != 0) {
-                tm.add(Calendar.MINUTE, tzOffset);
-            }
-            dt.setMeterCalendar(tm);
-            dt.setSkip(skip);
-            value = dt;
         } catch (Exception ex) {
             if (info.getXml() == null) {
                 throw ex;
             }
         }
         if (info.getXml() != null) {
-            if (!dt.getSkip().contains(DateTimeSkips.YEAR) && value != null) {
+            if (value != null
+                    && (dt.getSkip() & DateTimeSkips.YEAR.getValue()) == 0) {
                 info.getXml().appendComment(String.valueOf(value));
             }
             info.getXml().appendLine(info.getXml().getDataType(info.getType()),
@@ -1698,6 +1615,8 @@ public final class GXCommon {
         GXDateTime dt;
         if (value instanceof GXDateTime) {
             dt = (GXDateTime) value;
+        } else if (value instanceof GXCompactDateTime) {
+            dt = ((GXCompactDateTime) value).toGXDateTime();
         } else if (value instanceof java.util.Date) {
             dt = new GXDateTime((java.util.Date) value);
         } else if (value instanceof java.util.Calendar) {
@@ -1752,6 +1671,8 @@ public final class GXCommon {
         GXDateTime dt;
         if (value instanceof GXDateTime) {
             dt = (GXDateTime) value;
+        } else if (value instanceof GXCompactDateTime) {
+            dt = ((GXCompactDateTime) value).toGXDateTime();
         } else if (value instanceof java.util.Date) {
             dt = new GXDateTime((java.util.Date) value);
             dt.getSkip().add(DateTimeSkips.MILLISECOND);
@@ -1853,8 +1774,9 @@ public final class GXCommon {
         }
         // Add clock_status
         if (!dt.getSkip().contains(DateTimeSkips.STATUS)) {
-            if ((dt.getMeterCalendar().getTimeZone()
-                    .inDaylightTime(dt.getMeterCalendar().getTime())
+            // DST offset is resolved from the calendar fields without
+            // copying the time zone.
+            if ((tm.get(java.util.Calendar.DST_OFFSET) != 0
                     || dt.getStatus()
                             .contains(ClockStatus.DAYLIGHT_SAVE_ACTIVE))) {
                 buff.setUInt8(ClockStatus.toInteger(dt.getStatus())
@@ -2253,6 +2175,20 @@ public final class GXCommon {
         return buff;
     }
 
+    /**
+     * Convert logical name to byte array.
+     * 
+     * @param value
+     *            Logical name.
+     * @return Logical name as byte array.
+     */
+    public static byte[] logicalNameToBytes(final GXLogicalName value) {
+        if (value == null) {
+            return new byte[6];
+        }
+        return value.toArray();
+    }
+
     /**
      * Convert integer list to array.
      * 
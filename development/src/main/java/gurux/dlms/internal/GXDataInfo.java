@@ -62,6 +62,11 @@ public class GXDataInfo {
 
     private GXDLMSTranslatorStructure xml;
 
+    /**
+     * Is date-time returned as GXCompactDateTime.
+     */
+    private boolean compactDateTime;
+
     /**
      * @return Last array index.
      */
@@ -122,6 +127,21 @@ public class GXDataInfo {
         compleate = value;
     }
 
+    /**
+     * @return Is date-time returned as GXCompactDateTime.
+     */
+    public final boolean isCompactDateTime() {
+        return compactDateTime;
+    }
+
+    /**
+     * @param value
+     *            Is date-time returned as GXCompactDateTime.
+     */
+    public final void setCompactDateTime(final boolean value) {
+        compactDateTime = value;
+    }
+
     public final void setXml(final GXDLMSTranslatorStructure value) {
         xml = value;
     }
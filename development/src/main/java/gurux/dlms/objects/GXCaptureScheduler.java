@@ -0,0 +1,457 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms.objects;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import gurux.dlms.GXDLMSServerBase;
+
+/**
+ * Capture scheduler captures profile generic objects when their capture period
+ * elapses. Captures are aligned to the capture period boundaries in local
+ * time, e.g. profile with 15 minute capture period is captured at 00, 15, 30
+ * and 45 minutes past the hour. All profiles that are due at the same time are
+ * captured in the same batch, so one scheduler can serve a large amount of
+ * profiles with a few threads.
+ */
+public final class GXCaptureScheduler implements AutoCloseable {
+    private static final Logger LOGGER =
+            Logger.getLogger(GXCaptureScheduler.class.getName());
+
+    /**
+     * How many profiles are captured in one task.
+     */
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * Used executor.
+     */
+    private final ScheduledExecutorService executor;
+
+    /**
+     * Is executor closed when scheduler is closed.
+     */
+    private final boolean closeExecutor;
+
+    /**
+     * Scheduled profiles.
+     */
+    private final Map<GXDLMSProfileGeneric, Item> items =
+            new IdentityHashMap<GXDLMSProfileGeneric, Item>();
+
+    /**
+     * Next tick.
+     */
+    private ScheduledFuture<?> pending;
+
+    /**
+     * Time of the next tick.
+     */
+    private long pendingTime;
+
+    /**
+     * Listener for capture metrics.
+     */
+    private volatile IGXCaptureListener listener;
+
+    /**
+     * Default scheduler.
+     */
+    private static final class Holder {
+        /**
+         * Default scheduler is never closed.
+         */
+        static final GXCaptureScheduler DEFAULT =
+                new GXCaptureScheduler(createExecutor(1), false);
+    }
+
+    /**
+     * Constructor. One thread is used to capture profiles.
+     */
+    public GXCaptureScheduler() {
+        this(1);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param threads
+     *            Amount of threads that capture profiles.
+     */
+    public GXCaptureScheduler(final int threads) {
+        this(createExecutor(threads), true);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param forExecutor
+     *            Executor where profiles are captured. Executor is not closed
+     *            when scheduler is closed.
+     */
+    public GXCaptureScheduler(final ScheduledExecutorService forExecutor) {
+        this(forExecutor, false);
+    }
+
+    private GXCaptureScheduler(final ScheduledExecutorService forExecutor,
+            final boolean forCloseExecutor) {
+        if (forExecutor == null) {
+            throw new IllegalArgumentException("forExecutor");
+        }
+        executor = forExecutor;
+        closeExecutor = forCloseExecutor;
+    }
+
+    /**
+     * Returns scheduler that server uses if capture scheduler is not set.
+     * 
+     * @return Default capture scheduler.
+     */
+    public static GXCaptureScheduler getDefault() {
+        return Holder.DEFAULT;
+    }
+
+    /**
+     * Create executor that uses daemon threads.
+     * 
+     * @param threads
+     *            Amount of threads.
+     * @return Executor.
+     */
+    private static ScheduledExecutorService createExecutor(final int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads");
+        }
+        return new ScheduledThreadPoolExecutor(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                Thread t = new Thread(r, "GXCaptureScheduler");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * @return Listener for capture metrics.
+     */
+    public IGXCaptureListener getListener() {
+        return listener;
+    }
+
+    /**
+     * @param value
+     *            Listener for capture metrics. Capture errors are logged if
+     *            listener is not set.
+     */
+    public void setListener(final IGXCaptureListener value) {
+        listener = value;
+    }
+
+    /**
+     * @return Amount of scheduled profiles.
+     */
+    public int size() {
+        synchronized (this) {
+            return items.size();
+        }
+    }
+
+    /**
+     * Add profile generic to the scheduler. Profile is captured on the next
+     * capture period boundary.
+     * 
+     * @param server
+     *            Server that owns the profile.
+     * @param target
+     *            Profile generic.
+     * @return True, if profile is added. Profiles without capture period or
+     *         profiles that are already added are not added.
+     */
+    public boolean add(final GXDLMSServerBase server,
+            final GXDLMSProfileGeneric target) {
+        if (target == null) {
+            throw new IllegalArgumentException("target");
+        }
+        int period = target.getCapturePeriod();
+        if (period <= 0) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            if (items.containsKey(target)) {
+                return false;
+            }
+            Item item = new Item(server, target);
+            item.period = period;
+            item.next = getNextBoundary(now, period);
+            items.put(target, item);
+            schedule(now);
+        }
+        return true;
+    }
+
+    /**
+     * Remove profile generic from the scheduler. Capture that is already
+     * running is not interrupted.
+     * 
+     * @param target
+     *            Profile generic.
+     * @return True, if profile is removed.
+     */
+    public boolean remove(final GXDLMSProfileGeneric target) {
+        synchronized (this) {
+            return items.remove(target) != null;
+        }
+    }
+
+    /**
+     * Returns next capture period boundary in local time.
+     * 
+     * @param now
+     *            Current time in milliseconds.
+     * @param period
+     *            Capture period in seconds.
+     * @return Next boundary in milliseconds.
+     */
+    static long getNextBoundary(final long now, final int period) {
+        long p = period * 1000L;
+        long offset = TimeZone.getDefault().getOffset(now);
+        return ((now + offset) / p + 1) * p - offset;
+    }
+
+    /**
+     * Schedule next tick. Caller must hold the lock.
+     * 
+     * @param now
+     *            Current time in milliseconds.
+     */
+    private void schedule(final long now) {
+        long next = Long.MAX_VALUE;
+        for (Item it : items.values()) {
+            if (it.next < next) {
+                next = it.next;
+            }
+        }
+        if (next == Long.MAX_VALUE
+                || (pending != null && pendingTime <= next)) {
+            return;
+        }
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pendingTime = next;
+        pending = executor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }, Math.max(0, next - now), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Collect profiles that are due and capture them in batches.
+     */
+    private void tick() {
+        List<Due> due = new ArrayList<Due>();
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            pending = null;
+            List<Item> removed = new ArrayList<Item>();
+            for (Item it : items.values()) {
+                int period = it.target.getCapturePeriod();
+                if (period <= 0) {
+                    // Capture is disabled.
+                    removed.add(it);
+                } else if (period != it.period) {
+                    // Capture period is changed.
+                    it.period = period;
+                    it.next = getNextBoundary(now, period);
+                } else if (it.next <= now) {
+                    due.add(new Due(it, it.next,
+                            (now - it.next) / (period * 1000L)));
+                    it.next = getNextBoundary(now, period);
+                }
+            }
+            for (Item it : removed) {
+                items.remove(it.target);
+            }
+            schedule(now);
+        }
+        for (int pos = 0; pos < due.size(); pos += BATCH_SIZE) {
+            final List<Due> batch =
+                    due.subList(pos, Math.min(due.size(), pos + BATCH_SIZE));
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    capture(batch);
+                }
+            });
+        }
+    }
+
+    /**
+     * Capture profiles.
+     * 
+     * @param batch
+     *            Profiles to capture.
+     */
+    private void capture(final List<Due> batch) {
+        IGXCaptureListener l = listener;
+        for (Due it : batch) {
+            GXDLMSProfileGeneric target = it.item.target;
+            if (it.missed != 0 && l != null) {
+                l.onMissedTicks(target, it.missed);
+            }
+            try {
+                target.capture(it.item.server);
+                if (l != null) {
+                    l.onCapture(target, System.currentTimeMillis() - it.tick);
+                }
+            } catch (Exception ex) {
+                if (l != null) {
+                    l.onError(target, ex);
+                } else {
+                    LOGGER.log(Level.SEVERE,
+                            "Capture failed: " + target.getLogicalName(), ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Close scheduler. Executor is closed if it was created by the scheduler.
+     * Default scheduler is never closed.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            items.clear();
+            if (pending != null) {
+                pending.cancel(false);
+                pending = null;
+            }
+        }
+        if (closeExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Scheduled profile.
+     */
+    private static final class Item {
+        /**
+         * Server that owns the profile.
+         */
+        private final GXDLMSServerBase server;
+
+        /**
+         * Profile generic.
+         */
+        private final GXDLMSProfileGeneric target;
+
+        /**
+         * Capture period in seconds.
+         */
+        private int period;
+
+        /**
+         * Next capture time in milliseconds.
+         */
+        private long next;
+
+        /**
+         * Constructor.
+         * 
+         * @param forServer
+         *            Server that owns the profile.
+         * @param forTarget
+         *            Profile generic.
+         */
+        Item(final GXDLMSServerBase forServer,
+                final GXDLMSProfileGeneric forTarget) {
+            server = forServer;
+            target = forTarget;
+        }
+    }
+
+    /**
+     * Profile that is due.
+     */
+    private static final class Due {
+        /**
+         * Scheduled profile.
+         */
+        private final Item item;
+
+        /**
+         * Capture period boundary in milliseconds.
+         */
+        private final long tick;
+
+        /**
+         * Amount of missed boundaries.
+         */
+        private final long missed;
+
+        /**
+         * Constructor.
+         * 
+         * @param forItem
+         *            Scheduled profile.
+         * @param forTick
+         *            Capture period boundary in milliseconds.
+         * @param forMissed
+         *            Amount of missed boundaries.
+         */
+        Due(final Item forItem, final long forTick, final long forMissed) {
+            item = forItem;
+            tick = forTick;
+            missed = forMissed;
+        }
+    }
+}
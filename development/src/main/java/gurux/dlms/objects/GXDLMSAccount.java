@@ -799,7 +799,7 @@ public class GXDLMSAccount extends GXDLMSObject implements IGXDLMSBase {
         GXByteBuffer bb;
         switch (e.getIndex()) {
         case 1:
-            return GXCommon.logicalNameToBytes(getLogicalName());
+            return GXCommon.logicalNameToBytes(getLN());
         case 2:
             bb = new GXByteBuffer();
             bb.setUInt8(DataType.STRUCTURE.getValue());
@@ -235,7 +235,7 @@ public class GXDLMSActionSchedule extends GXDLMSObject implements IGXDLMSBase {
     public final Object getValue(final GXDLMSSettings settings,
             final ValueEventArgs e) {
         if (e.getIndex() == 1) {
-            return GXCommon.logicalNameToBytes(getLogicalName());
+            return GXCommon.logicalNameToBytes(getLN());
         }
         if (e.getIndex() == 2) {
             GXByteBuffer stream = new GXByteBuffer();
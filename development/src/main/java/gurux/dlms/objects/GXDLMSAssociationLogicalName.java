@@ -67,6 +67,12 @@ public class GXDLMSAssociationLogicalName extends GXDLMSObject
     private static final Logger LOGGER =
             Logger.getLogger(GXDLMSAssociationLogicalName.class.getName());
     private GXDLMSObjectCollection objectList;
+
+    /**
+     * Encoded object list.
+     */
+    private final GXDLMSObjectListCache objectListCache =
+            new GXDLMSObjectListCache();
     private short clientSAP;
     private short serverSAP;
     private GXApplicationContextName applicationContextName;
@@ -121,6 +127,7 @@ public class GXDLMSAssociationLogicalName extends GXDLMSObject
 
     public final void setObjectList(final GXDLMSObjectCollection value) {
         objectList = value;
+        objectListCache.clear();
     }
 
     /*
@@ -452,6 +459,35 @@ public class GXDLMSAssociationLogicalName extends GXDLMSObject
     private byte[] getObjects(final GXDLMSSettings settings,
             final ValueEventArgs e) {
         try {
+            // Server encodes the whole list only once. Long transaction
+            // sends it in blocks.
+            if (settings.isServer() && settings.getIndex() == 0) {
+                // Access rights are resolved again for each read if server
+                // doesn't cache attribute access.
+                GXDLMSObjectListCache.Key key = null;
+                byte[] list = null;
+                if (e.getServer() == null
+                        || e.getServer().getCacheAttributeAccess()) {
+                    key = new GXDLMSObjectListCache.Key(objectList,
+                            e.getServer(), settings.getAuthentication());
+                    list = objectListCache.find(key);
+                }
+                if (list == null) {
+                    GXByteBuffer data = new GXByteBuffer();
+                    data.setUInt8(DataType.ARRAY.getValue());
+                    GXCommon.setObjectCount(objectList.size(), data);
+                    for (GXDLMSObject it : objectList) {
+                        addObject(it, e, data);
+                    }
+                    list = data.array();
+                    if (key != null) {
+                        objectListCache.update(key, list);
+                    }
+                }
+                settings.setCount(objectList.size());
+                settings.setIndex(objectList.size());
+                return list;
+            }
             GXByteBuffer data = new GXByteBuffer();
             // Add count only for first time.
             if (settings.getIndex() == 0) {
@@ -463,18 +499,7 @@ public class GXDLMSAssociationLogicalName extends GXDLMSObject
             for (GXDLMSObject it : objectList) {
                 ++pos;
                 if (!(pos <= settings.getIndex())) {
-                    data.setUInt8(DataType.STRUCTURE.getValue());
-                    // Count
-                    data.setUInt8(4);
-                    // ClassID
-                    GXCommon.setData(data, DataType.UINT16,
-                            it.getObjectType().getValue());
-                    // Version
-                    GXCommon.setData(data, DataType.UINT8, it.getVersion());
-                    // LN
-                    GXCommon.setData(data, DataType.OCTET_STRING,
-                            GXCommon.logicalNameToBytes(it.getLogicalName()));
-                    getAccessRights(it, e.getServer(), data); // Access rights.
+                    addObject(it, e, data);
                     settings.setIndex(settings.getIndex() + 1);
                     if (settings.isServer()) {
                         // If PDU is full.
@@ -494,6 +519,32 @@ public class GXDLMSAssociationLogicalName extends GXDLMSObject
 
     }
 
+    /**
+     * Add object list item.
+     * 
+     * @param it
+     *            COSEM object.
+     * @param e
+     *            Value event arguments.
+     * @param data
+     *            Byte buffer where item is added.
+     */
+    private void addObject(final GXDLMSObject it, final ValueEventArgs e,
+            final GXByteBuffer data) throws Exception {
+        it.setListed();
+        data.setUInt8(DataType.STRUCTURE.getValue());
+        // Count
+        data.setUInt8(4);
+        // ClassID
+        GXCommon.setData(data, DataType.UINT16, it.getObjectType().getValue());
+        // Version
+        GXCommon.setData(data, DataType.UINT8, it.getVersion());
+        // LN
+        GXCommon.setData(data, DataType.OCTET_STRING,
+                GXCommon.logicalNameToBytes(it.getLN()));
+        getAccessRights(it, e.getServer(), data); // Access rights.
+    }
+
     private void getAccessRights(final GXDLMSObject item,
             final GXDLMSServerBase server, final GXByteBuffer data)
             throws Exception {
@@ -644,7 +695,7 @@ public class GXDLMSAssociationLogicalName extends GXDLMSObject
     public final Object getValue(final GXDLMSSettings settings,
             final ValueEventArgs e) {
         if (e.getIndex() == 1) {
-            return GXCommon.logicalNameToBytes(getLogicalName());
+            return GXCommon.logicalNameToBytes(getLN());
         }
         if (e.getIndex() == 2) {
             return getObjects(settings, e);
@@ -60,6 +60,12 @@ public class GXDLMSAssociationShortName extends GXDLMSObject
     private static final Logger LOGGER =
             Logger.getLogger(GXDLMSAssociationShortName.class.getName());
     private GXDLMSObjectCollection objectList;
+
+    /**
+     * Encoded object list.
+     */
+    private final GXDLMSObjectListCache objectListCache =
+            new GXDLMSObjectListCache();
     private String securitySetupReference;
 
     /**
@@ -283,8 +289,28 @@ public class GXDLMSAssociationShortName extends GXDLMSObject
      */
     private byte[] getObjects(final GXDLMSSettings settings,
             final ValueEventArgs e) {
-        GXByteBuffer bb = new GXByteBuffer();
         int cnt = objectList.size();
+        // Server encodes the whole list only once. Long transaction sends it
+        // in blocks.
+        if (settings.isServer() && settings.getIndex() == 0) {
+            GXDLMSObjectListCache.Key key = new GXDLMSObjectListCache.Key(
+                    objectList, null, settings.getAuthentication());
+            byte[] list = objectListCache.find(key);
+            if (list == null) {
+                GXByteBuffer data = new GXByteBuffer();
+                data.setUInt8((byte) DataType.ARRAY.getValue());
+                GXCommon.setObjectCount(cnt, data);
+                for (GXDLMSObject it : objectList) {
+                    addObject(it, data);
+                }
+                list = data.array();
+                objectListCache.update(key, list);
+            }
+            settings.setCount(cnt);
+            settings.setIndex(cnt);
+            return list;
+        }
+        GXByteBuffer bb = new GXByteBuffer();
 
         // Add count only for first time.
         if (settings.getIndex() == 0) {
@@ -298,19 +324,7 @@ public class GXDLMSAssociationShortName extends GXDLMSObject
             for (GXDLMSObject it : objectList) {
                 ++pos;
                 if (!(pos <= settings.getIndex())) {
-                    bb.setUInt8((byte) DataType.STRUCTURE.getValue());
-                    // Count
-                    bb.setUInt8((byte) 4);
-                    // base address.
-                    GXCommon.setData(bb, DataType.INT16, it.getShortName());
-                    // ClassID
-                    GXCommon.setData(bb, DataType.UINT16,
-                            it.getObjectType().getValue());
-                    // Version
-                    GXCommon.setData(bb, DataType.UINT8, 0);
-                    // LN
-                    GXCommon.setData(bb, DataType.OCTET_STRING,
-                            GXCommon.logicalNameToBytes(it.getLogicalName()));
+                    addObject(it, bb);
                     settings.setIndex(settings.getIndex() + 1);
                     if (settings.isServer()) {
                         // If PDU is full.
@@ -325,6 +339,31 @@ public class GXDLMSAssociationShortName extends GXDLMSObject
         return bb.array();
     }
 
+    /**
+     * Add object list item.
+     * 
+     * @param it
+     *            COSEM object.
+     * @param bb
+     *            Byte buffer where item is added.
+     */
+    private static void addObject(final GXDLMSObject it,
+            final GXByteBuffer bb) {
+        it.setListed();
+        bb.setUInt8((byte) DataType.STRUCTURE.getValue());
+        // Count
+        bb.setUInt8((byte) 4);
+        // base address.
+        GXCommon.setData(bb, DataType.INT16, it.getShortName());
+        // ClassID
+        GXCommon.setData(bb, DataType.UINT16, it.getObjectType().getValue());
+        // Version
+        GXCommon.setData(bb, DataType.UINT8, 0);
+        // LN
+        GXCommon.setData(bb, DataType.OCTET_STRING,
+                GXCommon.logicalNameToBytes(it.getLN()));
+    }
+
     /*
      * Returns value of given attribute.
      */
@@ -333,7 +372,7 @@ public class GXDLMSAssociationShortName extends GXDLMSObject
             final ValueEventArgs e) {
         GXByteBuffer bb = new GXByteBuffer();
         if (e.getIndex() == 1) {
-            return GXCommon.logicalNameToBytes(getLogicalName());
+            return GXCommon.logicalNameToBytes(getLN());
         } else if (e.getIndex() == 2) {
             return getObjects(settings, e);
         } else if (e.getIndex() == 3) {
@@ -239,7 +239,7 @@ public class GXDLMSAutoAnswer extends GXDLMSObject implements IGXDLMSBase {
     public final Object getValue(final GXDLMSSettings settings,
             final ValueEventArgs e) {
         if (e.getIndex() == 1) {
-            return GXCommon.logicalNameToBytes(getLogicalName());
+            return GXCommon.logicalNameToBytes(getLN());
         }
         if (e.getIndex() == 2) {
             return new Integer(getMode().ordinal());
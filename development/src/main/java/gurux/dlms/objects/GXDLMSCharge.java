@@ -591,7 +591,7 @@ public class GXDLMSCharge extends GXDLMSObject implements IGXDLMSBase {
             final ValueEventArgs e) {
         switch (e.getIndex()) {
         case 1:
-            return GXCommon.logicalNameToBytes(getLogicalName());
+            return GXCommon.logicalNameToBytes(getLN());
         case 2:
             return totalAmountPaid;
         case 3:
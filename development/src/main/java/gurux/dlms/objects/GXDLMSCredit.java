@@ -417,7 +417,7 @@ public class GXDLMSCredit extends GXDLMSObject implements IGXDLMSBase {
             final ValueEventArgs e) {
         switch (e.getIndex()) {
         case 1:
-            return GXCommon.logicalNameToBytes(getLogicalName());
+            return GXCommon.logicalNameToBytes(getLN());
         case 2:
             return currentCreditAmount;
         case 3:
@@ -309,7 +309,7 @@ public class GXDLMSGSMDiagnostic extends GXDLMSObject implements IGXDLMSBase {
         GXByteBuffer bb;
         switch (e.getIndex()) {
         case 1:
-            return GXCommon.logicalNameToBytes(getLogicalName());
+            return GXCommon.logicalNameToBytes(getLN());
         case 2:
             if (operator == null) {
                 return null;
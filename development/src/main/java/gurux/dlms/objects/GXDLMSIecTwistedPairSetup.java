@@ -265,7 +265,7 @@ public class GXDLMSIecTwistedPairSetup extends GXDLMSObject
     public final Object getValue(final GXDLMSSettings settings,
             final ValueEventArgs e) {
         if (e.getIndex() == 1) {
-            return GXCommon.logicalNameToBytes(getLogicalName());
+            return GXCommon.logicalNameToBytes(getLN());
         }
         e.setError(ErrorCode.READ_WRITE_DENIED);
         return null;
@@ -34,10 +34,12 @@
 
 package gurux.dlms.objects;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Enumeration;
-import java.util.Hashtable;
+import java.util.BitSet;
 import java.util.List;
 
 import javax.xml.stream.XMLStreamException;
@@ -54,8 +56,32 @@ import gurux.dlms.objects.enums.ImageTransferStatus;
 
 public class GXDLMSImageTransfer extends GXDLMSObject implements IGXDLMSBase {
     private long imageSize;
-    private Hashtable<Long, Object> imageData = new Hashtable<Long, Object>();
+    /**
+     * Received image blocks. Server uses this.
+     */
+    private GXImageBlockStore imageData;
+    /**
+     * SHA-256 digest of the verified image.
+     */
+    private byte[] imageDigest;
+    /**
+     * Size of the verified image.
+     */
+    private long verifiedSize;
     private long imageBlockSize;
+    /**
+     * Transferred blocks.
+     */
+    private final BitSet transferredBlocks = new BitSet();
+    /**
+     * Amount of bits in the transferred blocks status. -1 if status is not
+     * set.
+     */
+    private int transferredBlocksCount = -1;
+    /**
+     * Transferred blocks status as a string. Null if status is changed and
+     * string must be updated.
+     */
     private String imageTransferredBlocksStatus;
     private long imageFirstNotTransferredBlockNumber;
     private boolean imageTransferEnabled;
@@ -118,7 +144,19 @@ public class GXDLMSImageTransfer extends GXDLMSObject implements IGXDLMSBase {
      *         ImageBlock. Each bit in the bit-string provides information about
      *         one individual ImageBlock.
      */
-    public final String getImageTransferredBlocksStatus() {
+    public final synchronized String getImageTransferredBlocksStatus() {
+        if (imageTransferredBlocksStatus == null
+                && transferredBlocksCount != -1) {
+            char[] tmp = new char[transferredBlocksCount];
+            for (int pos = 0; pos != tmp.length; ++pos) {
+                if (transferredBlocks.get(pos)) {
+                    tmp[pos] = '1';
+                } else {
+                    tmp[pos] = '0';
+                }
+            }
+            imageTransferredBlocksStatus = new String(tmp);
+        }
         return imageTransferredBlocksStatus;
     }
 
@@ -128,10 +166,44 @@ public class GXDLMSImageTransfer extends GXDLMSObject implements IGXDLMSBase {
      *            ImageBlock. Each bit in the bit-string provides information
      *            about one individual ImageBlock.
      */
-    public final void setImageTransferredBlocksStatus(final String value) {
+    public final synchronized void
+            setImageTransferredBlocksStatus(final String value) {
+        transferredBlocks.clear();
+        if (value == null) {
+            transferredBlocksCount = -1;
+        } else {
+            transferredBlocksCount = value.length();
+            for (int pos = 0; pos != value.length(); ++pos) {
+                if (value.charAt(pos) == '1') {
+                    transferredBlocks.set(pos);
+                }
+            }
+        }
         imageTransferredBlocksStatus = value;
     }
 
+    /**
+     * Mark image block transferred.
+     * 
+     * @param index
+     *            Block index.
+     */
+    private synchronized void setTransferred(final long index) {
+        if (index < 0 || index >= transferredBlocksCount) {
+            throw new IllegalArgumentException("Invalid image block number.");
+        }
+        transferredBlocks.set((int) index);
+        imageTransferredBlocksStatus = null;
+    }
+
+    /**
+     * @return SHA-256 digest of the received image. Server counts this when
+     *         image is verified. Null if image is not verified.
+     */
+    public final byte[] getImageDigest() {
+        return imageDigest;
+    }
+
     /**
      * @return Provides the ImageBlockNumber of the first ImageBlock not
      *         transferred. NOTE If the Image is complete, the value returned
@@ -256,7 +328,6 @@ public class GXDLMSImageTransfer extends GXDLMSObject implements IGXDLMSBase {
         // Image transfer initiate
         if (e.getIndex() == 1) {
             imageFirstNotTransferredBlockNumber = 0;
-            imageTransferredBlocksStatus = "";
             Object[] value = (Object[]) e.getParameters();
             String imageIdentifier = new String((byte[]) value[0]);
             imageSize = ((Number) value[1]).longValue();
@@ -283,46 +354,75 @@ public class GXDLMSImageTransfer extends GXDLMSObject implements IGXDLMSBase {
             if (imageSize % imageBlockSize != 0) {
                 ++cnt;
             }
-            StringBuilder sb = new StringBuilder(cnt);
-            for (long pos = 0; pos < cnt; ++pos) {
-                sb.append('0');
+            synchronized (this) {
+                transferredBlocks.clear();
+                transferredBlocksCount = cnt;
+                imageTransferredBlocksStatus = null;
+            }
+            closeImageData();
+            imageDigest = null;
+            verifiedSize = 0;
+            try {
+                imageData = new GXImageBlockStore(imageSize, imageBlockSize);
+            } catch (IOException ex) {
+                imageData = null;
+                throw new RuntimeException(ex.getMessage());
             }
-            imageTransferredBlocksStatus = sb.toString();
             return null;
         } else if (e.getIndex() == 2) {
             // Image block transfer
             Object[] value = (Object[]) e.getParameters();
             long imageIndex = ((Number) value[0]).longValue();
-            byte[] tmp = imageTransferredBlocksStatus.getBytes();
-            tmp[(int) imageIndex] = '1';
-            imageTransferredBlocksStatus = new String(tmp);
+            if (imageData == null) {
+                throw new RuntimeException("Image transfer is not initiated.");
+            }
+            setTransferred(imageIndex);
             imageFirstNotTransferredBlockNumber = imageIndex + 1;
-            imageData.put(imageIndex, (byte[]) value[1]);
+            try {
+                imageData.put(imageIndex, (byte[]) value[1]);
+            } catch (IOException ex) {
+                throw new RuntimeException(ex.getMessage());
+            }
             imageTransferStatus = ImageTransferStatus.IMAGE_TRANSFER_INITIATED;
             return null;
         } else if (e.getIndex() == 3) {
             // Image verify
             imageTransferStatus =
                     ImageTransferStatus.IMAGE_VERIFICATION_INITIATED;
-            // Check that size match.
-            int size = 0;
-            Enumeration<Object> keys = imageData.elements();
-            byte[] value;
-            while (keys.hasMoreElements()) {
-                value = (byte[]) keys.nextElement();
-                size += value.length;
+            // Image blocks are released after the image is verified.
+            // Digest and size are kept so verify gives the same result
+            // again.
+            if (imageData == null && imageDigest != null
+                    && verifiedSize == imageSize) {
+                imageTransferStatus =
+                        ImageTransferStatus.IMAGE_VERIFICATION_SUCCESSFUL;
+                return null;
             }
-            if (size != imageSize) {
+            // Check that size match.
+            if (imageData == null || imageData.getSize() != imageSize) {
                 // Return HW error.
                 imageTransferStatus =
                         ImageTransferStatus.IMAGE_VERIFICATION_FAILED;
                 throw new RuntimeException("Invalid image size.");
             }
+            try {
+                imageDigest = imageData.getDigest();
+            } catch (IOException ex) {
+                imageTransferStatus =
+                        ImageTransferStatus.IMAGE_VERIFICATION_FAILED;
+                throw new RuntimeException(ex.getMessage());
+            }
+            if (imageDigest != null) {
+                // Blocks are not needed after the image is verified.
+                verifiedSize = imageData.getSize();
+                closeImageData();
+            }
             imageTransferStatus =
                     ImageTransferStatus.IMAGE_VERIFICATION_SUCCESSFUL;
             return null;
         } else if (e.getIndex() == 4) {
             // Image activate.
+            closeImageData();
             imageTransferStatus =
                     ImageTransferStatus.IMAGE_ACTIVATION_SUCCESSFUL;
             return null;
@@ -332,6 +432,16 @@ public class GXDLMSImageTransfer extends GXDLMSObject implements IGXDLMSBase {
         }
     }
 
+    /**
+     * Close image block store and remove the temporary file.
+     */
+    private void closeImageData() {
+        if (imageData != null) {
+            imageData.close();
+            imageData = null;
+        }
+    }
+
     @Override
     public final DataType getDataType(final int index) {
         if (index == 1) {
@@ -366,13 +476,13 @@ public class GXDLMSImageTransfer extends GXDLMSObject implements IGXDLMSBase {
     public final Object getValue(final GXDLMSSettings settings,
             final ValueEventArgs e) {
         if (e.getIndex() == 1) {
-            return GXCommon.logicalNameToBytes(getLogicalName());
+            return GXCommon.logicalNameToBytes(getLN());
         }
         if (e.getIndex() == 2) {
             return new Long(getImageBlockSize());
         }
         if (e.getIndex() == 3) {
-            return imageTransferredBlocksStatus;
+            return getImageTransferredBlocksStatus();
         }
         if (e.getIndex() == 4) {
             return new Long(getImageFirstNotTransferredBlockNumber());
@@ -424,9 +534,9 @@ public class GXDLMSImageTransfer extends GXDLMSObject implements IGXDLMSBase {
             }
         } else if (e.getIndex() == 3) {
             if (e.getValue() == null) {
-                imageTransferredBlocksStatus = "";
+                setImageTransferredBlocksStatus("");
             } else {
-                imageTransferredBlocksStatus = e.getValue().toString();
+                setImageTransferredBlocksStatus(e.getValue().toString());
             }
         } else if (e.getIndex() == 4) {
             if (e.getValue() == null) {
@@ -488,46 +598,69 @@ public class GXDLMSImageTransfer extends GXDLMSObject implements IGXDLMSBase {
 
     public final byte[][] imageBlockTransfer(final GXDLMSClient client,
             final byte[] imageBlockValue, final int[] imageBlockCount) {
-        int cnt = (int) (imageBlockValue.length / imageBlockSize);
-        if (imageBlockValue.length % imageBlockSize != 0) {
-            ++cnt;
-        }
+        GXImageBlockIterator it = imageBlockTransfer(client,
+                ByteBuffer.wrap(imageBlockValue), false);
         if (imageBlockCount != null) {
-            imageBlockCount[0] = cnt;
+            imageBlockCount[0] = (int) it.getBlockCount();
         }
         List<byte[]> packets = new ArrayList<byte[]>();
-        for (int pos = 0; pos != cnt; ++pos) {
-            GXByteBuffer data = new GXByteBuffer();
-            data.setUInt8(DataType.STRUCTURE.getValue());
-            data.setUInt8(2);
-            GXCommon.setData(data, DataType.UINT32, new Integer(pos));
-            byte[] tmp;
-            int bytes = (int) (imageBlockValue.length
-                    - ((pos + 1) * imageBlockSize));
-            // If last packet
-            if (bytes < 0) {
-                bytes = (int) (imageBlockValue.length - (pos * imageBlockSize));
-                tmp = new byte[bytes];
-                System.arraycopy(imageBlockValue, (int) (pos * imageBlockSize),
-                        tmp, 0, bytes);
-            } else {
-                tmp = new byte[(int) imageBlockSize];
-                System.arraycopy(imageBlockValue, (int) (pos * imageBlockSize),
-                        tmp, 0, (int) imageBlockSize);
-            }
-            GXCommon.setData(data, DataType.OCTET_STRING, tmp);
-            packets.addAll(Arrays.asList(
-                    client.method(this, 2, data.array(), DataType.ARRAY)));
+        while (it.hasNext()) {
+            packets.addAll(Arrays.asList(it.next()));
         }
-        byte[][] tmp = new byte[packets.size()][];
-        int pos = -1;
-        for (byte[] it : packets) {
-            ++pos;
-            tmp[pos] = new byte[it.length];
-            System.arraycopy(it, 0, tmp[pos], 0, it.length);
+        return packets.toArray(new byte[packets.size()][]);
+    }
+
+    /**
+     * Generate image block transfer actions one block at the time. Image is
+     * read from the stream when blocks are needed.
+     * 
+     * @param client
+     *            DLMS client that is used to generate actions.
+     * @param image
+     *            Image stream. Stream is not closed.
+     * @param size
+     *            Image size in bytes.
+     * @param resume
+     *            If true, transfer continues from the first not transferred
+     *            block and blocks that are marked as transferred are skipped.
+     *            Read image first not transferred block number and image
+     *            transferred blocks status from the meter before this.
+     * @return Iterator that returns frames of each image block.
+     */
+    public final GXImageBlockIterator imageBlockTransfer(
+            final GXDLMSClient client, final InputStream image,
+            final long size, final boolean resume) {
+        if (image == null) {
+            throw new IllegalArgumentException("image");
         }
-        return tmp;
+        return new GXImageBlockIterator(client, this, image, null, size,
+                resume);
+    }
 
+    /**
+     * Generate image block transfer actions one block at the time. Image is
+     * read from the buffer when blocks are needed. Buffer can be memory mapped
+     * file.
+     * 
+     * @param client
+     *            DLMS client that is used to generate actions.
+     * @param image
+     *            Image from the current position to the limit.
+     * @param resume
+     *            If true, transfer continues from the first not transferred
+     *            block and blocks that are marked as transferred are skipped.
+     *            Read image first not transferred block number and image
+     *            transferred blocks status from the meter before this.
+     * @return Iterator that returns frames of each image block.
+     */
+    public final GXImageBlockIterator imageBlockTransfer(
+            final GXDLMSClient client, final ByteBuffer image,
+            final boolean resume) {
+        if (image == null) {
+            throw new IllegalArgumentException("image");
+        }
+        return new GXImageBlockIterator(client, this, null, image,
+                image.remaining(), resume);
     }
 
     public final byte[][] imageVerify(final GXDLMSClient client) {
@@ -541,8 +674,8 @@ public class GXDLMSImageTransfer extends GXDLMSObject implements IGXDLMSBase {
     @Override
     public final void load(final GXXmlReader reader) throws XMLStreamException {
         imageBlockSize = reader.readElementContentAsInt("ImageBlockSize");
-        imageTransferredBlocksStatus = reader
-                .readElementContentAsString("ImageTransferredBlocksStatus");
+        setImageTransferredBlocksStatus(reader
+                .readElementContentAsString("ImageTransferredBlocksStatus"));
         imageFirstNotTransferredBlockNumber = reader.readElementContentAsLong(
                 "ImageFirstNotTransferredBlockNumber");
         imageTransferEnabled =
@@ -571,7 +704,7 @@ public class GXDLMSImageTransfer extends GXDLMSObject implements IGXDLMSBase {
     public final void save(final GXXmlWriter writer) throws XMLStreamException {
         writer.writeElementString("ImageBlockSize", imageBlockSize);
         writer.writeElementString("ImageTransferredBlocksStatus",
-                imageTransferredBlocksStatus);
+                getImageTransferredBlocksStatus());
         writer.writeElementString("ImageFirstNotTransferredBlockNumber",
                 imageFirstNotTransferredBlockNumber);
         writer.writeElementString("ImageTransferEnabled", imageTransferEnabled);
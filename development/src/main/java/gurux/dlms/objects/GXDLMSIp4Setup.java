@@ -283,7 +283,7 @@ public class GXDLMSIp4Setup extends GXDLMSObject implements IGXDLMSBase {
             final ValueEventArgs e) {
         GXByteBuffer bb = new GXByteBuffer();
         if (e.getIndex() == 1) {
-            return GXCommon.logicalNameToBytes(getLogicalName());
+            return GXCommon.logicalNameToBytes(getLN());
         }
         if (e.getIndex() == 2) {
             return GXCommon.logicalNameToBytes(getDataLinkLayerReference());
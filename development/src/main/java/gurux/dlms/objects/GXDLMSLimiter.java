@@ -400,7 +400,7 @@ public class GXDLMSLimiter extends GXDLMSObject implements IGXDLMSBase {
     public final Object getValue(final GXDLMSSettings settings,
             final ValueEventArgs e) {
         if (e.getIndex() == 1) {
-            return GXCommon.logicalNameToBytes(getLogicalName());
+            return GXCommon.logicalNameToBytes(getLN());
         } else if (e.getIndex() == 2) {
             GXByteBuffer data = new GXByteBuffer();
             data.setUInt8(DataType.STRUCTURE.getValue());
@@ -408,13 +408,13 @@ public class GXDLMSLimiter extends GXDLMSObject implements IGXDLMSBase {
             if (monitoredValue == null) {
                 GXCommon.setData(data, DataType.INT16, new Integer(0));
                 GXCommon.setData(data, DataType.OCTET_STRING,
-                        GXCommon.logicalNameToBytes(null));
+                        new byte[6]);
                 GXCommon.setData(data, DataType.UINT8, 0);
             } else {
                 GXCommon.setData(data, DataType.INT16,
                         new Integer(monitoredValue.getObjectType().getValue()));
                 GXCommon.setData(data, DataType.OCTET_STRING, GXCommon
-                        .logicalNameToBytes(monitoredValue.getLogicalName()));
+                        .logicalNameToBytes(monitoredValue.getLN()));
                 GXCommon.setData(data, DataType.UINT8, monitoredAttributeIndex);
             }
             return data.array();
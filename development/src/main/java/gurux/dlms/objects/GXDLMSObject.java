@@ -37,10 +37,12 @@ package gurux.dlms.objects;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import gurux.dlms.GXDLMSException;
 import gurux.dlms.GXDLMSServerBase;
 import gurux.dlms.GXDLMSSettings;
+import gurux.dlms.GXLogicalName;
 import gurux.dlms.ValueEventArgs;
 import gurux.dlms.enums.AccessMode;
 import gurux.dlms.enums.DataType;
@@ -55,6 +57,12 @@ import gurux.dlms.manufacturersettings.GXDLMSAttributeSettings;
  * GXDLMSObject provides an interface to DLMS registers.
  */
 public class GXDLMSObject {
+    /**
+     * Amount of changes made to the identity, data types or access rights of
+     * listed objects.
+     */
+    private static final AtomicInteger CHANGES = new AtomicInteger();
+
     private HashMap<Integer, java.util.Date> readTimes =
             new HashMap<Integer, java.util.Date>();
     private int version;
@@ -62,9 +70,26 @@ public class GXDLMSObject {
     private GXAttributeCollection attributes = null;
     private GXAttributeCollection methodAttributes = null;
     private int shortName;
-    private String logicalName;
+    private GXLogicalName logicalName;
+
+    /**
+     * Logical name as it was set. Null if logical name is set as 48-bit
+     * value.
+     */
+    private String logicalNameText;
     private String description;
 
+    /**
+     * Amount of changes made to the identity, data types or access rights of
+     * the object.
+     */
+    private int changeCount;
+
+    /**
+     * Is object added to the association view that server has encoded.
+     */
+    private volatile boolean listed;
+
     /**
      * Constructor.
      */
@@ -94,7 +119,7 @@ public class GXDLMSObject {
                 throw new GXDLMSException("Invalid Logical Name.");
             }
         }
-        logicalName = ln;
+        setLogicalName(ln);
     }
 
     protected static byte[] toByteArray(final List<Byte> list) {
@@ -180,6 +205,7 @@ public class GXDLMSObject {
      *            Interface type of the COSEM object.
      */
     public final void setObjectType(final ObjectType value) {
+        changed();
         objectType = value;
     }
 
@@ -195,6 +221,7 @@ public class GXDLMSObject {
      *            DLMS version number.
      */
     public final void setVersion(final int value) {
+        changed();
         version = value;
     }
 
@@ -218,6 +245,7 @@ public class GXDLMSObject {
      *            The base name of the object.
      */
     public final void setShortName(final int value) {
+        changed();
         shortName = value;
     }
 
@@ -237,17 +265,93 @@ public class GXDLMSObject {
      * @return Logical Name of COSEM object.
      */
     public final String getLogicalName() {
-        return logicalName;
+        if (logicalNameText != null || logicalName == null) {
+            return logicalNameText;
+        }
+        return logicalName.toString();
     }
 
     /**
+     * Set logical name of COSEM object. Value is stored as it is. If value is
+     * not a valid logical name, getLN returns null.
+     * 
      * @param value
      *            Logical Name of COSEM object.
      */
     public final void setLogicalName(final String value) {
+        changed();
+        logicalNameText = value;
+        if (value == null) {
+            logicalName = null;
+        } else {
+            try {
+                logicalName = GXLogicalName.valueOf(value);
+            } catch (IllegalArgumentException e) {
+                logicalName = null;
+            }
+        }
+    }
+
+    /**
+     * @return Logical Name of COSEM object as 48-bit value. Null if logical
+     *         name is not set or it's not valid.
+     */
+    public final GXLogicalName getLN() {
+        return logicalName;
+    }
+
+    /**
+     * @param value
+     *            Logical Name of COSEM object as 48-bit value.
+     */
+    public final void setLN(final GXLogicalName value) {
+        changed();
+        logicalNameText = null;
         logicalName = value;
     }
 
+    /**
+     * Update change counts after the identity, data types or access rights
+     * of the object are changed.
+     */
+    private void changed() {
+        ++changeCount;
+        if (listed) {
+            CHANGES.incrementAndGet();
+        }
+    }
+
+    /**
+     * Amount of changes made to the identity, data types or access rights of
+     * the objects that are added to the association view. Association objects
+     * use this to notice when cached association view is no longer valid
+     * without going through the objects.
+     * 
+     * @return Change count.
+     */
+    static int getChanges() {
+        return CHANGES.get();
+    }
+
+    /**
+     * Association objects call this when object is added to the association
+     * view. After this changes of the object are counted to getChanges.
+     */
+    final void setListed() {
+        listed = true;
+    }
+
+    /**
+     * Amount of changes made to the identity, data types or access rights of
+     * the object. Server uses this to notice when cached attribute
+     * descriptors are no longer valid. This is reserved for internal use.
+     * 
+     * @return Change count.
+     */
+    public final int getChangeCount() {
+        return changeCount;
+    }
+
     /**
      * @return Description of COSEM object.
      */
@@ -304,6 +408,7 @@ public class GXDLMSObject {
      *            Attribute access.
      */
     public final void setAccess(final int index, final AccessMode access) {
+        changed();
         GXDLMSAttributeSettings att = attributes.find(index);
         if (att == null) {
             att = new GXDLMSAttributeSettings(index);
@@ -346,6 +451,7 @@ public class GXDLMSObject {
      */
     public final void setMethodAccess(final int index,
             final MethodAccessMode access) {
+        changed();
         GXDLMSAttributeSettings att = getMethodAttributes().find(index);
         if (att == null) {
             att = new GXDLMSAttributeSettings(index);
@@ -428,6 +534,7 @@ public class GXDLMSObject {
     // CHECKSTYLE:ON
 
     public final void setDataType(final int index, final DataType type) {
+        changed();
         GXDLMSAttributeSettings att = attributes.find(index);
         if (att == null) {
             att = new GXDLMSAttributeSettings(index);
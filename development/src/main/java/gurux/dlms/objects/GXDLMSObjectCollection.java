@@ -34,6 +34,8 @@
 
 package gurux.dlms.objects;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -43,7 +45,9 @@ import java.util.ArrayList;
 
 import javax.xml.stream.XMLStreamException;
 
+import gurux.dlms.GXDLMSBinarySerializer;
 import gurux.dlms.GXDLMSClient;
+import gurux.dlms.GXLogicalName;
 import gurux.dlms.enums.ObjectType;
 
 /**
@@ -78,6 +82,17 @@ public class GXDLMSObjectCollection extends ArrayList<GXDLMSObject>
         parent = value;
     }
 
+    /**
+     * Amount of structural modifications made to the collection. Server uses
+     * this to notice when cached object lookups are no longer valid. This is
+     * reserved for internal use.
+     * 
+     * @return Modification count.
+     */
+    public final int getModificationCount() {
+        return modCount;
+    }
+
     public final GXDLMSObjectCollection getObjects(final ObjectType type) {
         GXDLMSObjectCollection items = new GXDLMSObjectCollection();
         for (GXDLMSObject it : this) {
@@ -102,9 +117,45 @@ public class GXDLMSObjectCollection extends ArrayList<GXDLMSObject>
     }
 
     public final GXDLMSObject findByLN(final ObjectType type, final String ln) {
+        GXLogicalName logicalName;
+        try {
+            logicalName = GXLogicalName.valueOf(ln);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return findByLN(type, logicalName);
+    }
+
+    /**
+     * Find object by logical name.
+     * 
+     * @param type
+     *            Object type. NONE if type is not checked.
+     * @param ln
+     *            Logical name as byte array.
+     * @return Found object or null if object is not found.
+     */
+    public final GXDLMSObject findByLN(final ObjectType type, final byte[] ln) {
+        return findByLN(type, GXLogicalName.valueOf(ln));
+    }
+
+    /**
+     * Find object by logical name.
+     * 
+     * @param type
+     *            Object type. NONE if type is not checked.
+     * @param ln
+     *            Logical name.
+     * @return Found object or null if object is not found.
+     */
+    public final GXDLMSObject findByLN(final ObjectType type,
+            final GXLogicalName ln) {
+        long value = ln.getValue();
+        GXLogicalName logicalName;
         for (GXDLMSObject it : this) {
+            logicalName = it.getLN();
             if ((type == ObjectType.NONE || it.getObjectType() == type)
-                    && it.getLogicalName().trim().equals(ln)) {
+                    && logicalName != null && logicalName.getValue() == value) {
                 return it;
             }
         }
@@ -265,4 +316,44 @@ public class GXDLMSObjectCollection extends ArrayList<GXDLMSObject>
             writer.close();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Load COSEM objects from the binary snapshot file.
+     * 
+     * @param path
+     *            File path.
+     * @return Collection of serialized COSEM objects.
+     * @throws IOException
+     *             IO exception.
+     * @see GXDLMSBinarySerializer
+     */
+    public static GXDLMSObjectCollection loadBinary(final String path)
+            throws IOException {
+        InputStream stream =
+                new BufferedInputStream(new FileInputStream(path));
+        try {
+            return GXDLMSBinarySerializer.load(stream);
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Save COSEM objects and attribute values to the binary snapshot file.
+     * 
+     * @param filename
+     *            File path.
+     * @throws IOException
+     *             IO exception.
+     * @see GXDLMSBinarySerializer
+     */
+    public final void saveBinary(final String filename) throws IOException {
+        OutputStream stream =
+                new BufferedOutputStream(new FileOutputStream(filename));
+        try {
+            GXDLMSBinarySerializer.save(this, stream);
+        } finally {
+            stream.close();
+        }
+    }
+}
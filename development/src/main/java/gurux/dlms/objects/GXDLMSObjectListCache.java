@@ -0,0 +1,184 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms.objects;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import gurux.dlms.enums.Authentication;
+
+/**
+ * Association objects use this class to cache encoded object list. List is
+ * cached for each authentication level. Cached list is used only if
+ * collection, server and change count of the listed objects are the same as
+ * when list was encoded. Access rights are not resolved again when cached list is
+ * used. Key and encoded list are published together so concurrent readers
+ * never see a list of another key. This class is reserved for internal use.
+ */
+final class GXDLMSObjectListCache {
+
+    /**
+     * Cache key. Key is created before the list is encoded so changes made
+     * during encoding invalidate the list.
+     */
+    static final class Key {
+        /**
+         * Objects that are encoded.
+         */
+        private final GXDLMSObjectCollection objects;
+
+        /**
+         * Modification count of the collection.
+         */
+        private final int modificationCount;
+
+        /**
+         * Change count of the listed objects.
+         */
+        private final int changes;
+
+        /**
+         * Server that is used to resolve access rights.
+         */
+        private final Object server;
+
+        /**
+         * Authentication level.
+         */
+        private final Authentication authentication;
+
+        /**
+         * Constructor.
+         * 
+         * @param items
+         *            Objects to encode.
+         * @param forServer
+         *            Server that is used to resolve access rights.
+         * @param forAuthentication
+         *            Current authentication level.
+         */
+        Key(final GXDLMSObjectCollection items, final Object forServer,
+                final Authentication forAuthentication) {
+            objects = items;
+            modificationCount = items.getModificationCount();
+            changes = GXDLMSObject.getChanges();
+            server = forServer;
+            authentication = forAuthentication;
+        }
+
+        /**
+         * Check are keys equal.
+         * 
+         * @param other
+         *            Other key.
+         * @return True, if keys are equal.
+         */
+        boolean isSame(final Key other) {
+            return objects == other.objects
+                    && modificationCount == other.modificationCount
+                    && changes == other.changes && server == other.server
+                    && authentication == other.authentication;
+        }
+    }
+
+    /**
+     * Cached key and encoded object list.
+     */
+    private static final class Entry {
+        /**
+         * Cache key.
+         */
+        private final Key key;
+
+        /**
+         * Encoded object list.
+         */
+        private final byte[] data;
+
+        /**
+         * Constructor.
+         * 
+         * @param forKey
+         *            Cache key.
+         * @param forData
+         *            Encoded object list.
+         */
+        Entry(final Key forKey, final byte[] forData) {
+            key = forKey;
+            data = forData;
+        }
+    }
+
+    /**
+     * Cached entries by authentication level.
+     */
+    private final AtomicReferenceArray<Entry> entries =
+            new AtomicReferenceArray<Entry>(Authentication.values().length);
+
+    /**
+     * Find encoded object list.
+     * 
+     * @param key
+     *            Cache key.
+     * @return Encoded object list or null if list must be encoded again.
+     */
+    byte[] find(final Key key) {
+        Entry tmp = entries.get(key.authentication.ordinal());
+        if (tmp != null && tmp.key.isSame(key)) {
+            return tmp.data;
+        }
+        return null;
+    }
+
+    /**
+     * Save encoded object list.
+     * 
+     * @param key
+     *            Cache key that was created before the list was encoded.
+     * @param value
+     *            Encoded object list.
+     */
+    void update(final Key key, final byte[] value) {
+        entries.set(key.authentication.ordinal(), new Entry(key, value));
+    }
+
+    /**
+     * Remove cached object lists.
+     */
+    void clear() {
+        for (int pos = 0; pos != entries.length(); ++pos) {
+            entries.set(pos, null);
+        }
+    }
+}
@@ -42,9 +42,11 @@ import java.util.Map.Entry;
 import javax.xml.stream.XMLStreamException;
 
 import gurux.dlms.GXByteBuffer;
+import gurux.dlms.GXCompactDateTime;
 import gurux.dlms.GXDLMSClient;
 import gurux.dlms.GXDLMSConverter;
 import gurux.dlms.GXDLMSException;
+import gurux.dlms.GXDLMSObjectSnapshot;
 import gurux.dlms.GXDLMSServerBase;
 import gurux.dlms.GXDLMSSettings;
 import gurux.dlms.GXDateTime;
@@ -58,7 +60,10 @@ import gurux.dlms.internal.GXDataInfo;
 import gurux.dlms.objects.enums.SortMethod;
 
 public class GXDLMSProfileGeneric extends GXDLMSObject implements IGXDLMSBase {
-    private GXProfileGenericUpdater updater = null;
+    /**
+     * Scheduler that captures the profile when server is running.
+     */
+    private GXCaptureScheduler scheduler = null;
 
     private ArrayList<Object[]> buffer = new ArrayList<Object[]>();
     private List<Entry<GXDLMSObject, GXDLMSCaptureObject>> captureObjects;
@@ -70,6 +75,11 @@ public class GXDLMSProfileGeneric extends GXDLMSObject implements IGXDLMSBase {
     private int entriesInUse;
     private int profileEntries;
 
+    /**
+     * Is date-time of the buffer returned as GXCompactDateTime.
+     */
+    private boolean compactDateTime;
+
     /**
      * Constructor.
      */
@@ -221,6 +231,25 @@ public class GXDLMSProfileGeneric extends GXDLMSObject implements IGXDLMSBase {
         capturePeriod = value;
     }
 
+    /**
+     * @return Is date-time of the buffer returned as GXCompactDateTime.
+     */
+    public final boolean isCompactDateTime() {
+        return compactDateTime;
+    }
+
+    /**
+     * Set is date-time of the buffer returned as GXCompactDateTime instead
+     * of GXDateTime. Compact date-time is decoded without Calendar, which
+     * makes reading of large buffers faster.
+     * 
+     * @param value
+     *            Is date-time of the buffer returned as GXCompactDateTime.
+     */
+    public final void setCompactDateTime(final boolean value) {
+        compactDateTime = value;
+    }
+
     /**
      * @return How columns are sorted.
      */
@@ -415,7 +444,7 @@ public class GXDLMSProfileGeneric extends GXDLMSObject implements IGXDLMSBase {
                     it.getKey().getObjectType().getValue());
             // LN
             GXCommon.setData(data, DataType.OCTET_STRING,
-                    GXCommon.logicalNameToBytes(it.getKey().getLogicalName()));
+                    GXCommon.logicalNameToBytes(it.getKey().getLN()));
             // Attribute Index
             GXCommon.setData(data, DataType.INT8,
                     it.getValue().getAttributeIndex());
@@ -595,6 +624,8 @@ public class GXDLMSProfileGeneric extends GXDLMSObject implements IGXDLMSBase {
                 Object tmp = ((Object[]) row)[0];
                 if (tmp instanceof GXDateTime) {
                     tm = ((GXDateTime) tmp).getMeterCalendar().getTime();
+                } else if (tmp instanceof GXCompactDateTime) {
+                    tm = ((GXCompactDateTime) tmp).toDate();
                 } else {
                     tm = (java.util.Date) tmp;
                 }
@@ -665,7 +696,7 @@ public class GXDLMSProfileGeneric extends GXDLMSObject implements IGXDLMSBase {
     public final Object getValue(final GXDLMSSettings settings,
             final ValueEventArgs e) {
         if (e.getIndex() == 1) {
-            return GXCommon.logicalNameToBytes(getLogicalName());
+            return GXCommon.logicalNameToBytes(getLN());
         }
         if (e.getIndex() == 2) {
             return getProfileGenericData(settings, e);
@@ -698,7 +729,7 @@ public class GXDLMSProfileGeneric extends GXDLMSObject implements IGXDLMSBase {
                         sortObject.getObjectType().getValue());
                 // LN
                 GXCommon.setData(data, DataType.OCTET_STRING, GXCommon
-                        .logicalNameToBytes(sortObject.getLogicalName()));
+                        .logicalNameToBytes(sortObject.getLN()));
                 // Attribute Index
                 GXCommon.setData(data, DataType.INT8, sortObjectAttributeIndex);
                 // Data Index
@@ -852,7 +883,8 @@ public class GXDLMSProfileGeneric extends GXDLMSObject implements IGXDLMSBase {
             throw new RuntimeException("Read capture objects first.");
         }
         if (e.getValue() != null) {
-            java.util.Calendar lastDate = java.util.Calendar.getInstance();
+            // Time of the last captured row in milliseconds.
+            long lastDate = System.currentTimeMillis();
             DataType[] types = new DataType[cols.size()];
             int colIndex = -1;
             // CHECKSTYLE:OFF
@@ -872,24 +904,38 @@ public class GXDLMSProfileGeneric extends GXDLMSObject implements IGXDLMSBase {
                     DataType type = types[colIndex];
                     if (type != DataType.NONE && type != null
                             && data instanceof byte[]) {
-                        data = GXDLMSClient.changeType((byte[]) data, type);
-                        if (data instanceof GXDateTime) {
-                            GXDateTime dt = (GXDateTime) data;
-                            lastDate.setTime(dt.getMeterCalendar().getTime());
+                        data = GXDLMSClient.changeType((byte[]) data, type,
+                                compactDateTime);
+                        if (data instanceof GXCompactDateTime) {
+                            lastDate = ((GXCompactDateTime) data)
+                                    .getEpochMilliseconds();
+                        } else if (data instanceof GXDateTime) {
+                            lastDate = ((GXDateTime) data).getMeterCalendar()
+                                    .getTimeInMillis();
                         }
                         row[colIndex] = data;
                     } else if (type == DataType.DATETIME && data == null
                             && capturePeriod != 0) {
-                        if (lastDate.getTimeInMillis() == 0
-                                && !buffer.isEmpty()) {
-                            lastDate.setTime(((GXDateTime) buffer
-                                    .get(buffer.size() - 1)[colIndex])
-                                            .getMeterCalendar().getTime());
+                        if (lastDate == 0 && !buffer.isEmpty()) {
+                            Object last =
+                                    buffer.get(buffer.size() - 1)[colIndex];
+                            if (last instanceof GXCompactDateTime) {
+                                lastDate = ((GXCompactDateTime) last)
+                                        .getEpochMilliseconds();
+                            } else {
+                                lastDate = ((GXDateTime) last)
+                                        .getMeterCalendar().getTimeInMillis();
+                            }
                         }
-                        if (lastDate.getTimeInMillis() != 0) {
-                            lastDate.add(java.util.Calendar.SECOND,
-                                    capturePeriod);
-                            row[colIndex] = new GXDateTime(lastDate.getTime());
+                        if (lastDate != 0) {
+                            lastDate += capturePeriod * 1000L;
+                            if (compactDateTime) {
+                                row[colIndex] =
+                                        GXCompactDateTime.valueOf(lastDate);
+                            } else {
+                                row[colIndex] = new GXDateTime(
+                                        new java.util.Date(lastDate));
+                            }
                         }
                     }
                     Entry<GXDLMSObject, GXDLMSCaptureObject> item =
@@ -946,25 +992,34 @@ public class GXDLMSProfileGeneric extends GXDLMSObject implements IGXDLMSBase {
      * capture objects.
      */
     public final void capture(final Object server) throws Exception {
-        synchronized (this) {
-            GXDLMSServerBase srv = (GXDLMSServerBase) server;
-            Object[] values = new Object[captureObjects.size()];
+        GXDLMSServerBase srv = (GXDLMSServerBase) server;
+        ValueEventArgs[] args = new ValueEventArgs[] {
+                new ValueEventArgs(srv, this, 2, 0, null) };
+        // Profile is not locked while user callbacks are invoked or capture
+        // objects are read.
+        srv.notifyPreGet(args);
+        if (!args[0].getHandled()) {
+            List<Entry<GXDLMSObject, GXDLMSCaptureObject>> cols;
+            synchronized (this) {
+                cols = new ArrayList<Entry<GXDLMSObject, GXDLMSCaptureObject>>(
+                        captureObjects);
+            }
+            Object[] values = new Object[cols.size()];
             int pos = 0;
-            ValueEventArgs[] args = new ValueEventArgs[] {
-                    new ValueEventArgs(srv, this, 2, 0, null) };
-            srv.notifyPreGet(args);
-            if (!args[0].getHandled()) {
-                // CHECKSTYLE:OFF
-                for (Entry<GXDLMSObject, GXDLMSCaptureObject> it : captureObjects) {
-                    // CHECKSTYLE:ON
+            for (Entry<GXDLMSObject, GXDLMSCaptureObject> it : cols) {
+                synchronized (it.getKey()) {
                     values[pos] = it.getKey()
                             .getValues()[it.getValue().getAttributeIndex() - 1];
-                    ++pos;
                 }
-                synchronized (this) {
+                ++pos;
+            }
+            synchronized (this) {
+                // Row is skipped if capture objects were changed while values
+                // were read.
+                if (captureObjects.size() == values.length) {
                     // Remove first items if buffer is full.
                     if (getProfileEntries() != 0
-                            && getProfileEntries() == getBuffer().length) {
+                            && getProfileEntries() == buffer.size()) {
                         --entriesInUse;
                         buffer.remove(0);
                     }
@@ -972,26 +1027,32 @@ public class GXDLMSProfileGeneric extends GXDLMSObject implements IGXDLMSBase {
                     ++entriesInUse;
                 }
             }
-            srv.notifyPostGet(args);
-            srv.notifyAction(args);
-            srv.notifyPostAction(args);
+            GXDLMSObjectSnapshot snapshot = srv.getSnapshot();
+            if (snapshot != null) {
+                // Buffer is read from the object. Only entries in use is
+                // published.
+                snapshot.publish(this, 7);
+            }
         }
+        srv.notifyPostGet(args);
+        srv.notifyAction(args);
+        srv.notifyPostAction(args);
     }
 
     @Override
     public final void start(final GXDLMSServerBase server) {
         if (getCapturePeriod() > 0) {
-            updater = new GXProfileGenericUpdater(server, this);
-            updater.start();
+            scheduler = server.getCaptureScheduler();
+            scheduler.add(server, this);
         }
     }
 
     @Override
     public final void stop(final GXDLMSServerBase server)
             throws InterruptedException {
-        if (updater != null) {
-            updater.getReceivedEvent().set();
-            updater.join(10000);
+        if (scheduler != null) {
+            scheduler.remove(this);
+            scheduler = null;
         }
     }
 
@@ -305,7 +305,7 @@ public class GXDLMSPushSetup extends GXDLMSObject implements IGXDLMSBase {
     public final Object getValue(final GXDLMSSettings settings,
             final ValueEventArgs e) {
         if (e.getIndex() == 1) {
-            return GXCommon.logicalNameToBytes(getLogicalName());
+            return GXCommon.logicalNameToBytes(getLN());
         }
         GXByteBuffer buff = new GXByteBuffer();
         if (e.getIndex() == 2) {
@@ -317,7 +317,7 @@ public class GXDLMSPushSetup extends GXDLMSObject implements IGXDLMSBase {
                 GXCommon.setData(buff, DataType.UINT16,
                         new Integer(it.getKey().getObjectType().getValue()));
                 GXCommon.setData(buff, DataType.OCTET_STRING, GXCommon
-                        .logicalNameToBytes(it.getKey().getLogicalName()));
+                        .logicalNameToBytes(it.getKey().getLN()));
                 GXCommon.setData(buff, DataType.INT8,
                         new Integer(it.getValue().getAttributeIndex()));
                 GXCommon.setData(buff, DataType.UINT16,
@@ -250,7 +250,7 @@ public class GXDLMSRegister extends GXDLMSObject implements IGXDLMSBase {
             final ValueEventArgs e) {
         // CHECKSTYLE:ON
         if (e.getIndex() == 1) {
-            return GXCommon.logicalNameToBytes(getLogicalName());
+            return GXCommon.logicalNameToBytes(getLN());
         }
         if (e.getIndex() == 2) {
             // If client set new value.
@@ -164,7 +164,7 @@ public class GXDLMSSchedule extends GXDLMSObject implements IGXDLMSBase {
     public final Object getValue(final GXDLMSSettings settings,
             final ValueEventArgs e) {
         if (e.getIndex() == 1) {
-            return GXCommon.logicalNameToBytes(getLogicalName());
+            return GXCommon.logicalNameToBytes(getLN());
         }
         // TODO:
         e.setError(ErrorCode.READ_WRITE_DENIED);
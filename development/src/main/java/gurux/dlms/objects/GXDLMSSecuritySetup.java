@@ -72,6 +72,7 @@ import gurux.dlms.objects.enums.SecurityPolicy;
 import gurux.dlms.objects.enums.SecurityPolicy0;
 import gurux.dlms.objects.enums.SecuritySuite;
 import gurux.dlms.secure.GXASymmetric;
+import gurux.dlms.secure.GXDLMSKeyRotator;
 import gurux.dlms.secure.GXDLMSSecureClient;
 
 public class GXDLMSSecuritySetup extends GXDLMSObject implements IGXDLMSBase {
@@ -288,7 +289,7 @@ public class GXDLMSSecuritySetup extends GXDLMSObject implements IGXDLMSBase {
             bb.setUInt8(DataType.STRUCTURE.getValue());
             bb.setUInt8(2);
             GXCommon.setData(bb, DataType.ENUM, it.getKey().ordinal());
-            tmp = GXDLMSSecureClient.encrypt(kek, it.getValue());
+            tmp = GXDLMSKeyRotator.wrap(kek, it.getValue());
             GXCommon.setData(bb, DataType.OCTET_STRING, tmp);
         }
         return client.method(this, 2, bb.array(), DataType.ARRAY);
@@ -993,7 +994,7 @@ public class GXDLMSSecuritySetup extends GXDLMSObject implements IGXDLMSBase {
     public final Object getValue(final GXDLMSSettings settings,
             final ValueEventArgs e) {
         if (e.getIndex() == 1) {
-            return GXCommon.logicalNameToBytes(getLogicalName());
+            return GXCommon.logicalNameToBytes(getLN());
         }
         if (e.getIndex() == 2) {
             if (getVersion() == 0) {
@@ -342,7 +342,7 @@ public class GXDLMSTokenGateway extends GXDLMSObject implements IGXDLMSBase {
         GXByteBuffer bb;
         switch (e.getIndex()) {
         case 1:
-            return GXCommon.logicalNameToBytes(getLogicalName());
+            return GXCommon.logicalNameToBytes(getLN());
         case 2:
             return token;
         case 3:
@@ -0,0 +1,285 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms.objects;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import gurux.dlms.GXByteBuffer;
+import gurux.dlms.GXDLMSClient;
+import gurux.dlms.enums.DataType;
+import gurux.dlms.internal.GXCommon;
+
+/**
+ * Image block transfer iterator. Image blocks are read when they are needed
+ * and frames of one image_block_transfer action are returned at the time.
+ * Image is read from the input stream or from the byte buffer that can be
+ * memory mapped file. When transfer is resumed, only blocks that are not
+ * transferred are sent.
+ */
+public final class GXImageBlockIterator implements Iterator<byte[][]> {
+    /**
+     * Client that is used to generate actions.
+     */
+    private final GXDLMSClient client;
+
+    /**
+     * Image transfer object.
+     */
+    private final GXDLMSImageTransfer target;
+
+    /**
+     * Image stream. Null if image buffer is used.
+     */
+    private final InputStream stream;
+
+    /**
+     * Image buffer. Null if image stream is used.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Image size in bytes.
+     */
+    private final long imageSize;
+
+    /**
+     * Image block size.
+     */
+    private final int blockSize;
+
+    /**
+     * Amount of image blocks.
+     */
+    private final long blockCount;
+
+    /**
+     * Transferred blocks. Null if all blocks are sent.
+     */
+    private final String transferred;
+
+    /**
+     * Position of the stream.
+     */
+    private long streamPosition;
+
+    /**
+     * Next block to send.
+     */
+    private long next;
+
+    /**
+     * Last sent block.
+     */
+    private long current = -1;
+
+    /**
+     * Block data.
+     */
+    private byte[] block;
+
+    /**
+     * Action parameters.
+     */
+    private final GXByteBuffer data = new GXByteBuffer();
+
+    /**
+     * Constructor.
+     * 
+     * @param forClient
+     *            Client that is used to generate actions.
+     * @param forTarget
+     *            Image transfer object.
+     * @param forStream
+     *            Image stream.
+     * @param forBuffer
+     *            Image buffer.
+     * @param forImageSize
+     *            Image size in bytes.
+     * @param resume
+     *            Are only blocks that are not transferred sent.
+     */
+    GXImageBlockIterator(final GXDLMSClient forClient,
+            final GXDLMSImageTransfer forTarget, final InputStream forStream,
+            final ByteBuffer forBuffer, final long forImageSize,
+            final boolean resume) {
+        if (forClient == null) {
+            throw new IllegalArgumentException("forClient");
+        }
+        if (forTarget.getImageBlockSize() <= 0
+                || forTarget.getImageBlockSize() > Integer.MAX_VALUE) {
+            throw new RuntimeException("Invalid image block size");
+        }
+        client = forClient;
+        target = forTarget;
+        stream = forStream;
+        buffer = forBuffer;
+        imageSize = forImageSize;
+        blockSize = (int) forTarget.getImageBlockSize();
+        long cnt = imageSize / blockSize;
+        if (imageSize % blockSize != 0) {
+            ++cnt;
+        }
+        blockCount = cnt;
+        block = new byte[(int) Math.min(blockSize, imageSize)];
+        if (resume) {
+            next = forTarget.getImageFirstNotTransferredBlockNumber();
+            transferred = forTarget.getImageTransferredBlocksStatus();
+        } else {
+            transferred = null;
+        }
+        next = findNext(next);
+    }
+
+    /**
+     * Find next block that is not transferred.
+     * 
+     * @param index
+     *            Block index where search is started.
+     * @return Block index or block count if all blocks are sent.
+     */
+    private long findNext(final long index) {
+        long pos = index;
+        if (transferred != null) {
+            while (pos < blockCount && pos < transferred.length()
+                    && transferred.charAt((int) pos) == '1') {
+                ++pos;
+            }
+        }
+        return Math.min(pos, blockCount);
+    }
+
+    /**
+     * @return Amount of image blocks.
+     */
+    public long getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * @return Index of the block whose frames were returned last time. -1 if
+     *         next is not called yet.
+     */
+    public long getBlockNumber() {
+        return current;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next < blockCount;
+    }
+
+    /**
+     * Read block from the image.
+     * 
+     * @param index
+     *            Block index.
+     * @param count
+     *            Block size.
+     */
+    private void read(final long index, final int count) throws IOException {
+        long offset = index * blockSize;
+        if (buffer != null) {
+            ByteBuffer tmp = buffer.duplicate();
+            tmp.position(buffer.position() + (int) offset);
+            tmp.get(block, 0, count);
+            return;
+        }
+        // Stream is read forward. Transferred blocks are skipped.
+        if (offset < streamPosition) {
+            throw new IllegalStateException("Image stream can't go back.");
+        }
+        while (streamPosition != offset) {
+            long cnt = stream.skip(offset - streamPosition);
+            if (cnt <= 0) {
+                if (stream.read() == -1) {
+                    throw new IOException("Image stream is too short.");
+                }
+                cnt = 1;
+            }
+            streamPosition += cnt;
+        }
+        int pos = 0;
+        while (pos != count) {
+            int cnt = stream.read(block, pos, count - pos);
+            if (cnt == -1) {
+                throw new IOException("Image stream is too short.");
+            }
+            pos += cnt;
+        }
+        streamPosition += count;
+    }
+
+    /**
+     * Get frames of the next image block.
+     * 
+     * @return Frames of one image_block_transfer action.
+     */
+    @Override
+    public byte[][] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        long index = next;
+        int count = (int) Math.min(blockSize, imageSize - index * blockSize);
+        if (block.length != count) {
+            // Last block is shorter.
+            block = new byte[count];
+        }
+        try {
+            read(index, count);
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage());
+        }
+        data.clear();
+        data.setUInt8(DataType.STRUCTURE.getValue());
+        data.setUInt8(2);
+        GXCommon.setData(data, DataType.UINT32, index);
+        GXCommon.setData(data, DataType.OCTET_STRING, block);
+        byte[][] frames =
+                client.method(target, 2, data.array(), DataType.ARRAY);
+        current = index;
+        next = findNext(index + 1);
+        return frames;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
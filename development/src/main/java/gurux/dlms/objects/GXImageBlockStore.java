@@ -0,0 +1,256 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms.objects;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Server side image block store. Received blocks are written to the
+ * temporary file so heap usage doesn't depend on the image size. SHA-256
+ * digest is updated when blocks are received in order, so the image doesn't
+ * need to be read again when it's verified. Owner must close the store when
+ * image is verified or transfer is initiated again, so the temporary file is
+ * removed. This class is reserved for internal use.
+ */
+final class GXImageBlockStore {
+    /**
+     * Image size in bytes.
+     */
+    private final long imageSize;
+
+    /**
+     * Image block size.
+     */
+    private final long blockSize;
+
+    /**
+     * Temporary file.
+     */
+    private final File file;
+
+    /**
+     * Temporary file where blocks are written.
+     */
+    private final RandomAccessFile data;
+
+    /**
+     * Stored blocks.
+     */
+    private final BitSet stored = new BitSet();
+
+    /**
+     * Lengths of the blocks that are not block size.
+     */
+    private final Map<Long, Integer> shortBlocks = new HashMap<Long, Integer>();
+
+    /**
+     * Image digest.
+     */
+    private final MessageDigest digest;
+
+    /**
+     * Amount of blocks from the beginning of the image that are added to the
+     * digest.
+     */
+    private long digested;
+
+    /**
+     * Is block that is already added to the digest received again.
+     */
+    private boolean changed;
+
+    /**
+     * Size of the stored blocks.
+     */
+    private long size;
+
+    /**
+     * Constructor.
+     * 
+     * @param forImageSize
+     *            Image size in bytes.
+     * @param forBlockSize
+     *            Image block size.
+     * @throws IOException
+     *             Temporary file can't be created.
+     */
+    GXImageBlockStore(final long forImageSize, final long forBlockSize)
+            throws IOException {
+        imageSize = forImageSize;
+        blockSize = forBlockSize;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e.getMessage());
+        }
+        file = File.createTempFile("gurux", ".img");
+        try {
+            data = new RandomAccessFile(file, "rw");
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+    }
+
+    /**
+     * @return Amount of image blocks.
+     */
+    private long getBlockCount() {
+        long cnt = imageSize / blockSize;
+        if (imageSize % blockSize != 0) {
+            ++cnt;
+        }
+        return cnt;
+    }
+
+    /**
+     * Get length of the stored block.
+     */
+    private int getLength(final long index) {
+        Integer len = shortBlocks.get(index);
+        if (len == null) {
+            return (int) blockSize;
+        }
+        return len;
+    }
+
+    /**
+     * Add received block.
+     * 
+     * @param index
+     *            Block index.
+     * @param value
+     *            Block data.
+     * @throws IOException
+     *             Write failed.
+     */
+    synchronized void put(final long index, final byte[] value)
+            throws IOException {
+        if (value.length > blockSize) {
+            throw new IllegalArgumentException("Invalid image block size.");
+        }
+        if (stored.get((int) index)) {
+            size -= getLength(index);
+            if (index < digested) {
+                changed = true;
+            }
+        }
+        data.seek(index * blockSize);
+        data.write(value);
+        stored.set((int) index);
+        size += value.length;
+        if (value.length == blockSize) {
+            shortBlocks.remove(index);
+        } else {
+            shortBlocks.put(index, value.length);
+        }
+        if (index == digested && !changed) {
+            digest.update(value);
+            ++digested;
+            // Blocks that are received earlier are added to the digest.
+            update();
+        }
+    }
+
+    /**
+     * Add stored blocks that follow the digested blocks to the digest.
+     */
+    private void update() throws IOException {
+        byte[] tmp = null;
+        while (stored.get((int) digested)) {
+            int len = getLength(digested);
+            if (tmp == null || tmp.length != len) {
+                tmp = new byte[len];
+            }
+            data.seek(digested * blockSize);
+            data.readFully(tmp);
+            digest.update(tmp);
+            ++digested;
+        }
+    }
+
+    /**
+     * @return Size of the stored blocks in bytes.
+     */
+    synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Get image digest.
+     * 
+     * @return SHA-256 digest of the image or null if all blocks are not
+     *         received.
+     * @throws IOException
+     *             Read failed.
+     */
+    synchronized byte[] getDigest() throws IOException {
+        if (changed) {
+            // Blocks are received again. Digest is counted again.
+            digest.reset();
+            digested = 0;
+            changed = false;
+            update();
+        }
+        if (digested < getBlockCount()) {
+            return null;
+        }
+        try {
+            // Digest is cloned so it can be asked again.
+            return ((MessageDigest) digest.clone()).digest();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e.getMessage());
+        }
+    }
+
+    /**
+     * Close and remove the temporary file.
+     */
+    synchronized void close() {
+        try {
+            data.close();
+        } catch (IOException e) {
+            // Temporary file is removed anyway.
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,189 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms.objects;
+
+import java.nio.ByteBuffer;
+
+import gurux.dlms.GXDLMSClient;
+import gurux.dlms.enums.ServiceClass;
+
+/**
+ * Firmware distribution planner. Image is first sent to all meters with
+ * broadcast using unconfirmed actions. The broadcast client is ciphered with
+ * the broadcast key, so blocks are ciphered only once. After that the image
+ * transferred blocks status is read from each meter and only the missing
+ * blocks are sent with unicast.
+ */
+public class GXImageDistribution {
+    /**
+     * Image transfer object. Logical name and image block size are used.
+     */
+    private final GXDLMSImageTransfer target;
+
+    /**
+     * Image identifier.
+     */
+    private final String identifier;
+
+    /**
+     * Image.
+     */
+    private final ByteBuffer image;
+
+    /**
+     * Constructor.
+     * 
+     * @param forTarget
+     *            Image transfer object. Logical name and image block size
+     *            are used.
+     * @param forIdentifier
+     *            Image identifier.
+     * @param forImage
+     *            Image from the current position to the limit. Buffer can be
+     *            memory mapped file.
+     */
+    public GXImageDistribution(final GXDLMSImageTransfer forTarget,
+            final String forIdentifier, final ByteBuffer forImage) {
+        if (forTarget == null) {
+            throw new IllegalArgumentException("forTarget");
+        }
+        if (forImage == null) {
+            throw new IllegalArgumentException("forImage");
+        }
+        if (forTarget.getImageBlockSize() <= 0) {
+            throw new IllegalArgumentException("Invalid image block size");
+        }
+        target = forTarget;
+        identifier = forIdentifier;
+        image = forImage.slice();
+    }
+
+    /**
+     * @return Amount of image blocks.
+     */
+    public final long getBlockCount() {
+        long cnt = image.remaining() / target.getImageBlockSize();
+        if (image.remaining() % target.getImageBlockSize() != 0) {
+            ++cnt;
+        }
+        return cnt;
+    }
+
+    /**
+     * Generate image transfer initiate action. Broadcast client initiates
+     * the transfer for all meters. Unicast client is used for meters that
+     * didn't receive the broadcast.
+     * 
+     * @param client
+     *            DLMS client.
+     * @return Action frames.
+     */
+    public final byte[][] imageTransferInitiate(final GXDLMSClient client) {
+        return target.imageTransferInitiate(client, identifier,
+                image.remaining());
+    }
+
+    /**
+     * Generate broadcast image block transfer actions. Frames are generated
+     * once and sent to all meters.
+     * 
+     * @param client
+     *            Broadcast client. Client must use unconfirmed service class.
+     * @return Iterator that returns frames of each image block.
+     */
+    public final GXImageBlockIterator broadcast(final GXDLMSClient client) {
+        if (client.getServiceClass() != ServiceClass.UN_CONFIRMED) {
+            throw new IllegalArgumentException(
+                    "Broadcast client must use unconfirmed service class.");
+        }
+        return target.imageBlockTransfer(client, image, false);
+    }
+
+    /**
+     * Generate read request for image transferred blocks status.
+     * 
+     * @param client
+     *            Unicast client of the meter.
+     * @return Read request frames.
+     */
+    public final byte[][]
+            readTransferredBlocksStatus(final GXDLMSClient client) {
+        return client.read(target, 3);
+    }
+
+    /**
+     * Count missing blocks.
+     * 
+     * @param status
+     *            Image transferred blocks status of the meter.
+     * @return Amount of blocks that must be sent with unicast.
+     */
+    public final long getMissingBlockCount(final String status) {
+        long cnt = getBlockCount();
+        long missing = cnt;
+        if (status != null) {
+            long len = Math.min(cnt, status.length());
+            for (int pos = 0; pos != len; ++pos) {
+                if (status.charAt(pos) == '1') {
+                    --missing;
+                }
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Generate unicast image block transfer actions for the missing blocks.
+     * 
+     * @param client
+     *            Unicast client of the meter.
+     * @param status
+     *            Image transferred blocks status of the meter.
+     * @return Iterator that returns frames of each missing image block.
+     */
+    public final GXImageBlockIterator gapFill(final GXDLMSClient client,
+            final String status) {
+        // Meter's status is kept in own object so target is not changed.
+        GXDLMSImageTransfer meter =
+                new GXDLMSImageTransfer(target.getLogicalName(),
+                        target.getShortName());
+        meter.setImageBlockSize(target.getImageBlockSize());
+        meter.setImageTransferredBlocksStatus(status);
+        // Broadcast blocks are not received in order, so all blocks are
+        // checked from the status.
+        meter.setImageFirstNotTransferredBlockNumber(0);
+        return meter.imageBlockTransfer(client, image, true);
+    }
+}
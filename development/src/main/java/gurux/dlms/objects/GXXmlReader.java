@@ -54,6 +54,12 @@ import gurux.dlms.enums.DataType;
  * Read serialized COSEM object from the file.
  */
 public class GXXmlReader implements AutoCloseable {
+    /**
+     * Factory is shared because creating it is expensive. Creating readers is
+     * thread safe when factory is not modified.
+     */
+    private static final XMLInputFactory FACTORY =
+            XMLInputFactory.newInstance();
 
     /**
      * Element name.
@@ -97,8 +103,7 @@ public class GXXmlReader implements AutoCloseable {
      *             Invalid XML stream.
      */
     public GXXmlReader(final InputStream s) throws XMLStreamException {
-        XMLInputFactory inputFactory = XMLInputFactory.newInstance();
-        reader = inputFactory.createXMLStreamReader(s);
+        reader = FACTORY.createXMLStreamReader(s);
         setObjects(new GXDLMSObjectCollection());
     }
 
@@ -115,8 +120,7 @@ public class GXXmlReader implements AutoCloseable {
     public GXXmlReader(final String filename)
             throws XMLStreamException, FileNotFoundException {
         stream = new java.io.FileInputStream(filename);
-        XMLInputFactory inputFactory = XMLInputFactory.newInstance();
-        reader = inputFactory.createXMLStreamReader(stream);
+        reader = FACTORY.createXMLStreamReader(stream);
         setObjects(new GXDLMSObjectCollection());
     }
 
@@ -52,6 +52,13 @@ import gurux.dlms.internal.GXCommon;
  * Save COSEM object to the file.
  */
 public class GXXmlWriter implements AutoCloseable {
+    /**
+     * Factory is shared because creating it is expensive. Creating writers is
+     * thread safe when factory is not modified.
+     */
+    private static final XMLOutputFactory FACTORY =
+            XMLOutputFactory.newInstance();
+
     private XMLStreamWriter writer = null;
     private String newline = System.getProperty("line.separator");
     private int indenting = 0;
@@ -79,9 +86,7 @@ public class GXXmlWriter implements AutoCloseable {
      */
     public GXXmlWriter(final String filename)
             throws FileNotFoundException, XMLStreamException {
-        XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
-        writer = outputFactory
-                .createXMLStreamWriter(new FileOutputStream(filename));
+        writer = FACTORY.createXMLStreamWriter(new FileOutputStream(filename));
     }
 
     /**
@@ -93,8 +98,7 @@ public class GXXmlWriter implements AutoCloseable {
      *             Invalid XML stream.
      */
     public GXXmlWriter(final OutputStream s) throws XMLStreamException {
-        XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
-        writer = outputFactory.createXMLStreamWriter(s);
+        writer = FACTORY.createXMLStreamWriter(s);
     }
 
     /**
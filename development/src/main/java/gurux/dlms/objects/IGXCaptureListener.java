@@ -0,0 +1,73 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms.objects;
+
+/**
+ * Capture scheduler uses this interface to report capture metrics.
+ */
+public interface IGXCaptureListener {
+    /**
+     * Profile generic is captured.
+     * 
+     * @param target
+     *            Captured profile generic.
+     * @param latency
+     *            Time in milliseconds from the capture period boundary to the
+     *            end of the capture.
+     */
+    void onCapture(GXDLMSProfileGeneric target, long latency);
+
+    /**
+     * Capture period boundaries were missed. Missed captures are not made
+     * afterwards. This happens when captures take longer than the capture
+     * period or when system clock is changed.
+     * 
+     * @param target
+     *            Profile generic.
+     * @param count
+     *            Amount of missed boundaries.
+     */
+    void onMissedTicks(GXDLMSProfileGeneric target, long count);
+
+    /**
+     * Capture failed.
+     * 
+     * @param target
+     *            Profile generic.
+     * @param ex
+     *            Occurred exception.
+     */
+    void onError(GXDLMSProfileGeneric target, Exception ex);
+}
@@ -0,0 +1,333 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms.secure;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+import gurux.dlms.GXByteBuffer;
+import gurux.dlms.GXSimpleEntry;
+import gurux.dlms.enums.DataType;
+import gurux.dlms.internal.GXCommon;
+import gurux.dlms.objects.enums.GlobalKeyType;
+
+/**
+ * Key rotator generates global key transfer actions for large amount of
+ * meters. New keys are wrapped with the Key Encrypting Key using multiple
+ * threads and JCE AES key wrap. Actions are generated with the client of each
+ * meter in input order, because invocation counters must grow in the order
+ * actions are sent. Handled meters are saved to the journal so rotation can
+ * continue after restart.
+ */
+public class GXDLMSKeyRotator implements AutoCloseable {
+    /**
+     * How many key transfers are queued for each thread.
+     */
+    private static final int QUEUE_SIZE = 8;
+
+    /**
+     * JCE AES key wrap is used if it's available.
+     */
+    private static final boolean JCE_WRAP = isWrapAvailable();
+
+    /**
+     * Used thread pool.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Is thread pool closed when rotator is closed.
+     */
+    private final boolean closePool;
+
+    /**
+     * Key wrap cipher of each worker thread.
+     */
+    private static final ThreadLocal<Cipher> CIPHERS =
+            new ThreadLocal<Cipher>() {
+                @Override
+                protected Cipher initialValue() {
+                    try {
+                        return Cipher.getInstance("AESWrap");
+                    } catch (GeneralSecurityException e) {
+                        return null;
+                    }
+                }
+            };
+
+    /**
+     * Constructor. Thread count is the number of available processors.
+     */
+    public GXDLMSKeyRotator() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param threads
+     *            Amount of worker threads.
+     */
+    public GXDLMSKeyRotator(final int threads) {
+        this(new ForkJoinPool(threads), true);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param forPool
+     *            Thread pool where keys are wrapped. Pool is not closed when
+     *            rotator is closed.
+     */
+    public GXDLMSKeyRotator(final ForkJoinPool forPool) {
+        this(forPool, false);
+    }
+
+    private GXDLMSKeyRotator(final ForkJoinPool forPool,
+            final boolean forClosePool) {
+        if (forPool == null) {
+            throw new IllegalArgumentException("forPool");
+        }
+        pool = forPool;
+        closePool = forClosePool;
+    }
+
+    private static boolean isWrapAvailable() {
+        try {
+            Cipher.getInstance("AESWrap");
+            return true;
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Wrap key using Key Encrypting Key. JCE AES key wrap is used when it
+     * supports the key sizes. Otherwise software implementation is used. Both
+     * implement RFC 3394 and return the same result.
+     * 
+     * @param kek
+     *            Key Encrypting Key, also known as Master key.
+     * @param key
+     *            Key to wrap.
+     * @return Wrapped key.
+     */
+    public static byte[] wrap(final byte[] kek, final byte[] key) {
+        if (JCE_WRAP && kek != null && key != null
+                && (kek.length == 16 || kek.length == 24 || kek.length == 32)
+                && (key.length == 16 || key.length == 24
+                        || key.length == 32)) {
+            Cipher cipher = CIPHERS.get();
+            if (cipher != null) {
+                try {
+                    cipher.init(Cipher.WRAP_MODE,
+                            new SecretKeySpec(kek, "AES"));
+                    return cipher.wrap(new SecretKeySpec(key, "AES"));
+                } catch (GeneralSecurityException e) {
+                    // Key size is not allowed by the JCE policy.
+                }
+            }
+        }
+        return GXDLMSSecureClient.encrypt(kek, key);
+    }
+
+    /**
+     * Get parameters of the global key transfer action.
+     * 
+     * @param item
+     *            Key transfer.
+     * @return Action parameters.
+     */
+    static byte[] getParameters(final GXKeyTransfer item) {
+        GXByteBuffer bb = new GXByteBuffer();
+        bb.setUInt8(DataType.ARRAY.getValue());
+        bb.setUInt8((byte) item.getKeys().size());
+        for (GXSimpleEntry<GlobalKeyType, byte[]> it : item.getKeys()) {
+            bb.setUInt8(DataType.STRUCTURE.getValue());
+            bb.setUInt8(2);
+            GXCommon.setData(bb, DataType.ENUM, it.getKey().ordinal());
+            GXCommon.setData(bb, DataType.OCTET_STRING,
+                    wrap(item.getKek(), it.getValue()));
+        }
+        return bb.array();
+    }
+
+    /**
+     * Generate global key transfer actions. Only a limited amount of key
+     * transfers are read ahead so memory usage stays constant.
+     * 
+     * @param items
+     *            Key transfers.
+     * @param listener
+     *            Listener where generated actions are returned in input
+     *            order.
+     * @param journal
+     *            Journal where handled meters are saved. Meters that are
+     *            already in the journal are skipped. Null if journal is not
+     *            used.
+     * @return Amount of generated actions.
+     * @throws IOException
+     *             Journal write failed.
+     * @throws InterruptedException
+     *             Rotation is interrupted.
+     */
+    public final long rotate(final Iterator<GXKeyTransfer> items,
+            final IGXKeyTransferListener listener,
+            final GXKeyTransferJournal journal)
+            throws IOException, InterruptedException {
+        if (items == null) {
+            throw new IllegalArgumentException("items");
+        }
+        if (listener == null) {
+            throw new IllegalArgumentException("listener");
+        }
+        int max = QUEUE_SIZE * pool.getParallelism();
+        ArrayDeque<GXKeyTransfer> pending = new ArrayDeque<GXKeyTransfer>();
+        ArrayDeque<Future<byte[]>> tasks = new ArrayDeque<Future<byte[]>>();
+        long count = 0;
+        try {
+            while (items.hasNext()) {
+                GXKeyTransfer it = items.next();
+                if (journal != null && journal.isCompleted(it.getMeterId())) {
+                    continue;
+                }
+                if (pending.size() == max && complete(pending.poll(),
+                        tasks.poll(), listener, journal)) {
+                    ++count;
+                }
+                pending.add(it);
+                tasks.add(pool.submit(new Wrapping(it)));
+            }
+            while (!pending.isEmpty()) {
+                if (complete(pending.poll(), tasks.poll(), listener,
+                        journal)) {
+                    ++count;
+                }
+            }
+        } finally {
+            for (Future<byte[]> it : tasks) {
+                it.cancel(false);
+            }
+            if (journal != null) {
+                journal.flush();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Wait until keys are wrapped and generate the action.
+     * 
+     * @param item
+     *            Key transfer.
+     * @param task
+     *            Wrapping task.
+     * @param listener
+     *            Listener where generated action is returned.
+     * @param journal
+     *            Journal where handled meter is saved.
+     * @return True, if action was generated.
+     */
+    private static boolean complete(final GXKeyTransfer item,
+            final Future<byte[]> task, final IGXKeyTransferListener listener,
+            final GXKeyTransferJournal journal)
+            throws IOException, InterruptedException {
+        byte[][] frames;
+        try {
+            byte[] parameters = task.get();
+            frames = item.getClient().method(item.getTarget(), 2, parameters,
+                    DataType.ARRAY);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            listener.onError(item, (Exception) cause);
+            return false;
+        } catch (RuntimeException e) {
+            listener.onError(item, e);
+            return false;
+        }
+        listener.onKeyTransfer(item, frames);
+        if (journal != null) {
+            journal.completed(item.getMeterId());
+        }
+        return true;
+    }
+
+    /**
+     * Close rotator. Thread pool is closed if it was created by the rotator.
+     */
+    @Override
+    public final void close() {
+        if (closePool) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Keys are wrapped in worker thread.
+     */
+    private static final class Wrapping implements Callable<byte[]> {
+        /**
+         * Key transfer.
+         */
+        private final GXKeyTransfer item;
+
+        /**
+         * Constructor.
+         * 
+         * @param forItem
+         *            Key transfer.
+         */
+        Wrapping(final GXKeyTransfer forItem) {
+            item = forItem;
+        }
+
+        @Override
+        public byte[] call() {
+            return getParameters(item);
+        }
+    }
+}
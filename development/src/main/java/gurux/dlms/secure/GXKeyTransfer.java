@@ -0,0 +1,144 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms.secure;
+
+import java.util.List;
+
+import gurux.dlms.GXDLMSClient;
+import gurux.dlms.GXSimpleEntry;
+import gurux.dlms.objects.GXDLMSSecuritySetup;
+import gurux.dlms.objects.enums.GlobalKeyType;
+
+/**
+ * Global key transfer of one meter. Key rotator uses this to wrap new keys
+ * and to generate the global key transfer action.
+ */
+public class GXKeyTransfer {
+    /**
+     * Meter identifier. This is saved to the journal.
+     */
+    private final String meterId;
+
+    /**
+     * Client that is used to generate the action.
+     */
+    private final GXDLMSClient client;
+
+    /**
+     * Security setup object of the meter.
+     */
+    private final GXDLMSSecuritySetup target;
+
+    /**
+     * Key Encrypting Key, also known as Master key.
+     */
+    private final byte[] kek;
+
+    /**
+     * New keys.
+     */
+    private final List<GXSimpleEntry<GlobalKeyType, byte[]>> keys;
+
+    /**
+     * Constructor.
+     * 
+     * @param forMeterId
+     *            Meter identifier.
+     * @param forClient
+     *            Client that is used to generate the action.
+     * @param forTarget
+     *            Security setup object of the meter.
+     * @param forKek
+     *            Key Encrypting Key, also known as Master key.
+     * @param forKeys
+     *            New keys.
+     */
+    public GXKeyTransfer(final String forMeterId, final GXDLMSClient forClient,
+            final GXDLMSSecuritySetup forTarget, final byte[] forKek,
+            final List<GXSimpleEntry<GlobalKeyType, byte[]>> forKeys) {
+        if (forMeterId == null) {
+            throw new IllegalArgumentException("forMeterId");
+        }
+        if (forClient == null) {
+            throw new IllegalArgumentException("forClient");
+        }
+        if (forTarget == null) {
+            throw new IllegalArgumentException("forTarget");
+        }
+        if (forKeys == null || forKeys.size() == 0) {
+            throw new IllegalArgumentException("Invalid list. It is empty.");
+        }
+        meterId = forMeterId;
+        client = forClient;
+        target = forTarget;
+        kek = forKek;
+        keys = forKeys;
+    }
+
+    /**
+     * @return Meter identifier.
+     */
+    public final String getMeterId() {
+        return meterId;
+    }
+
+    /**
+     * @return Client that is used to generate the action.
+     */
+    public final GXDLMSClient getClient() {
+        return client;
+    }
+
+    /**
+     * @return Security setup object of the meter.
+     */
+    public final GXDLMSSecuritySetup getTarget() {
+        return target;
+    }
+
+    /**
+     * @return Key Encrypting Key, also known as Master key.
+     */
+    public final byte[] getKek() {
+        return kek;
+    }
+
+    /**
+     * @return New keys.
+     */
+    public final List<GXSimpleEntry<GlobalKeyType, byte[]>> getKeys() {
+        return keys;
+    }
+}
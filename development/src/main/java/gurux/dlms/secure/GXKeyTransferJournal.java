@@ -0,0 +1,192 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms.secure;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Checkpoint journal of the key rotation. Identifiers of the meters whose
+ * global key transfer is handled are appended to the file, one on each line.
+ * When rotation is restarted with the same journal, handled meters are
+ * skipped. Journal is flushed after each FLUSH_INTERVAL meters and when it's
+ * closed, so after a crash at most that many meters are handled again.
+ */
+public class GXKeyTransferJournal implements AutoCloseable {
+    /**
+     * How many meters are written before journal is flushed.
+     */
+    public static final int FLUSH_INTERVAL = 100;
+
+    /**
+     * Handled meters.
+     */
+    private final Set<String> completed = new HashSet<String>();
+
+    /**
+     * Journal writer.
+     */
+    private final Writer writer;
+
+    /**
+     * Amount of meters that are not flushed.
+     */
+    private int unflushed;
+
+    /**
+     * Constructor. Existing journal is read and new meters are appended to
+     * it.
+     * 
+     * @param path
+     *            Journal file.
+     * @throws IOException
+     *             Journal can't be read or opened.
+     */
+    public GXKeyTransferJournal(final String path) throws IOException {
+        File file = new File(path);
+        boolean partial = false;
+        if (file.exists()) {
+            partial = !endsWithNewLine(file);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(file), "UTF-8"));
+            try {
+                String line, last = null;
+                while ((line = reader.readLine()) != null) {
+                    if (last != null) {
+                        completed.add(last);
+                    }
+                    last = line;
+                }
+                // Last line is partial if writing was interrupted.
+                if (last != null && !partial) {
+                    completed.add(last);
+                }
+            } finally {
+                reader.close();
+            }
+            completed.remove("");
+        }
+        writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file, true), "UTF-8"));
+        if (partial) {
+            // Partial line is ended so next meter is written to own line.
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Check is the last byte of the file new line.
+     */
+    private static boolean endsWithNewLine(final File file)
+            throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            long len = raf.length();
+            if (len == 0) {
+                return true;
+            }
+            raf.seek(len - 1);
+            return raf.read() == '\n';
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * @return Amount of handled meters.
+     */
+    public final synchronized int getCount() {
+        return completed.size();
+    }
+
+    /**
+     * Is global key transfer of the meter handled.
+     * 
+     * @param meterId
+     *            Meter identifier.
+     * @return True, if meter is already handled.
+     */
+    public final synchronized boolean isCompleted(final String meterId) {
+        return completed.contains(meterId);
+    }
+
+    /**
+     * Save meter as handled.
+     * 
+     * @param meterId
+     *            Meter identifier.
+     * @throws IOException
+     *             Write failed.
+     */
+    public final synchronized void completed(final String meterId)
+            throws IOException {
+        if (meterId.indexOf('\n') != -1 || meterId.indexOf('\r') != -1) {
+            throw new IllegalArgumentException("Invalid meter identifier.");
+        }
+        if (completed.add(meterId)) {
+            writer.write(meterId);
+            writer.write('\n');
+            if (++unflushed == FLUSH_INTERVAL) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Write buffered meters to the file.
+     * 
+     * @throws IOException
+     *             Write failed.
+     */
+    public final synchronized void flush() throws IOException {
+        writer.flush();
+        unflushed = 0;
+    }
+
+    @Override
+    public final synchronized void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,64 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms.secure;
+
+/**
+ * Key rotator uses this interface to return generated global key transfer
+ * actions. Actions are returned in the same order as key transfers were read.
+ */
+public interface IGXKeyTransferListener {
+    /**
+     * Global key transfer action is generated. Key transfer is saved to the
+     * journal after this method returns. If this method throws an exception,
+     * rotation is stopped and key transfer is not saved to the journal.
+     * 
+     * @param item
+     *            Key transfer.
+     * @param frames
+     *            Generated action frames.
+     */
+    void onKeyTransfer(GXKeyTransfer item, byte[][] frames);
+
+    /**
+     * Global key transfer failed. Failed key transfers are not saved to the
+     * journal.
+     * 
+     * @param item
+     *            Key transfer.
+     * @param ex
+     *            Occurred exception.
+     */
+    void onError(GXKeyTransfer item, Exception ex);
+}
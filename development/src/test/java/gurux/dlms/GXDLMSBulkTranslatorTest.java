@@ -0,0 +1,245 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import gurux.dlms.enums.Authentication;
+import gurux.dlms.enums.InterfaceType;
+import gurux.dlms.objects.GXDLMSData;
+
+/**
+ * Bulk translator is compared against a single translator. Results must be
+ * returned in input order and errors must be reported at the index of the
+ * failed PDU.
+ */
+public class GXDLMSBulkTranslatorTest {
+    /**
+     * Amount of translated PDUs.
+     */
+    private static final int COUNT = 20000;
+
+    /**
+     * Every Nth PDU is invalid.
+     */
+    private static final int INVALID = 997;
+
+    /**
+     * Amount of worker threads.
+     */
+    private static final int THREADS = 4;
+
+    /**
+     * PDU that translator can't parse.
+     */
+    private static final byte[] INVALID_PDU = new byte[] { (byte) 0xC0, 1 };
+
+    /**
+     * Listener that collects results and checks that indexes are in order.
+     */
+    private static final class Listener implements IGXTranslatorListener {
+        /**
+         * Next expected index.
+         */
+        private long next;
+
+        /**
+         * Translated XML by index. Null if translation failed.
+         */
+        private final List<String> results = new ArrayList<String>();
+
+        /**
+         * Indexes of failed translations.
+         */
+        private final List<Long> errors = new ArrayList<Long>();
+
+        @Override
+        public void onTranslated(final long index, final String xml) {
+            assertEquals(next, index);
+            ++next;
+            results.add(xml);
+        }
+
+        @Override
+        public void onError(final long index, final Exception ex) {
+            assertEquals(next, index);
+            ++next;
+            results.add(null);
+            errors.add(index);
+        }
+    }
+
+    /**
+     * Create get request PDUs. Every Nth PDU is invalid.
+     * 
+     * @param invalid
+     *            Are invalid PDUs added.
+     * @return PDUs.
+     */
+    private static List<byte[]> createPdus(final boolean invalid) {
+        GXDLMSClient client = new GXDLMSClient(true, 16, 1,
+                Authentication.NONE, null, InterfaceType.PDU);
+        List<byte[]> pdus = new ArrayList<byte[]>(COUNT);
+        for (int pos = 0; pos != COUNT; ++pos) {
+            if (invalid && pos % INVALID == INVALID - 1) {
+                pdus.add(INVALID_PDU);
+            } else {
+                GXDLMSData it = new GXDLMSData(
+                        "0.0.96." + (pos / 250) + "." + (pos % 250) + ".255");
+                pdus.add(client.read(it, 2)[0]);
+            }
+        }
+        return pdus;
+    }
+
+    /**
+     * Translate PDUs with a single translator.
+     * 
+     * @param pdus
+     *            PDUs to translate.
+     * @return Translated XML by index. Null if translation failed.
+     */
+    private static List<String> translate(final List<byte[]> pdus) {
+        GXDLMSTranslator t =
+                new GXDLMSTranslator(TranslatorOutputType.SIMPLE_XML);
+        List<String> list = new ArrayList<String>(pdus.size());
+        for (byte[] it : pdus) {
+            try {
+                list.add(t.pduToXml(it));
+            } catch (RuntimeException e) {
+                list.add(null);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * PDUs are translated with several workers. Results and errors are
+     * returned in input order.
+     */
+    @Test
+    public void pdusToXmlListener() throws Exception {
+        List<byte[]> pdus = createPdus(true);
+        // Warm up so the single translator is not measured cold.
+        translate(pdus);
+        long start = System.nanoTime();
+        List<String> expected = translate(pdus);
+        long single = System.nanoTime() - start;
+
+        Listener listener = new Listener();
+        GXDLMSBulkTranslator bulk = new GXDLMSBulkTranslator(
+                new GXDLMSTranslator(TranslatorOutputType.SIMPLE_XML),
+                THREADS);
+        try {
+            start = System.nanoTime();
+            assertEquals(COUNT, bulk.pdusToXml(pdus.iterator(), listener));
+        } finally {
+            bulk.close();
+        }
+        long multi = System.nanoTime() - start;
+        System.out.println(String.format(
+                "Bulk translator: %d PDUs, single %.0f PDU/s, "
+                        + "%d workers %.0f PDU/s",
+                COUNT, COUNT * 1e9 / single, THREADS, COUNT * 1e9 / multi));
+
+        assertEquals(COUNT, listener.next);
+        assertEquals(COUNT / INVALID, listener.errors.size());
+        for (int pos = 0; pos != listener.errors.size(); ++pos) {
+            assertEquals((pos + 1) * INVALID - 1,
+                    listener.errors.get(pos).longValue());
+        }
+        for (int pos = 0; pos != COUNT; ++pos) {
+            assertEquals("PDU " + pos, expected.get(pos),
+                    listener.results.get(pos));
+        }
+    }
+
+    /**
+     * Translated PDUs are written to the writer in input order.
+     */
+    @Test
+    public void pdusToXmlWriter() throws Exception {
+        List<byte[]> pdus = createPdus(false);
+        StringBuilder expected = new StringBuilder();
+        for (String it : translate(pdus)) {
+            expected.append(it);
+        }
+        StringWriter writer = new StringWriter();
+        GXDLMSBulkTranslator bulk = new GXDLMSBulkTranslator(
+                new GXDLMSTranslator(TranslatorOutputType.SIMPLE_XML),
+                THREADS);
+        try {
+            assertEquals(COUNT, bulk.pdusToXml(pdus.iterator(), writer));
+        } finally {
+            bulk.close();
+        }
+        assertEquals(expected.toString(), writer.toString());
+    }
+
+    /**
+     * Writer output stops at the first PDU that can't be translated.
+     */
+    @Test
+    public void pdusToXmlWriterError() throws Exception {
+        List<byte[]> pdus = new ArrayList<byte[]>(createPdus(false)
+                .subList(0, 100));
+        pdus.set(50, INVALID_PDU);
+        StringBuilder expected = new StringBuilder();
+        for (String it : translate(pdus.subList(0, 50))) {
+            expected.append(it);
+        }
+        StringWriter writer = new StringWriter();
+        GXDLMSBulkTranslator bulk = new GXDLMSBulkTranslator(
+                new GXDLMSTranslator(TranslatorOutputType.SIMPLE_XML),
+                THREADS);
+        boolean failed = false;
+        try {
+            bulk.pdusToXml(pdus.iterator(), writer);
+        } catch (RuntimeException e) {
+            failed = true;
+        } finally {
+            bulk.close();
+        }
+        assertTrue(failed);
+        assertEquals(expected.toString(), writer.toString());
+    }
+}
@@ -0,0 +1,337 @@
+//
+// --------------------------------------------------------------------------
+//  Gurux Ltd
+// 
+//
+//
+// Filename:        $HeadURL$
+//
+// Version:         $Revision$,
+//                  $Date$
+//                  $Author$
+//
+// Copyright (c) Gurux Ltd
+//
+//---------------------------------------------------------------------------
+//
+//  DESCRIPTION
+//
+// This file is a part of Gurux Device Framework.
+//
+// Gurux Device Framework is Open Source software; you can redistribute it
+// and/or modify it under the terms of the GNU General Public License 
+// as published by the Free Software Foundation; version 2 of the License.
+// Gurux Device Framework is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of 
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+// See the GNU General Public License for more details.
+//
+// More information of Gurux products: http://www.gurux.org
+//
+// This code is licensed under the GNU General Public License v2. 
+// Full text may be retrieved at http://www.gnu.org/licenses/gpl-2.0.txt
+//---------------------------------------------------------------------------
+
+package gurux.dlms.objects;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Random;
+
+import org.junit.Test;
+
+import gurux.dlms.GXDLMSClient;
+import gurux.dlms.GXDLMSConnectionEventArgs;
+import gurux.dlms.GXDLMSServer;
+import gurux.dlms.GXReplyData;
+import gurux.dlms.ValueEventArgs;
+import gurux.dlms.enums.Authentication;
+import gurux.dlms.enums.InterfaceType;
+import gurux.dlms.enums.MethodAccessMode;
+import gurux.dlms.enums.ObjectType;
+import gurux.dlms.enums.ServiceClass;
+import gurux.dlms.enums.SourceDiagnostic;
+import gurux.dlms.objects.enums.ImageTransferStatus;
+
+/**
+ * Broadcast firmware distribution with gap fill is run against several
+ * servers. Part of the broadcast frames are lost on each meter and missing
+ * blocks are sent with unicast.
+ */
+public class GXImageDistributionTest {
+    /**
+     * Amount of meters.
+     */
+    private static final int METERS = 8;
+
+    /**
+     * Image size in bytes.
+     */
+    private static final int IMAGE_SIZE = 20000;
+
+    /**
+     * Image block size.
+     */
+    private static final int BLOCK_SIZE = 200;
+
+    /**
+     * Probability that meter doesn't receive the broadcast frame.
+     */
+    private static final double LOSS = 0.1;
+
+    /**
+     * Image identifier.
+     */
+    private static final String IDENTIFIER = "fw1";
+
+    /**
+     * Meter that has one image transfer object.
+     */
+    private static final class Meter extends GXDLMSServer {
+        /**
+         * Image transfer object of the meter.
+         */
+        private final GXDLMSImageTransfer target = new GXDLMSImageTransfer();
+
+        /**
+         * Constructor.
+         */
+        Meter() {
+            super(true, InterfaceType.WRAPPER);
+            target.setImageBlockSize(BLOCK_SIZE);
+            for (int pos = 1; pos <= target.getMethodCount(); ++pos) {
+                target.setMethodAccess(pos, MethodAccessMode.ACCESS);
+            }
+            getItems().add(target);
+            initialize();
+        }
+
+        @Override
+        protected boolean isTarget(final int serverAddress,
+                final int clientAddress) {
+            return true;
+        }
+
+        @Override
+        protected SourceDiagnostic validateAuthentication(
+                final Authentication authentication, final byte[] password) {
+            return SourceDiagnostic.NONE;
+        }
+
+        @Override
+        protected GXDLMSObject onFindObject(final ObjectType objectType,
+                final int sn, final String ln) {
+            return null;
+        }
+
+        @Override
+        public void read(final ValueEventArgs[] args) {
+        }
+
+        @Override
+        protected void write(final ValueEventArgs[] args) {
+        }
+
+        @Override
+        protected void
+                connected(final GXDLMSConnectionEventArgs connectionInfo) {
+        }
+
+        @Override
+        protected void invalidConnection(
+                final GXDLMSConnectionEventArgs connectionInfo) {
+        }
+
+        @Override
+        protected void
+                disconnected(final GXDLMSConnectionEventArgs connectionInfo) {
+        }
+
+        @Override
+        protected void action(final ValueEventArgs[] args) {
+        }
+    }
+
+    /**
+     * Bytes that are sent to and received from the meters.
+     */
+    private long bytes;
+
+    /**
+     * Send frames to the meter and count the bytes.
+     * 
+     * @param meter
+     *            Meter.
+     * @param client
+     *            Client that parses the reply.
+     * @param frames
+     *            Frames to send.
+     * @return Reply of the last frame.
+     */
+    private GXReplyData send(final Meter meter, final GXDLMSClient client,
+            final byte[][] frames) {
+        GXReplyData reply = new GXReplyData();
+        for (byte[] it : frames) {
+            reply.clear();
+            bytes += it.length;
+            byte[] data = meter.handleRequest(it);
+            if (data != null) {
+                bytes += data.length;
+                client.getData(data, reply);
+            }
+        }
+        return reply;
+    }
+
+    /**
+     * Connect unicast client to the meter.
+     * 
+     * @param meter
+     *            Meter.
+     * @param client
+     *            Unicast client.
+     */
+    private void connect(final Meter meter, final GXDLMSClient client) {
+        client.parseAareResponse(
+                send(meter, client, client.aarqRequest()).getData());
+    }
+
+    /**
+     * Create image that is distributed.
+     * 
+     * @return Image.
+     */
+    private static byte[] createImage() {
+        byte[] image = new byte[IMAGE_SIZE];
+        new Random(1).nextBytes(image);
+        return image;
+    }
+
+    /**
+     * Check that image is received and verified by the meter.
+     * 
+     * @param meter
+     *            Meter.
+     * @param image
+     *            Distributed image.
+     */
+    private static void assertVerified(final Meter meter, final byte[] image)
+            throws Exception {
+        assertEquals(ImageTransferStatus.IMAGE_VERIFICATION_SUCCESSFUL,
+                meter.target.getImageTransferStatus());
+        assertNotNull(meter.target.getImageDigest());
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(image),
+                meter.target.getImageDigest());
+    }
+
+    /**
+     * Send image to all meters with unicast.
+     * 
+     * @param image
+     *            Image.
+     * @return Amount of bytes sent and received.
+     */
+    private long unicast(final byte[] image) throws Exception {
+        bytes = 0;
+        for (int pos = 0; pos != METERS; ++pos) {
+            Meter meter = new Meter();
+            GXDLMSClient client = new GXDLMSClient(true, 16, 1,
+                    Authentication.NONE, null, InterfaceType.WRAPPER);
+            connect(meter, client);
+            GXDLMSImageTransfer target = new GXDLMSImageTransfer();
+            target.setImageBlockSize(BLOCK_SIZE);
+            send(meter, client, target.imageTransferInitiate(client,
+                    IDENTIFIER, image.length));
+            send(meter, client,
+                    target.imageBlockTransfer(client, image, null));
+            send(meter, client, target.imageVerify(client));
+            assertVerified(meter, image);
+        }
+        return bytes;
+    }
+
+    /**
+     * Send image to all meters with broadcast and fill gaps with unicast.
+     * 
+     * @param image
+     *            Image.
+     * @return Amount of bytes sent and received.
+     */
+    private long broadcast(final byte[] image) throws Exception {
+        Meter[] meters = new Meter[METERS];
+        GXDLMSClient bc = new GXDLMSClient(true, 16, 0x3FFF,
+                Authentication.NONE, null, InterfaceType.WRAPPER);
+        bc.setServiceClass(ServiceClass.UN_CONFIRMED);
+        // Broadcast association is pre-established in the meters.
+        for (int pos = 0; pos != METERS; ++pos) {
+            meters[pos] = new Meter();
+            meters[pos].handleRequest(bc.aarqRequest()[0]);
+        }
+        GXDLMSImageTransfer template = new GXDLMSImageTransfer();
+        template.setImageBlockSize(BLOCK_SIZE);
+        GXImageDistribution distribution = new GXImageDistribution(template,
+                IDENTIFIER, ByteBuffer.wrap(image));
+        bytes = 0;
+        for (byte[] frame : distribution.imageTransferInitiate(bc)) {
+            bytes += frame.length;
+            for (Meter it : meters) {
+                it.handleRequest(frame);
+            }
+        }
+        Random random = new Random(2);
+        GXImageBlockIterator blocks = distribution.broadcast(bc);
+        while (blocks.hasNext()) {
+            for (byte[] frame : blocks.next()) {
+                // Broadcast frame is sent only once.
+                bytes += frame.length;
+                for (Meter it : meters) {
+                    // Replies are not received from the broadcast.
+                    if (random.nextDouble() >= LOSS) {
+                        it.handleRequest(frame);
+                    }
+                }
+            }
+        }
+        long missing = 0;
+        for (Meter meter : meters) {
+            // Broadcast connection is closed before unicast.
+            meter.reset();
+            GXDLMSClient client = new GXDLMSClient(true, 16, 1,
+                    Authentication.NONE, null, InterfaceType.WRAPPER);
+            connect(meter, client);
+            GXDLMSImageTransfer target = new GXDLMSImageTransfer();
+            target.setImageBlockSize(BLOCK_SIZE);
+            GXReplyData reply = send(meter, client,
+                    distribution.readTransferredBlocksStatus(client));
+            client.updateValue(target, 3, reply.getValue());
+            String status = target.getImageTransferredBlocksStatus();
+            missing += distribution.getMissingBlockCount(status);
+            GXImageBlockIterator it = distribution.gapFill(client, status);
+            while (it.hasNext()) {
+                send(meter, client, it.next());
+            }
+            send(meter, client, target.imageVerify(client));
+            assertVerified(meter, image);
+        }
+        assertTrue("Broadcast frames were not lost.", missing != 0);
+        return bytes;
+    }
+
+    /**
+     * Broadcast with gap fill must deliver the same image with less bytes
+     * than unicast to each meter.
+     */
+    @Test
+    public final void broadcastWithGapFill() throws Exception {
+        byte[] image = createImage();
+        long naive = unicast(image);
+        long distributed = broadcast(image);
+        double ratio = (double) distributed / naive;
+        assertTrue("Byte ratio " + ratio, ratio < 0.3);
+    }
+}